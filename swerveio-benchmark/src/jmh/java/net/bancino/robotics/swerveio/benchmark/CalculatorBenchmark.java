@@ -0,0 +1,89 @@
+package net.bancino.robotics.swerveio.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.bancino.robotics.swerveio.SwerveDriveCalculator;
+import net.bancino.robotics.swerveio.SwerveModule;
+
+/**
+ * Benchmarks the swerve drive calculator, both one wheel at a time and in a
+ * single batch, in robot-centric and field-centric modes.
+ * 
+ * @author Jordan Bancino
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CalculatorBenchmark {
+
+    private final SwerveDriveCalculator calc = new SwerveDriveCalculator(20, 22);
+    private final double[] speeds = new double[4];
+    private final double[] angles = new double[4];
+
+    /* Joystick inputs are cycled so that the JIT can't fold the results. */
+    private final Joystick joystick = new Joystick();
+
+    private double fwd, str, rcw, gyro;
+
+    @Setup
+    public void setup() {
+        joystick.reset();
+    }
+
+    private void next() {
+        joystick.next();
+        fwd = joystick.fwd;
+        str = joystick.str;
+        rcw = joystick.rcw;
+        gyro = joystick.gyro;
+    }
+
+    @Benchmark
+    public void wheelSpeedRobotCentric(Blackhole bh) {
+        next();
+        for (SwerveModule module : Joystick.MODULES) {
+            bh.consume(calc.getWheelSpeed(module, fwd, str, rcw));
+        }
+    }
+
+    @Benchmark
+    public void wheelAngleRobotCentric(Blackhole bh) {
+        next();
+        for (SwerveModule module : Joystick.MODULES) {
+            bh.consume(calc.getWheelAngle(module, fwd, str, rcw));
+        }
+    }
+
+    @Benchmark
+    public void wheelAngleFieldCentric(Blackhole bh) {
+        next();
+        for (SwerveModule module : Joystick.MODULES) {
+            bh.consume(calc.getWheelAngle(module, fwd, str, rcw, gyro));
+        }
+    }
+
+    @Benchmark
+    public void batchRobotCentric(Blackhole bh) {
+        next();
+        calc.calculate(fwd, str, rcw, 0, speeds, angles);
+        bh.consume(speeds);
+        bh.consume(angles);
+    }
+
+    @Benchmark
+    public void batchFieldCentric(Blackhole bh) {
+        next();
+        calc.calculate(fwd, str, rcw, gyro, speeds, angles);
+        bh.consume(speeds);
+        bh.consume(angles);
+    }
+}
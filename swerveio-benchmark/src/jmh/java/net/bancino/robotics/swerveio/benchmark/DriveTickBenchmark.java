@@ -0,0 +1,88 @@
+package net.bancino.robotics.swerveio.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import net.bancino.robotics.swerveio.SwerveDriveController;
+import net.bancino.robotics.swerveio.kinematics.SwerveGeometry;
+import net.bancino.robotics.swerveio.module.AbstractSwerveModule;
+import net.bancino.robotics.swerveio.module.virtual.ManualClock;
+import net.bancino.robotics.swerveio.module.virtual.VirtualSwerveModule;
+
+/**
+ * Benchmarks a full drive() tick over four simulated modules. This is the same
+ * loop that SwerveDrive runs, so it covers the kinematics, the pivot reference
+ * math and the module calls together.
+ * <p>
+ * With a step of 0, the simulation clock never moves, so the modules do no
+ * physics and only the cost of driving them is measured. With a step of 20
+ * milliseconds, each tick also simulates a full 50 Hz robot loop.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DriveTickBenchmark {
+
+    /** How far the simulation clock is moved each tick, in milliseconds. */
+    @Param({ "0", "20" })
+    public int stepMillis;
+
+    /** Whether or not the modules are driven with parallel I/O. */
+    @Param({ "false", "true" })
+    public boolean parallel;
+
+    /** Whether or not the pivot PIDs are calculated in a PID bank. */
+    @Param({ "false", "true" })
+    public boolean pidBank;
+
+    private ManualClock clock;
+    private SwerveDriveController drive;
+    private long stepNanos;
+    private final Joystick joystick = new Joystick();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        clock = new ManualClock();
+        AbstractSwerveModule[] modules = new AbstractSwerveModule[4];
+        for (int i = 0; i < modules.length; i++) {
+            modules[i] = new VirtualSwerveModule(clock);
+        }
+        drive = new SwerveDriveController(SwerveGeometry.rectangle(20, 22), 360, modules, (module) -> {
+            module.setPivotPidP(0.02);
+            module.setPivotPidD(0.01);
+        });
+        if (pidBank) {
+            drive.enablePivotPidBank();
+        }
+        if (parallel) {
+            drive.enableParallelIO(modules.length, false);
+        }
+        stepNanos = TimeUnit.MILLISECONDS.toNanos(stepMillis);
+        joystick.reset();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        drive.disableParallelIO();
+    }
+
+    @Benchmark
+    public void drive() {
+        joystick.next();
+        drive.drive(joystick.fwd, joystick.str, joystick.rcw, joystick.gyro);
+        clock.advance(stepNanos);
+    }
+}
@@ -0,0 +1,76 @@
+package net.bancino.robotics.swerveio.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.bancino.robotics.swerveio.pid.MiniPID;
+
+/**
+ * Benchmarks a single PID calculation with each of MiniPID's optional features
+ * turned on by itself.
+ * 
+ * @author Jordan Bancino
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MiniPIDBenchmark {
+
+    /** The MiniPID features that can be turned on. */
+    public enum Feature {
+        NONE, RAMP, FILTER, SETPOINT_RANGE, MAX_I_OUTPUT, TIME_AWARE
+    }
+
+    @Param
+    public Feature feature;
+
+    private MiniPID pid;
+    private final Joystick joystick = new Joystick();
+    private double actual;
+
+    @Setup
+    public void setup() {
+        pid = new MiniPID(0.1, 1e-4, 1);
+        pid.setOutputLimits(-1, 1);
+        switch (feature) {
+        case RAMP:
+            pid.setOutputRampRate(0.05);
+            break;
+        case FILTER:
+            pid.setOutputFilter(0.2);
+            break;
+        case SETPOINT_RANGE:
+            pid.setSetpointRange(30);
+            break;
+        case MAX_I_OUTPUT:
+            pid.setMaxIOutput(0.25);
+            break;
+        case TIME_AWARE:
+            pid.setPeriod(0.02);
+            pid.setDerivativeFilter(0.5);
+            break;
+        default:
+            break;
+        }
+        joystick.reset();
+        actual = 0;
+    }
+
+    @Benchmark
+    public double getOutput() {
+        joystick.next();
+        double output = (feature == Feature.TIME_AWARE) ? pid.getOutput(actual, joystick.gyro, 0.02)
+                : pid.getOutput(actual, joystick.gyro);
+        /* Move the "mechanism" a little so that the error changes. */
+        actual += output;
+        return output;
+    }
+}
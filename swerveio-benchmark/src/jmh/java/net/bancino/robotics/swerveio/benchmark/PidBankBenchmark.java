@@ -0,0 +1,90 @@
+package net.bancino.robotics.swerveio.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.bancino.robotics.swerveio.pid.MiniPID;
+import net.bancino.robotics.swerveio.pid.PidBank;
+
+/**
+ * Benchmarks calculating a number of PID controllers with the same settings,
+ * once as separate MiniPIDs and once as a single PID bank. Every optional
+ * feature is turned on, the way a tuned pivot would be.
+ * 
+ * @author Jordan Bancino
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PidBankBenchmark {
+
+    /** The number of controllers. */
+    @Param({ "4", "8", "64" })
+    public int size;
+
+    private MiniPID[] pids;
+    private PidBank bank;
+    private double[] actual, setpoint, output;
+    private final Joystick joystick = new Joystick();
+
+    @Setup
+    public void setup() {
+        pids = new MiniPID[size];
+        bank = new PidBank(size);
+        for (int i = 0; i < size; i++) {
+            pids[i] = new MiniPID(0.1, 1e-4, 1, 0.01);
+            pids[i].setOutputLimits(-1, 1);
+            pids[i].setOutputRampRate(0.05);
+            pids[i].setOutputFilter(0.2);
+            pids[i].setSetpointRange(30);
+            pids[i].setMaxIOutput(0.25);
+            bank.setPID(i, 0.1, 1e-4, 1);
+            bank.setF(i, 0.01);
+            bank.setOutputLimits(i, -1, 1);
+            bank.setOutputRampRate(i, 0.05);
+            bank.setOutputFilter(i, 0.2);
+            bank.setSetpointRange(i, 30);
+            bank.setMaxIOutput(i, 0.25);
+        }
+        actual = new double[size];
+        setpoint = new double[size];
+        output = new double[size];
+        joystick.reset();
+    }
+
+    /**
+     * Give each controller a new setpoint, and move each "mechanism" a little by
+     * its last output so that the error changes.
+     */
+    private void step() {
+        joystick.next();
+        for (int i = 0; i < size; i++) {
+            setpoint[i] = joystick.gyro + i;
+            actual[i] += output[i];
+        }
+    }
+
+    @Benchmark
+    public double[] miniPids() {
+        step();
+        for (int i = 0; i < size; i++) {
+            output[i] = pids[i].getOutput(actual[i], setpoint[i]);
+        }
+        return output;
+    }
+
+    @Benchmark
+    public double[] pidBank() {
+        step();
+        bank.update(actual, setpoint, output);
+        return output;
+    }
+}
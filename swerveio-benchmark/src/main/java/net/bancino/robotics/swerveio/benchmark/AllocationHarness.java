@@ -0,0 +1,439 @@
+package net.bancino.robotics.swerveio.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import edu.wpi.first.wpilibj.SpeedController;
+import net.bancino.robotics.swerveio.SwerveDriveCalculator;
+import net.bancino.robotics.swerveio.SwerveDriveController;
+import net.bancino.robotics.swerveio.SwerveModule;
+import net.bancino.robotics.swerveio.encoder.Encoder;
+import net.bancino.robotics.swerveio.encoder.EncoderSampler;
+import net.bancino.robotics.swerveio.encoder.UnwrappingEncoder;
+import net.bancino.robotics.swerveio.encoder.VelocityEncoder;
+import net.bancino.robotics.swerveio.encoder.filter.ExponentialEncoder;
+import net.bancino.robotics.swerveio.encoder.filter.KalmanEncoder;
+import net.bancino.robotics.swerveio.encoder.filter.MedianEncoder;
+import net.bancino.robotics.swerveio.encoder.filter.MovingAverageEncoder;
+import net.bancino.robotics.swerveio.encoder.filter.OversamplingEncoder;
+import net.bancino.robotics.swerveio.kinematics.SwerveGeometry;
+import net.bancino.robotics.swerveio.module.AbstractSwerveModule;
+import net.bancino.robotics.swerveio.module.GenericSwerveModule;
+import net.bancino.robotics.swerveio.module.virtual.ManualClock;
+import net.bancino.robotics.swerveio.module.virtual.VirtualSwerveModule;
+import net.bancino.robotics.swerveio.pid.Feedforward;
+import net.bancino.robotics.swerveio.pid.MiniPID;
+import net.bancino.robotics.swerveio.pid.PidBank;
+import net.bancino.robotics.swerveio.telemetry.Trace;
+
+/**
+ * Proves that the steady-state control path doesn't allocate. Each path is
+ * warmed up until the JIT has compiled it, and then run thousands of times
+ * while the bytes allocated by this thread are counted. Any allocation at all
+ * is a failure.
+ * <p>
+ * There are two modes:
+ * </p>
+ * <ul>
+ * <li><b>check</b> (the default): Measure each path once, print the bytes per
+ * path and exit with a non-zero status if any of them allocated.</li>
+ * <li><b>soak</b> [minutes]: Run all the paths round-robin for the given number
+ * of minutes (5 by default). This is meant to be run with
+ * {@code -XX:+UseEpsilonGC}, which never collects garbage, so the JVM runs out
+ * of memory and fails if anything allocates, even rarely.</li>
+ * </ul>
+ * <p>
+ * The paths that need WPILib only use its interfaces, so no native libraries
+ * are loaded. The check also runs as a unit test, so {@code gradle check}
+ * fails if anything allocates.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public class AllocationHarness {
+
+    /** How many times each path is run before it is measured. */
+    public static final int WARMUP_ITERATIONS = 50_000;
+
+    /** How many times each path is run while it is measured. */
+    public static final int MEASURED_ITERATIONS = 10_000;
+
+    /** A steady-state path that must not allocate. */
+    private interface Path {
+        void run(int iteration);
+    }
+
+    private final List<String> names = new ArrayList<>();
+    private final List<Path> paths = new ArrayList<>();
+    private final com.sun.management.ThreadMXBean threads;
+    private final long threadId = Thread.currentThread().getId();
+
+    /* Consumes results so that the JIT can't eliminate the work. */
+    private double sink;
+
+    /* Package-private so that the unit test can run the check. */
+    AllocationHarness() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            throw new UnsupportedOperationException("This JVM does not count allocated bytes per thread.");
+        }
+        threads = (com.sun.management.ThreadMXBean) bean;
+        threads.setThreadAllocatedMemoryEnabled(true);
+        addPaths();
+    }
+
+    private void add(String name, Path path) {
+        names.add(name);
+        paths.add(path);
+    }
+
+    private void addPaths() {
+        Joystick joystick = new Joystick();
+
+        SwerveDriveCalculator calc = new SwerveDriveCalculator(20, 22);
+        double[] speeds = new double[4];
+        double[] angles = new double[4];
+        add("SwerveDriveCalculator.calculate", (i) -> {
+            joystick.next();
+            calc.calculate(joystick.fwd, joystick.str, joystick.rcw, joystick.gyro, speeds, angles);
+            sink += speeds[i & 3] + angles[i & 3];
+        });
+        add("SwerveDriveCalculator.getWheelSpeed/getWheelAngle", (i) -> {
+            joystick.next();
+            SwerveModule module = Joystick.MODULES[i & 3];
+            sink += calc.getWheelSpeed(module, joystick.fwd, joystick.str, joystick.rcw);
+            sink += calc.getWheelAngle(module, joystick.fwd, joystick.str, joystick.rcw, joystick.gyro);
+        });
+
+        MiniPID pid = new MiniPID(0.1, 1e-4, 1, 0.01);
+        pid.setOutputLimits(-1, 1);
+        pid.setOutputRampRate(0.05);
+        pid.setOutputFilter(0.2);
+        pid.setSetpointRange(30);
+        pid.setMaxIOutput(0.25);
+        add("MiniPID.getOutput", (i) -> {
+            joystick.next();
+            sink += pid.getOutput(sink % 360, joystick.gyro);
+        });
+
+        MiniPID timedPid = new MiniPID(0.1, 1e-4, 1, 0.01);
+        timedPid.setOutputLimits(-1, 1);
+        timedPid.setOutputRampRate(0.05);
+        timedPid.setOutputFilter(0.2);
+        timedPid.setDerivativeFilter(0.5);
+        timedPid.setPeriod(0.02);
+        add("MiniPID.getOutput (time-aware)", (i) -> {
+            joystick.next();
+            /* Jitter the period, with the occasional duplicate and skipped tick. */
+            double dt = ((i % 97) == 0) ? 0 : ((i % 89) == 0) ? 0.2 : 0.02 + (joystick.rcw * 0.005);
+            sink += timedPid.getOutput(sink % 360, joystick.gyro, dt);
+            sink += timedPid.getOutput(sink % 360, joystick.gyro);
+        });
+
+        PidBank bank = new PidBank(4);
+        double[] bankActual = new double[4];
+        double[] bankSetpoint = new double[4];
+        double[] bankOutput = new double[4];
+        for (int slot = 0; slot < bank.getSize(); slot++) {
+            bank.setPID(slot, 0.1, 1e-4, 1);
+            bank.setOutputLimits(slot, -1, 1);
+            bank.setOutputRampRate(slot, 0.05);
+            bank.setOutputFilter(slot, 0.2);
+            bank.setSetpointRange(slot, 30);
+        }
+        add("PidBank.update", (i) -> {
+            joystick.next();
+            for (int slot = 0; slot < 4; slot++) {
+                bankActual[slot] += bankOutput[slot];
+                bankSetpoint[slot] = joystick.gyro;
+            }
+            bank.update(bankActual, bankSetpoint, bankOutput);
+            sink += bankOutput[i & 3];
+        });
+
+        HarnessModule genericModule = new HarnessModule();
+        genericModule.setPivotPidP(0.02);
+        genericModule.setOutputCaching(1e-3, 0.1);
+        add("GenericSwerveModule.setPivotReference", (i) -> {
+            joystick.next();
+            genericModule.setPivotReference(joystick.gyro);
+            genericModule.setDriveMotorSpeed(joystick.fwd);
+            sink += genericModule.getPivotMotorEncoder() + genericModule.getDriveMotorEncoder();
+        });
+
+        EncoderSampler sampler = new EncoderSampler(1000);
+        Encoder sampled = sampler.register(new CountingEncoder());
+        add("SampledEncoder.get", (i) -> {
+            sampler.run();
+            sink += sampled.get();
+        });
+
+        /* Counts past 360 every few hundred reads, so both wraps and turns are covered. */
+        UnwrappingEncoder unwrapping = new UnwrappingEncoder(new CountingEncoder(), 360, 45);
+        add("UnwrappingEncoder.get", (i) -> {
+            sink += unwrapping.get() + unwrapping.getWrapped();
+        });
+
+        Encoder filtered = new KalmanEncoder(new ExponentialEncoder(new MedianEncoder(
+                new MovingAverageEncoder(new OversamplingEncoder(new CountingEncoder(), 2), 4), 5), 0.5), 1e-3, 0.1);
+        add("FilteredEncoder.get", (i) -> {
+            sink += filtered.get();
+        });
+
+        VelocityEncoder velocity = new VelocityEncoder(new CountingEncoder(), 8, VelocityEncoder.Estimator.LEAST_SQUARES);
+        add("VelocityEncoder.extrapolate", (i) -> {
+            sink += velocity.extrapolate(0.02) + velocity.getVelocity();
+        });
+
+        add("SwerveDriveController.drive", newDrive(joystick, DriveMode.DEFAULT));
+        add("SwerveDriveController.drive (parallel I/O)", newDrive(joystick, DriveMode.PARALLEL_IO));
+        add("SwerveDriveController.drive (pivot PID bank)", newDrive(joystick, DriveMode.PID_BANK));
+        add("SwerveDriveController.drive (velocity)", newDrive(joystick, DriveMode.VELOCITY));
+    }
+
+    /** The optional drive features that are covered by their own path. */
+    private enum DriveMode {
+        DEFAULT, PARALLEL_IO, PID_BANK, VELOCITY
+    }
+
+    /**
+     * Create a drive over four virtual modules, which are stepped 20 ms each
+     * tick, with tracing and profiling turned on so that they are covered too.
+     */
+    private Path newDrive(Joystick joystick, DriveMode mode) {
+        ManualClock clock = new ManualClock();
+        AbstractSwerveModule[] modules = new AbstractSwerveModule[4];
+        for (int i = 0; i < modules.length; i++) {
+            modules[i] = new VirtualSwerveModule(clock);
+        }
+        SwerveDriveController drive = new SwerveDriveController(SwerveGeometry.rectangle(20, 22), 360, modules,
+                (module) -> {
+                    module.setPivotPidP(0.02);
+                    module.setDriveVelocityPidP(0.01);
+                });
+        drive.getProfiler().setEnabled(true);
+        switch (mode) {
+        case PARALLEL_IO:
+            drive.enableParallelIO(modules.length, false);
+            break;
+        case PID_BANK:
+            drive.enablePivotPidBank();
+            break;
+        case VELOCITY:
+            drive.enableVelocityDrive(75, new Feedforward(0.05, 0.127, 0.01), 0.02);
+            break;
+        default:
+            break;
+        }
+        long step = TimeUnit.MILLISECONDS.toNanos(20);
+        return (i) -> {
+            joystick.next();
+            drive.drive(joystick.fwd, joystick.str, joystick.rcw, joystick.gyro);
+            clock.advance(step);
+        };
+    }
+
+    /**
+     * Run a path and count the bytes that it allocated.
+     * 
+     * @return The bytes allocated by the path, not counting the measurement
+     *         itself.
+     */
+    private long measure(Path path, int iterations) {
+        /*
+         * Reading the counter can allocate a little on its own, so measure what a
+         * reading costs and subtract it.
+         */
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 16; i++) {
+            long start = threads.getThreadAllocatedBytes(threadId);
+            overhead = Math.min(overhead, threads.getThreadAllocatedBytes(threadId) - start);
+        }
+        long start = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            path.run(i);
+        }
+        return threads.getThreadAllocatedBytes(threadId) - start - overhead;
+    }
+
+    /**
+     * Measure each path once, and print how many bytes it allocated.
+     * 
+     * @return Whether or not every path allocated nothing.
+     */
+    boolean check() {
+        boolean passed = true;
+        for (int i = 0; i < paths.size(); i++) {
+            Path path = paths.get(i);
+            for (int j = 0; j < WARMUP_ITERATIONS; j++) {
+                path.run(j);
+            }
+            long bytes = measure(path, MEASURED_ITERATIONS);
+            System.out.printf("%-50s %10d bytes over %d iterations%n", names.get(i), bytes, MEASURED_ITERATIONS);
+            passed &= (bytes <= 0);
+        }
+        return passed;
+    }
+
+    private void soak(double minutes) {
+        System.out.println("Soaking " + paths.size() + " paths for " + minutes + " minutes.");
+        Path[] soaked = paths.toArray(new Path[0]);
+        long end = System.nanoTime() + (long) (minutes * TimeUnit.MINUTES.toNanos(1));
+        long rounds = 0;
+        while (System.nanoTime() < end) {
+            for (Path path : soaked) {
+                for (int i = 0; i < 1000; i++) {
+                    path.run(i);
+                }
+            }
+            rounds++;
+        }
+        System.out.println("Completed " + (rounds * 1000) + " iterations of each path.");
+    }
+
+    /**
+     * Run the harness.
+     * 
+     * @param args "check" or "soak", and for soak, the number of minutes.
+     */
+    public static void main(String[] args) {
+        String mode = (args.length > 0) ? args[0] : "check";
+        /* Tracing is enabled so that recording is covered; the sink just drops values. */
+        Trace.enable((timestamp, channel, value) -> {
+        });
+        AllocationHarness harness = new AllocationHarness();
+        int status = 0;
+        if ("soak".equals(mode)) {
+            harness.soak((args.length > 1) ? Double.parseDouble(args[1]) : 5);
+        } else if ("check".equals(mode)) {
+            if (!harness.check()) {
+                System.out.println("FAILED: The paths above allocated in the steady state.");
+                status = 1;
+            }
+        } else {
+            System.err.println("Unknown mode: " + mode + ". Use check or soak.");
+            status = 2;
+        }
+        Trace.disable();
+        /* Parallel I/O leaves worker threads behind. */
+        System.exit(status);
+    }
+
+    /**
+     * An encoder that just counts up, standing in for hardware.
+     */
+    private static class CountingEncoder implements Encoder {
+        private double count;
+
+        @Override
+        public double get() {
+            return count += 0.5;
+        }
+
+        @Override
+        public void set(double val) {
+            count = val;
+        }
+    }
+
+    /**
+     * A motor controller that just remembers what it was set to.
+     */
+    private static class NullSpeedController implements SpeedController {
+        private double speed;
+        private boolean inverted;
+
+        @Override
+        public void set(double speed) {
+            this.speed = speed;
+        }
+
+        @Override
+        public double get() {
+            return speed;
+        }
+
+        @Override
+        public void setInverted(boolean isInverted) {
+            inverted = isInverted;
+        }
+
+        @Override
+        public boolean getInverted() {
+            return inverted;
+        }
+
+        @Override
+        public void disable() {
+            speed = 0;
+        }
+
+        @Override
+        public void stopMotor() {
+            speed = 0;
+        }
+
+        /* Required by older WPILib versions, where SpeedController is a PIDOutput. */
+        public void pidWrite(double output) {
+            set(output);
+        }
+    }
+
+    /**
+     * The smallest possible generic swerve module, so that the generic module's
+     * own code can be measured.
+     */
+    private static class HarnessModule extends GenericSwerveModule {
+
+        private HarnessModule() {
+            super(new NullSpeedController(), new NullSpeedController(), new CountingEncoder(), new CountingEncoder());
+        }
+
+        @Override
+        public void setDriveReference(double ref) {
+            setDriveMotorSpeed(ref);
+        }
+
+        @Override
+        public void setPivotClosedLoopRampRate(double rate) {
+        }
+
+        @Override
+        public void setPivotOpenLoopRampRate(double rate) {
+        }
+
+        @Override
+        public void setDriveClosedLoopRampRate(double rate) {
+        }
+
+        @Override
+        public void setDriveOpenLoopRampRate(double rate) {
+        }
+
+        @Override
+        public void setDrivePidP(double gain) {
+        }
+
+        @Override
+        public void setDrivePidI(double gain) {
+        }
+
+        @Override
+        public void setDrivePidD(double gain) {
+        }
+
+        @Override
+        public void setDrivePidIZone(double iZone) {
+        }
+
+        @Override
+        public void setDrivePidFF(double gain) {
+        }
+
+        @Override
+        public void setDrivePidOutputLimits(double min, double max) {
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package net.bancino.robotics.swerveio.benchmark;
+
+import java.util.Random;
+
+import net.bancino.robotics.swerveio.SwerveModule;
+
+/**
+ * A fake joystick and gyro that cycle through a fixed set of random inputs, so
+ * that every benchmark sees the same varied inputs without paying for a random
+ * number generator on each operation.
+ * 
+ * @author Jordan Bancino
+ */
+class Joystick {
+    /* Cached because values() copies the array each time. */
+    static final SwerveModule[] MODULES = SwerveModule.values();
+
+    private static final int SAMPLES = 1024;
+    private static final double[] FWD = new double[SAMPLES];
+    private static final double[] STR = new double[SAMPLES];
+    private static final double[] RCW = new double[SAMPLES];
+    private static final double[] GYRO = new double[SAMPLES];
+
+    static {
+        Random random = new Random(6090);
+        for (int i = 0; i < SAMPLES; i++) {
+            FWD[i] = (random.nextDouble() * 2) - 1;
+            STR[i] = (random.nextDouble() * 2) - 1;
+            RCW[i] = (random.nextDouble() * 2) - 1;
+            GYRO[i] = random.nextDouble() * 360;
+        }
+    }
+
+    double fwd, str, rcw, gyro;
+    private int index;
+
+    void reset() {
+        index = 0;
+    }
+
+    void next() {
+        index = (index + 1) & (SAMPLES - 1);
+        fwd = FWD[index];
+        str = STR[index];
+        rcw = RCW[index];
+        gyro = GYRO[index];
+    }
+}
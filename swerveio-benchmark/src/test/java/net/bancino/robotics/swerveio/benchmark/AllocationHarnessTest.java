@@ -0,0 +1,28 @@
+package net.bancino.robotics.swerveio.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import net.bancino.robotics.swerveio.telemetry.Trace;
+
+/**
+ * Run the allocation harness's check as part of the build, so that a change
+ * that makes the control path allocate fails the tests.
+ * 
+ * @author Jordan Bancino
+ */
+public class AllocationHarnessTest {
+
+    @Test
+    public void testControlPathDoesNotAllocate() {
+        /* Tracing is enabled so that recording is covered; the sink just drops values. */
+        Trace.enable((timestamp, channel, value) -> {
+        });
+        try {
+            assertTrue(new AllocationHarness().check(), "A path allocated in the steady state; see the output.");
+        } finally {
+            Trace.disable();
+        }
+    }
+}
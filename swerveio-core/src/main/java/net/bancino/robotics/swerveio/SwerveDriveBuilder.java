@@ -0,0 +1,334 @@
+package net.bancino.robotics.swerveio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.bancino.robotics.swerveio.function.ModuleFactory;
+import net.bancino.robotics.swerveio.function.ModuleModifier;
+import net.bancino.robotics.swerveio.kinematics.SwerveGeometry;
+import net.bancino.robotics.swerveio.module.AbstractSwerveModule;
+import net.bancino.robotics.swerveio.module.ModuleConfiguration;
+import net.bancino.robotics.swerveio.telemetry.StartupReport;
+
+/**
+ * Brings up the modules of a swerve drive at the same time. Opening a module's
+ * motor controllers and pushing its settings mostly waits on the CAN bus, so
+ * constructing and configuring the modules one after another makes startup
+ * take as long as all of them put together. A builder instead runs each
+ * module's factory and then the modifier on a small pool of threads, and
+ * records how long each module took in a {@link StartupReport}.
+ * <p>
+ * If any module fails to start, the modules that haven't started yet are
+ * cancelled, the ones already starting are allowed to finish, and a single
+ * {@link SwerveImplementationException} describing every failure is thrown.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public class SwerveDriveBuilder {
+
+    /** The number of modules that are brought up at once by default. */
+    public static final int DEFAULT_THREADS = 4;
+
+    private final SwerveGeometry geometry;
+    private final double countsPerPivotRevolution;
+    private final ModuleFactory[] factories;
+    private ModuleModifier modifier;
+    private int threads = DEFAULT_THREADS;
+    private StartupReport report;
+
+    /**
+     * Create a builder for a swerve drive with any number of modules in any
+     * placement.
+     * 
+     * @param geometry                 The positions of the modules.
+     * @param countsPerPivotRevolution The number of counts it takes to rotate the
+     *                                 module a full 360 degrees.
+     */
+    public SwerveDriveBuilder(SwerveGeometry geometry, double countsPerPivotRevolution) {
+        if (geometry == null) {
+            throw new IllegalArgumentException("Swerve geometry must not be null.");
+        }
+        this.geometry = geometry;
+        this.countsPerPivotRevolution = countsPerPivotRevolution;
+        this.factories = new ModuleFactory[geometry.getModuleCount()];
+    }
+
+    /**
+     * Create a builder for a rectangular swerve drive with four modules.
+     * 
+     * @param baseWidth                The width of the swerve drive base.
+     * @param baseLength               The length of the swerve drive base.
+     * @param countsPerPivotRevolution The number of counts it takes to rotate the
+     *                                 module a full 360 degrees.
+     */
+    public SwerveDriveBuilder(double baseWidth, double baseLength, double countsPerPivotRevolution) {
+        this(SwerveGeometry.rectangle(baseWidth, baseLength), countsPerPivotRevolution);
+    }
+
+    /**
+     * Set how to construct one of the modules.
+     * 
+     * @param index   The index of the module in the geometry.
+     * @param factory The factory that constructs the module.
+     * @return This builder.
+     */
+    public SwerveDriveBuilder setModule(int index, ModuleFactory factory) {
+        if (index < 0 || index >= factories.length) {
+            throw new IllegalArgumentException(
+                    "Module index " + index + " is out of range for " + factories.length + " modules.");
+        }
+        factories[index] = factory;
+        return this;
+    }
+
+    /**
+     * Set how to construct one of the modules of a four module drive.
+     * 
+     * @param position The position of the module.
+     * @param factory  The factory that constructs the module.
+     * @return This builder.
+     */
+    public SwerveDriveBuilder setModule(SwerveModule position, ModuleFactory factory) {
+        if (factories.length != SwerveModule.values().length) {
+            throw new IllegalArgumentException("Module positions can only be used with a four module geometry.");
+        }
+        return setModule(position.ordinal(), factory);
+    }
+
+    /**
+     * Set the modifier that will apply settings to each module once it is
+     * constructed. A {@link ModuleConfiguration} is applied to each module as it
+     * comes up, and then verified in the background once they all have.
+     * 
+     * @param modifier The modifier, or null to leave the modules as constructed.
+     * @return This builder.
+     */
+    public SwerveDriveBuilder setModifier(ModuleModifier modifier) {
+        this.modifier = modifier;
+        return this;
+    }
+
+    /**
+     * Set how many modules can be brought up at once. The CAN bus is shared, so
+     * more threads than modules never helps, and fewer may be kinder to a slow
+     * bus.
+     * 
+     * @param threads The number of threads. The default is
+     *                {@link #DEFAULT_THREADS}.
+     * @return This builder.
+     */
+    public SwerveDriveBuilder setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is required.");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * @return The positions of the modules.
+     */
+    public SwerveGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * @return The number of counts it takes to rotate a module a full 360
+     *         degrees.
+     */
+    public double getCountsPerPivotRevolution() {
+        return countsPerPivotRevolution;
+    }
+
+    /**
+     * Construct and configure all the modules, bringing up as many at once as
+     * there are threads.
+     * <p>
+     * If any module fails, the modules that haven't started yet are skipped, and
+     * the ones already being started are waited for. Modules have no way to be
+     * closed, so those that were started before the failure are dropped with
+     * their motor controllers still open. A failed build should be fixed rather
+     * than retried.
+     * </p>
+     * 
+     * @return The modules, in the same order as their positions in the geometry.
+     * @throws SwerveImplementationException If a module has no factory, or any
+     *                                       module could not be constructed or
+     *                                       configured.
+     */
+    public AbstractSwerveModule[] buildModules() throws SwerveImplementationException {
+        StringBuilder missing = new StringBuilder("No module factory was given for the following modules: [");
+        boolean haveMissing = false;
+        for (int i = 0; i < factories.length; i++) {
+            if (factories[i] == null) {
+                missing.append(" ").append(i);
+                haveMissing = true;
+            }
+        }
+        if (haveMissing) {
+            throw new SwerveImplementationException(missing.append("]").toString());
+        }
+
+        int count = factories.length;
+        ModuleFactory[] factories = this.factories.clone();
+        ModuleModifier modifier = this.modifier;
+        AbstractSwerveModule[] modules = new AbstractSwerveModule[count];
+        long[] constructionNanos = new long[count];
+        long[] configurationNanos = new long[count];
+        Throwable[] failures = new Throwable[count];
+        int poolSize = Math.min(threads, count);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize, (task) -> {
+            Thread thread = new Thread(task, "SwerveIO Startup " + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<Integer> started = new ExecutorCompletionService<>(executor);
+        AtomicBoolean abort = new AtomicBoolean();
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            started.submit(() -> {
+                if (abort.get()) {
+                    return index;
+                }
+                try {
+                    long constructStart = System.nanoTime();
+                    AbstractSwerveModule module = factories[index].create();
+                    constructionNanos[index] = System.nanoTime() - constructStart;
+                    if (module == null) {
+                        throw new SwerveImplementationException("The module factory returned null.");
+                    }
+                    long configureStart = System.nanoTime();
+                    if (modifier instanceof ModuleConfiguration) {
+                        ((ModuleConfiguration) modifier).apply(module);
+                    } else if (modifier != null) {
+                        modifier.modify(module);
+                    }
+                    configurationNanos[index] = System.nanoTime() - configureStart;
+                    modules[index] = module;
+                } catch (Throwable e) {
+                    /* Errors too, so that every failure is reported the same way. */
+                    failures[index] = e;
+                }
+                return index;
+            });
+        }
+
+        /* Stop handing out modules as soon as one fails. */
+        boolean interrupted = false;
+        try {
+            for (int i = 0; i < count; i++) {
+                int index = started.take().get();
+                if (failures[index] != null) {
+                    abort.set(true);
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            abort.set(true);
+            interrupted = true;
+        } catch (ExecutionException e) {
+            /* The tasks catch their own failures, so this can't happen. */
+            throw new IllegalStateException(e);
+        } finally {
+            executor.shutdown();
+            awaitStartup(executor);
+        }
+        long totalNanos = System.nanoTime() - startTime;
+
+        List<String> failed = new ArrayList<>();
+        Throwable firstFailure = null;
+        int notStarted = 0;
+        for (int i = 0; i < count; i++) {
+            if (failures[i] != null) {
+                Throwable failure = failures[i];
+                failed.add(i + ": " + ((failure instanceof SwerveImplementationException) ? failure.getMessage()
+                        : failure.toString()));
+                if (firstFailure == null) {
+                    firstFailure = failure;
+                }
+            } else if (modules[i] == null) {
+                notStarted++;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            throw new SwerveImplementationException("Interrupted while starting the modules.");
+        } else if (!failed.isEmpty()) {
+            StringBuilder message = new StringBuilder("The following modules could not be started:");
+            for (String failure : failed) {
+                message.append(" [").append(failure).append("]");
+            }
+            if (notStarted > 0) {
+                message.append(" ").append(notStarted).append(" other modules were not started.");
+            }
+            SwerveImplementationException e = new SwerveImplementationException(message.toString());
+            e.initCause(firstFailure);
+            throw e;
+        }
+
+        if (modifier instanceof ModuleConfiguration) {
+            ((ModuleConfiguration) modifier).verify(modules);
+        }
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = (count == SwerveModule.values().length) ? SwerveModule.values()[i].toString()
+                    : modules[i].getClass().getSimpleName();
+        }
+        report = new StartupReport(names, constructionNanos, configurationNanos, totalNanos, poolSize);
+        return modules;
+    }
+
+    /**
+     * Construct and configure all the modules, and create a controller to drive
+     * them.
+     * 
+     * @return The controller.
+     * @throws SwerveImplementationException If any module could not be started.
+     */
+    public SwerveDriveController build() throws SwerveImplementationException {
+        /* The modules are already configured, so the controller mustn't do it again. */
+        return new SwerveDriveController(geometry, countsPerPivotRevolution, buildModules(), null);
+    }
+
+    /**
+     * Get the timing of the last successful build.
+     * 
+     * @return The startup report, or null if nothing has been built yet.
+     */
+    public StartupReport getStartupReport() {
+        return report;
+    }
+
+    /**
+     * Wait for the modules that already started to finish, so that none are left
+     * half constructed. A module's constructor usually can't be interrupted.
+     */
+    private static void awaitStartup(ExecutorService executor) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package net.bancino.robotics.swerveio;
+
+import java.awt.Rectangle;
+
+import net.bancino.robotics.swerveio.kinematics.SwerveGeometry;
+
+import static java.lang.Math.*;
+
+/**
+ * A swerve drive calculator that performs all the calculations required to
+ * obtain wheel angles and speeds. The proofs behind why this works is not
+ * documented here, but there is plenty online. It is just a little
+ * trigonometry.
+ * <p>
+ * The calculator works off of a {@link SwerveGeometry}, so it supports any
+ * number of modules in any placement. When it is created with base dimensions,
+ * a rectangular geometry is used, and its modules are indexed by the ordinal
+ * of each {@link SwerveModule}. A calculator is not thread safe.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public class SwerveDriveCalculator {
+
+    private double baseWidth;
+    private double baseLength;
+
+    /*
+     * The geometry only changes when the base does, so everything derived from it
+     * is cached here instead of being recalculated on every call.
+     */
+    private SwerveGeometry geometry;
+    private double[] vectors;
+
+    /**
+     * Instantiate a calculator with the given base dimensions. Note that these
+     * don't have to be exact measurements, they just need to be proportionate to
+     * each other, because they're used in ratios. Because of this, it doesn't
+     * matter whether imperical or metric measurements are taken.
+     * 
+     * @param baseWidth  The width of the drive base.
+     * @param baseLength The length of the drive base.
+     */
+    public SwerveDriveCalculator(double baseWidth, double baseLength) {
+        setBase(baseWidth, baseLength);
+    }
+
+    /**
+     * Create the swerve drive calculator using a rectangle object for dimensions.
+     * 
+     * @param base The rectangle that represents the dimensions of the base.
+     */
+    public SwerveDriveCalculator(Rectangle base) {
+        setBase(base.getWidth(), base.getHeight());
+    }
+
+    /**
+     * Create a calculator for an arbitrary module layout.
+     * 
+     * @param geometry The positions of the modules.
+     */
+    public SwerveDriveCalculator(SwerveGeometry geometry) {
+        setGeometry(geometry);
+    }
+
+    /**
+     * Create a calculator with the default base ratio, which is 1.
+     */
+    public SwerveDriveCalculator() {
+        this(1.0, 1.0);
+    }
+
+    /**
+     * If your base magically decides to dynamically change widths at runtime, you
+     * can set new widths here. This replaces the geometry with a rectangle.
+     * 
+     * @param baseWidth The new base width to be used in future calculations.
+     */
+    public void setBaseWidth(double baseWidth) {
+        setBase(baseWidth, baseLength);
+    }
+
+    /**
+     * Get the width of the drive base this calculator is using to perform its
+     * calculations.
+     * 
+     * @return The base width.
+     */
+    public double getBaseWidth() {
+        return baseWidth;
+    }
+
+    /**
+     * If your base magically decides to dynamically change lengths at runtime, you
+     * can set new lengths here. This replaces the geometry with a rectangle.
+     * 
+     * @param baseLength The new base length to be used in future calculations.
+     */
+    public void setBaseLength(double baseLength) {
+        setBase(baseWidth, baseLength);
+    }
+
+    /**
+     * Get the length of the drive base this calculator is using to perform its
+     * calculations.
+     * 
+     * @return The base length.
+     */
+    public double getBaseLength() {
+        return baseLength;
+    }
+
+    /**
+     * Set the base dimensions. This replaces the geometry with a rectangle that
+     * has a module in each corner.
+     * 
+     * @param baseWidth  The width to set.
+     * @param baseLength The length to set.
+     */
+    public void setBase(double baseWidth, double baseLength) {
+        setGeometry(SwerveGeometry.rectangle(baseWidth, baseLength));
+    }
+
+    /**
+     * Set the module layout to use in future calculations. The base width and
+     * length become the span of the modules.
+     * 
+     * @param geometry The positions of the modules.
+     */
+    public void setGeometry(SwerveGeometry geometry) {
+        if (geometry == null) {
+            throw new IllegalArgumentException("Geometry must not be null.");
+        }
+        this.geometry = geometry;
+        this.baseWidth = geometry.getWidth();
+        this.baseLength = geometry.getLength();
+        this.vectors = new double[geometry.getModuleCount() * 2];
+    }
+
+    /**
+     * Get the module layout this calculator is using to perform its calculations.
+     * 
+     * @return The geometry of the base.
+     */
+    public SwerveGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Get the number of modules that this calculator calculates values for.
+     * 
+     * @return The module count.
+     */
+    public int getModuleCount() {
+        return geometry.getModuleCount();
+    }
+
+    /**
+     * Get the wheel angle for the given degrees.
+     * 
+     * @param module The wheel to get the angle of.
+     * @param fwd    The Y degree (from an input device)
+     * @param str    The X degree (from an input device)
+     * @param rcw    The Z degree (from an input device)
+     * @return The angle (in degrees) that the given wheel should be set to.
+     * @throws IllegalStateException If the geometry doesn't have four modules.
+     */
+    public double getWheelAngle(SwerveModule module, double fwd, double str, double rcw) {
+        int row = rowOf(module);
+        return toDegrees(atan2(getWheelConstant(row + 1, fwd, str, rcw), getWheelConstant(row, fwd, str, rcw)));
+    }
+
+    /**
+     * Get the wheel angle for the given degrees. This is the field-centric method
+     * that recalculates the values based on the gyro angle.
+     * 
+     * @param module    The wheel to get the angle of.
+     * @param fwd       The Y degree (from an input device)
+     * @param str       The X degree (from an input device)
+     * @param rcw       The Z degree (from an input device)
+     * @param gyroAngle The gyro angle (in degrees) measured from the zero position
+     *                  (sraight down field)
+     * @return The angle (in degrees) that the given wheel should be set to.
+     * @throws IllegalStateException If the geometry doesn't have four modules.
+     */
+    public double getWheelAngle(SwerveModule module, double fwd, double str, double rcw, double gyroAngle) {
+        double cosAngle = cos(toRadians(gyroAngle));
+        double sinAngle = sin(toRadians(gyroAngle));
+        double modFwd = (fwd * cosAngle) + (str * sinAngle);
+        double modStr = (fwd * sinAngle) + (str * cosAngle);
+        return getWheelAngle(module, modFwd, modStr, rcw);
+    }
+
+    /**
+     * Get the wheel speed for the given degrees.
+     * 
+     * @param module The wheel to get the speed of.
+     * @param fwd    The Y degree (from an input device)
+     * @param str    The X degree (from an input device)
+     * @param rcw    The Z degree (from an input device)
+     * @return The speed (scaled -1 to 1) that the wheel given wheel should be set
+     *         to.
+     * @throws IllegalStateException If the geometry doesn't have four modules.
+     */
+    public double getWheelSpeed(SwerveModule module, double fwd, double str, double rcw) {
+        int row = rowOf(module);
+        double wheelFwd = getWheelConstant(row, fwd, str, rcw);
+        double wheelStr = getWheelConstant(row + 1, fwd, str, rcw);
+        double wheelSpeed = sqrt((wheelStr * wheelStr) + (wheelFwd * wheelFwd));
+        return (wheelSpeed > 1f) ? 1f : wheelSpeed;
+    }
+
+    /**
+     * Calculate the speeds and angles of all the wheels in a single pass. This is
+     * the preferred method for driving a swerve drive in a control loop, because
+     * the module vectors are calculated with a single matrix multiplication, the
+     * gyro trig is only done once per call, and nothing is allocated. The results
+     * are written into the provided arrays, which are indexed in the same order
+     * as the modules in the geometry.
+     * <p>
+     * Unlike {@link #getWheelSpeed(SwerveModule, double, double, double)}, which
+     * clamps each wheel to 1 on its own, the wheel speeds calculated here are
+     * scaled down together if any of them exceed 1. This keeps the ratios between
+     * the wheels, so the robot still travels in the requested direction.
+     * </p>
+     * 
+     * @param fwd       The Y degree (from an input device)
+     * @param str       The X degree (from an input device)
+     * @param rcw       The Z degree (from an input device)
+     * @param gyroAngle The gyro angle (in degrees) measured from the zero position
+     *                  (sraight down field). Pass 0 for robot-centric navigation.
+     * @param speeds    The array to write the wheel speeds (scaled 0 to 1) into.
+     *                  Must be able to hold a value for every module.
+     * @param angles    The array to write the wheel angles (in degrees) into. Must
+     *                  be able to hold a value for every module.
+     */
+    public void calculate(double fwd, double str, double rcw, double gyroAngle, double[] speeds, double[] angles) {
+        if (gyroAngle != 0) {
+            double cosAngle = cos(toRadians(gyroAngle));
+            double sinAngle = sin(toRadians(gyroAngle));
+            double modFwd = (fwd * cosAngle) + (str * sinAngle);
+            double modStr = (fwd * sinAngle) + (str * cosAngle);
+            fwd = modFwd;
+            str = modStr;
+        }
+        final double[] v = vectors;
+        final int moduleCount = v.length / 2;
+        geometry.toModuleVectors(fwd, str, rcw, v);
+        double maxSpeed = 0;
+        for (int i = 0; i < moduleCount; i++) {
+            double wheelFwd = v[2 * i];
+            double wheelStr = v[(2 * i) + 1];
+            double wheelSpeed = sqrt((wheelStr * wheelStr) + (wheelFwd * wheelFwd));
+            speeds[i] = wheelSpeed;
+            angles[i] = toDegrees(atan2(wheelStr, wheelFwd));
+            maxSpeed = max(maxSpeed, wheelSpeed);
+        }
+        /* Scale all the wheels together so that the direction is kept. */
+        if (maxSpeed > 1) {
+            double scale = 1 / maxSpeed;
+            for (int i = 0; i < moduleCount; i++) {
+                speeds[i] *= scale;
+            }
+        }
+    }
+
+    /**
+     * Get the first row of a module's vector in the module matrix. Modules are
+     * only indexed by position in a four module geometry.
+     */
+    private int rowOf(SwerveModule module) {
+        if (geometry.getModuleCount() != SwerveModule.values().length) {
+            throw new IllegalStateException("Module positions can only be used with a four module geometry.");
+        }
+        return module.ordinal() * 2;
+    }
+
+    /**
+     * Wheel constants are generated by using the degrees provided, these aren't
+     * really "constants" exactly since they're caculated depending on the provided
+     * degree values, but there's really no other name for them. Each one is a
+     * single row of the geometry's inverse kinematics matrix multiplied by the
+     * chassis speeds.
+     * 
+     * @param row The matrix row: 2 * module for the Y component of the wheel's
+     *            vector, and 2 * module + 1 for the X component.
+     * @param fwd The Y degree
+     * @param str The X degree
+     * @param rcw the Z degree
+     * @return The component of the wheel's vector.
+     */
+    private double getWheelConstant(int row, double fwd, double str, double rcw) {
+        return (geometry.getInverseKinematics(row, 0) * fwd) + (geometry.getInverseKinematics(row, 1) * str)
+                + (geometry.getInverseKinematics(row, 2) * rcw);
+    }
+
+    /**
+     * Convert an encoder reading to degrees in terms of 360. This is useful for
+     * finding the current angle at which a module is pivoted.
+     * 
+     * @param currentEncoderCount The count you wish to find the angle for.
+     * @param countsPerRevolution How many counts are in a revolution.
+     * @return The angle (in degrees) that the current encoder count represents in
+     *         correlation to the total counts per revolution.
+     */
+    public static double convertToDegrees(double currentEncoderCount, double countsPerRevolution) {
+        return (360 / countsPerRevolution) * currentEncoderCount;
+    }
+
+    /**
+     * Convert an angle measure into an encoder count. This useful for finding the
+     * encoder position to go to for a given angle.
+     * 
+     * @param degreeMeasure       The angle measure in degrees to find the count
+     *                            for.
+     * @param countsPerRevolution How many counts are in a revolution.
+     * @return The location on the encoder that will put the motor at that angle.
+     */
+    public static double convertFromDegrees(double degreeMeasure, double countsPerRevolution) {
+        return (countsPerRevolution / 360) * degreeMeasure;
+    }
+}
@@ -0,0 +1,595 @@
+package net.bancino.robotics.swerveio;
+
+import java.util.Arrays;
+
+import net.bancino.robotics.swerveio.concurrent.ModuleIOPool;
+import net.bancino.robotics.swerveio.encoder.EncoderSampler;
+import net.bancino.robotics.swerveio.function.ModuleModifier;
+import net.bancino.robotics.swerveio.kinematics.SwerveGeometry;
+import net.bancino.robotics.swerveio.kinematics.SwerveOdometry;
+import net.bancino.robotics.swerveio.module.AbstractSwerveModule;
+import net.bancino.robotics.swerveio.module.ModuleConfiguration;
+import net.bancino.robotics.swerveio.pid.Feedforward;
+import net.bancino.robotics.swerveio.pid.PidBank;
+import net.bancino.robotics.swerveio.telemetry.DriveProfiler;
+import net.bancino.robotics.swerveio.telemetry.DriveProfiler.Phase;
+import net.bancino.robotics.swerveio.telemetry.Trace;
+
+/**
+ * Drives a set of swerve modules as a system. This is everything a swerve drive
+ * does on each tick, without depending on WPILib, so that it can be run and
+ * tested off of the robot, for example over virtual modules. The WPILib
+ * SwerveDrive subsystem delegates to one of these.
+ * 
+ * @author Jordan Bancino
+ */
+public class SwerveDriveController {
+
+    /** The bit rate of the FRC CAN bus, in bits per second. */
+    public static final double CAN_BIT_RATE = 1_000_000;
+
+    /**
+     * The length of a typical CAN frame on the bus, in bits: an extended frame
+     * with 8 data bytes is 131 bits, plus some bit stuffing.
+     */
+    public static final double CAN_FRAME_BITS = 140;
+
+    private final SwerveDriveCalculator calc;
+    private final double countsPerPivotRevolution;
+    private final AbstractSwerveModule[] modules;
+
+    /*
+     * The buffers that the calculator writes into. These are allocated once here
+     * so that driving doesn't produce any garbage.
+     */
+    private final double[] wheelSpeeds;
+    private final double[] wheelAngles;
+    private final double[] pivotPositions;
+    private final double[] pivotReferences;
+    private final double[] pivotOutputs;
+    private final double[] driveVelocities;
+    private final double[] driveFeedforwards;
+
+    /* Performs module I/O in parallel, if enabled. */
+    private volatile ModuleIOPool ioPool;
+
+    /*
+     * Drives the wheels with a closed velocity loop, if enabled. The settings are
+     * published by the write to velocityDrive.
+     */
+    private double maxDriveVelocity;
+    private double drivePeriod;
+    private Feedforward driveFeedforward;
+    private volatile boolean velocityDrive;
+
+    /* Calculates all the pivot PIDs in one loop, if enabled. */
+    private volatile PidBank pivotBank;
+
+    /* Times each phase of drive(). Disabled by default. */
+    private final DriveProfiler profiler;
+
+    /* Reads module encoders in the background, if enabled. */
+    private EncoderSampler sampler;
+
+    /*
+     * The trace channel that gyro angles are reported on. Like the module
+     * channels, it is only recorded from drive(), because the trace buffer only
+     * supports a single producer.
+     */
+    private static final int TRACE_GYRO = Trace.register("drive.gyro");
+
+    /* Trace channels for each module's debugging values, indexed like modules. */
+    private final int[] traceSpeed;
+    private final int[] traceAngle;
+    private final int[] tracePivotPos;
+    private final int[] tracePivotRef;
+
+    /**
+     * Create a controller for any number of modules in any placement.
+     * 
+     * @param geometry                 The positions of the modules.
+     * @param countsPerPivotRevolution The number of counts it takes to rotate the
+     *                                 module a full 360 degrees.
+     * @param modules                  The swerve modules, in the same order as
+     *                                 their positions in the geometry.
+     * @param modifier                 The modifier that will apply settings to each
+     *                                 passed module. A
+     *                                 {@link ModuleConfiguration} is applied to
+     *                                 all the modules in parallel.
+     * @throws SwerveImplementationException If the modules don't match the
+     *                                       geometry, or any of them are null.
+     */
+    public SwerveDriveController(SwerveGeometry geometry, double countsPerPivotRevolution,
+            AbstractSwerveModule[] modules, ModuleModifier modifier) throws SwerveImplementationException {
+        if (geometry == null) {
+            throw new IllegalArgumentException("Swerve geometry must not be null.");
+        } else if (modules == null || modules.length != geometry.getModuleCount()) {
+            throw new SwerveImplementationException("The geometry has " + geometry.getModuleCount()
+                    + " modules, but " + ((modules == null) ? 0 : modules.length) + " modules were provided.");
+        }
+        StringBuilder nullModule = new StringBuilder("The following modules are null: [");
+        boolean haveNullModule = false;
+        for (int i = 0; i < modules.length; i++) {
+            if (modules[i] == null) {
+                nullModule.append(" ").append(i);
+                haveNullModule = true;
+            }
+        }
+        if (haveNullModule) {
+            nullModule.append("] Please provide an implemented swerve module for these indices.");
+            throw new SwerveImplementationException(nullModule.toString());
+        }
+        this.modules = modules.clone();
+        if (modifier instanceof ModuleConfiguration) {
+            /* Configurations know how to configure all the modules at once. */
+            ((ModuleConfiguration) modifier).applyAll(this.modules);
+        } else if (modifier != null) {
+            for (var module : this.modules) {
+                modifier.modify(module);
+            }
+        }
+        this.calc = new SwerveDriveCalculator(geometry);
+        this.countsPerPivotRevolution = countsPerPivotRevolution;
+
+        wheelSpeeds = new double[this.modules.length];
+        wheelAngles = new double[this.modules.length];
+        pivotPositions = new double[this.modules.length];
+        pivotReferences = new double[this.modules.length];
+        pivotOutputs = new double[this.modules.length];
+        driveVelocities = new double[this.modules.length];
+        driveFeedforwards = new double[this.modules.length];
+        profiler = new DriveProfiler(this.modules.length);
+        traceSpeed = registerTraceChannels("speed");
+        traceAngle = registerTraceChannels("angle");
+        tracePivotPos = registerTraceChannels("pivotPosition");
+        tracePivotRef = registerTraceChannels("pivotReference");
+    }
+
+    /**
+     * Drive the modules.
+     * 
+     * @param fwd       The Y value
+     * @param str       The X value
+     * @param rcw       The Z value
+     * @param gyroAngle The angle of the gyro, used for field centric navigation.
+     *                  Pass 0 for robot-centric navigation.
+     * @throws SwerveImplementationException If there is an error with the
+     *                                       implementation of any swerve module.
+     */
+    public void drive(double fwd, double str, double rcw, double gyroAngle) throws SwerveImplementationException {
+        /**
+         * This default implementation has been tested using MK2 modules and works
+         * really well for both the internal encoders and the analog encoders.
+         * 
+         * Use the swerve drive calculator to calculate target speeds and angles for
+         * all the modules at once.
+         */
+        long tickStart = profiler.start();
+        calc.calculate(fwd, str, rcw, gyroAngle, wheelSpeeds, wheelAngles);
+        Trace.record(TRACE_GYRO, gyroAngle);
+        boolean velocity = velocityDrive;
+        if (velocity) {
+            calculateDriveVelocities();
+        }
+        long time = profiler.record(Phase.KINEMATICS, tickStart);
+
+        ModuleIOPool pool = ioPool;
+        PidBank bank = pivotBank;
+        if (pool != null) {
+            /*
+             * Read all the modules at once, then send all the commands at once. The
+             * pool times each module's I/O.
+             */
+            pool.readPivotEncoders(pivotPositions);
+            ModuleIOPool.Frame frame = pool.getBackFrame();
+            for (int i = 0; i < modules.length; i++) {
+                double currentPos = pivotPositions[i];
+                double pivotRef = calculatePivotReference(currentPos, wheelAngles[i]);
+                frame.pivotReferences[i] = pivotRef;
+                frame.pivotPositions[i] = currentPos;
+                frame.driveSpeeds[i] = velocity ? driveVelocities[i] : wheelSpeeds[i];
+                frame.driveFeedforwards[i] = driveFeedforwards[i];
+                trace(i, currentPos, pivotRef);
+            }
+            frame.driveVelocity = velocity;
+            pool.commit();
+        } else if (bank != null) {
+            /*
+             * Read all the pivots, calculate all the pivot PIDs in one loop, then
+             * command all the modules.
+             */
+            for (int i = 0; i < modules.length; i++) {
+                double currentPos = modules[i].getPivotMotorEncoder();
+                time = profiler.record(Phase.SENSOR_READ, i, time);
+                pivotPositions[i] = currentPos;
+                pivotReferences[i] = calculatePivotReference(currentPos, wheelAngles[i]);
+            }
+            time = profiler.start();
+            bank.update(pivotPositions, pivotReferences, pivotOutputs);
+            time = profiler.record(Phase.PIVOT_WRITE, time);
+            for (int i = 0; i < modules.length; i++) {
+                AbstractSwerveModule swerveModule = modules[i];
+                swerveModule.setPivotPidOutput(pivotOutputs[i]);
+                time = profiler.record(Phase.PIVOT_WRITE, i, time);
+                setDrive(swerveModule, i, velocity);
+                time = profiler.record(Phase.DRIVE_WRITE, i, time);
+                trace(i, pivotPositions[i], pivotReferences[i]);
+            }
+        } else {
+            /* Iterate over the modules. */
+            for (int i = 0; i < modules.length; i++) {
+                /* Get a reference to the module to get feedback from it. */
+                AbstractSwerveModule swerveModule = modules[i];
+                double currentPos = swerveModule.getPivotMotorEncoder();
+                time = profiler.record(Phase.SENSOR_READ, i, time);
+                double pivotRef = calculatePivotReference(currentPos, wheelAngles[i]);
+
+                /* Feed the pivot reference and drive motor speed to the module. */
+                time = profiler.start();
+                swerveModule.setPivotReference(pivotRef, currentPos);
+                time = profiler.record(Phase.PIVOT_WRITE, i, time);
+                setDrive(swerveModule, i, velocity);
+                time = profiler.record(Phase.DRIVE_WRITE, i, time);
+                trace(i, currentPos, pivotRef);
+            }
+        }
+        profiler.record(Phase.TICK, tickStart);
+    }
+
+    /**
+     * Turn the wheel speeds into velocity setpoints, and calculate the
+     * feed-forward for each of them. The acceleration is estimated from how much
+     * each setpoint changed since the last tick.
+     */
+    private void calculateDriveVelocities() {
+        for (int i = 0; i < modules.length; i++) {
+            double velocity = wheelSpeeds[i] * maxDriveVelocity;
+            double acceleration = (velocity - driveVelocities[i]) / drivePeriod;
+            driveVelocities[i] = velocity;
+            driveFeedforwards[i] = driveFeedforward.calculate(velocity, acceleration);
+        }
+    }
+
+    /**
+     * Command a module's drive motor, either open loop or with its velocity loop.
+     */
+    private void setDrive(AbstractSwerveModule module, int i, boolean velocity) {
+        if (velocity) {
+            module.setDriveVelocity(driveVelocities[i], driveFeedforwards[i]);
+        } else {
+            module.setDriveMotorSpeed(wheelSpeeds[i]);
+        }
+    }
+
+    /**
+     * Calculate the pivot reference that will turn a module to the target angle
+     * from where it currently is, taking the shortest way around.
+     * 
+     * @param currentPos  The current pivot encoder reading.
+     * @param targetAngle The angle, in degrees, that the module should face.
+     * @return The reference to pass to the module's setPivotReference().
+     */
+    private double calculatePivotReference(double currentPos, double targetAngle) {
+        /* Convert the target angle into a target position on the pivot encoder. */
+        double targetPos = SwerveDriveCalculator.convertFromDegrees(targetAngle, countsPerPivotRevolution);
+        /*
+         * Calculate the distance between the target and the current position, and
+         * bring it within half a revolution either way, so the module always pivots
+         * the shorter way. Unlike %, this works for readings that are negative or
+         * more than a revolution, such as those of a multi-turn encoder.
+         */
+        double distance = targetPos - currentPos;
+        distance -= countsPerPivotRevolution * Math.floor((distance / countsPerPivotRevolution) + 0.5);
+        /* Calculate the output pivot reference. */
+        return currentPos + distance;
+    }
+
+    /**
+     * Report a module's debugging values on its trace channels.
+     */
+    private void trace(int module, double currentPos, double pivotRef) {
+        Trace.record(traceSpeed[module], wheelSpeeds[module]);
+        Trace.record(traceAngle[module], wheelAngles[module]);
+        Trace.record(tracePivotPos[module], currentPos);
+        Trace.record(tracePivotRef[module], pivotRef);
+    }
+
+    /**
+     * Perform module I/O in parallel. Instead of reading and commanding each
+     * module in turn, drive() reads all the pivot encoders at once, calculates
+     * all the commands, and then sends them to all the modules at once, without
+     * waiting for the sends to finish. This makes a tick take about as long as a
+     * single module's I/O. Only enable this if the modules are safe to use from
+     * multiple threads, which is true of all the modules provided by SwerveIO.
+     * 
+     * @param workers The number of worker threads to use. One per module gives
+     *                the lowest latency.
+     * @param virtual Whether or not to use virtual threads on JDKs that support
+     *                them. See {@link ModuleIOPool}.
+     */
+    public synchronized void enableParallelIO(int workers, boolean virtual) {
+        disableParallelIO();
+        ModuleIOPool pool = new ModuleIOPool(modules, workers, virtual);
+        pool.setProfiler(profiler);
+        ioPool = pool;
+    }
+
+    /**
+     * Go back to performing module I/O one module at a time on the thread that
+     * calls drive(). Any commands that are still being sent finish first.
+     */
+    public synchronized void disableParallelIO() {
+        if (ioPool != null) {
+            ioPool.close();
+            ioPool = null;
+        }
+    }
+
+    /**
+     * Check whether or not module I/O is being performed in parallel.
+     * 
+     * @return Whether or not parallel I/O is enabled.
+     */
+    public boolean isParallelIO() {
+        return ioPool != null;
+    }
+
+    /**
+     * Wait for any commands that are still being sent in parallel, so that they
+     * don't overwrite what is done next.
+     */
+    public void flushParallelIO() {
+        ModuleIOPool pool = ioPool;
+        if (pool != null) {
+            pool.flush();
+        }
+    }
+
+    /**
+     * Drive the wheels with their closed velocity loops instead of open loop, so
+     * that the wheel speeds don't drift with the battery voltage and the load. A
+     * wheel speed of 1 becomes the maximum velocity, and the feed-forward for
+     * each velocity setpoint is passed along with it. See
+     * {@link AbstractSwerveModule#setDriveVelocity(double, double)}.
+     * 
+     * @param maxVelocity The velocity of a wheel at full speed, in drive encoder
+     *                    counts per second.
+     * @param feedforward The feed-forward model of the drive motors, in volts per
+     *                    drive encoder count per second.
+     * @param period      The time between calls to drive(), in seconds, which is
+     *                    used to estimate the acceleration. This is 0.02 for the
+     *                    default robot loop.
+     * @throws SwerveImplementationException If any of the modules don't support
+     *                                       velocity control.
+     */
+    public synchronized void enableVelocityDrive(double maxVelocity, Feedforward feedforward, double period)
+            throws SwerveImplementationException {
+        if (maxVelocity <= 0 || period <= 0) {
+            throw new IllegalArgumentException("The maximum velocity and period must be positive.");
+        } else if (feedforward == null) {
+            throw new IllegalArgumentException("Feed-forward must not be null.");
+        }
+        /* Fail now instead of on the first tick if a module can't do it. */
+        for (AbstractSwerveModule module : modules) {
+            module.getDriveVelocity();
+        }
+        flushParallelIO();
+        maxDriveVelocity = maxVelocity;
+        driveFeedforward = feedforward;
+        drivePeriod = period;
+        /* The wheels are assumed to start from rest. */
+        Arrays.fill(driveVelocities, 0);
+        velocityDrive = true;
+    }
+
+    /**
+     * Go back to driving the wheels open loop. This is the default.
+     */
+    public synchronized void disableVelocityDrive() {
+        velocityDrive = false;
+    }
+
+    /**
+     * Check whether or not the wheels are driven with their velocity loops.
+     * 
+     * @return Whether or not velocity drive is enabled.
+     */
+    public boolean isVelocityDrive() {
+        return velocityDrive;
+    }
+
+    /**
+     * Move the pivot PIDs of all the modules into one {@link PidBank}, so that
+     * drive() reads all the pivots, calculates all of their outputs in one loop,
+     * and then commands all the modules. The modules keep their current pivot PID
+     * settings, and can still be configured through their pivot PID setters, or
+     * through the returned bank. When parallel I/O is enabled, each module
+     * calculates its own slot of the bank instead. This can only be done once.
+     * 
+     * @return The bank, with one slot per module, indexed like the modules.
+     * @throws SwerveImplementationException If any of the modules can't use a PID
+     *                                       bank. See
+     *                                       {@link AbstractSwerveModule#usePivotPidBank(PidBank, int)}.
+     */
+    public synchronized PidBank enablePivotPidBank() throws SwerveImplementationException {
+        if (pivotBank != null) {
+            throw new IllegalStateException("The pivot PID bank has already been enabled.");
+        }
+        flushParallelIO();
+        PidBank bank = new PidBank(modules.length);
+        StringBuilder unsupported = new StringBuilder("The following modules can't use a PID bank: [");
+        boolean haveUnsupported = false;
+        for (int i = 0; i < modules.length; i++) {
+            if (!modules[i].usePivotPidBank(bank, i)) {
+                unsupported.append(" ").append(i);
+                haveUnsupported = true;
+            }
+        }
+        if (haveUnsupported) {
+            unsupported.append("] The modules that could use it will still use it on their own.");
+            throw new SwerveImplementationException(unsupported.toString());
+        }
+        pivotBank = bank;
+        return bank;
+    }
+
+    /**
+     * Get the bank that calculates the pivot PIDs of all the modules.
+     * 
+     * @return The pivot PID bank, or null if it hasn't been enabled.
+     */
+    public PidBank getPivotPidBank() {
+        return pivotBank;
+    }
+
+    /**
+     * Get the profiler that times each phase of drive().
+     * 
+     * @return The drive profiler.
+     */
+    public DriveProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Read the encoders of all the modules in the background at a high rate. See
+     * {@link AbstractSwerveModule#sampleEncoders(EncoderSampler)}. This can only
+     * be done once.
+     * 
+     * @param hz How many times per second to sample each encoder.
+     * @return The sampler, which can be used to check for stale samples.
+     */
+    public synchronized EncoderSampler enableEncoderSampling(double hz) {
+        if (sampler != null) {
+            throw new IllegalStateException("Encoder sampling has already been enabled.");
+        }
+        sampler = new EncoderSampler(hz);
+        for (AbstractSwerveModule module : modules) {
+            module.sampleEncoders(sampler);
+        }
+        sampler.start();
+        return sampler;
+    }
+
+    /**
+     * Get the sampler that reads the module encoders in the background.
+     * 
+     * @return The encoder sampler, or null if sampling hasn't been enabled.
+     */
+    public synchronized EncoderSampler getEncoderSampler() {
+        return sampler;
+    }
+
+    /**
+     * Create an odometry tracker for these modules.
+     * 
+     * @param distancePerDriveCount How far the robot travels for each count on the
+     *                              drive encoder, in the units of the geometry.
+     * @return A new odometry tracker. It is not started.
+     */
+    public SwerveOdometry createOdometry(double distancePerDriveCount) {
+        return new SwerveOdometry(calc.getGeometry(), modules, countsPerPivotRevolution, distancePerDriveCount);
+    }
+
+    /**
+     * Stop all the modules.
+     */
+    public void stop() {
+        flushParallelIO();
+        for (AbstractSwerveModule module : modules) {
+            module.stop();
+        }
+    }
+
+    /**
+     * Zero all the pivot and drive encoders.
+     */
+    public void zero() {
+        flushParallelIO();
+        for (AbstractSwerveModule module : modules) {
+            module.zero();
+        }
+    }
+
+    /**
+     * Calls the reset function on all the modules, stopping each module and
+     * resetting all the encoders
+     */
+    public void reset() {
+        flushParallelIO();
+        for (AbstractSwerveModule module : modules) {
+            module.reset();
+        }
+    }
+
+    /**
+     * Get the calculator used to drive the modules.
+     * 
+     * @return The swerve drive calculator.
+     */
+    public SwerveDriveCalculator getCalculator() {
+        return calc;
+    }
+
+    /**
+     * Estimate how many CAN frames the modules put on the bus each second. See
+     * {@link AbstractSwerveModule#getCanFramesPerSecond(double)}.
+     * 
+     * @param loopHz How many times per second drive() is called.
+     * @return The estimated CAN frames per second of all the modules.
+     */
+    public double estimateCanFramesPerSecond(double loopHz) {
+        double frames = 0;
+        for (AbstractSwerveModule module : modules) {
+            frames += module.getCanFramesPerSecond(loopHz);
+        }
+        return frames;
+    }
+
+    /**
+     * Estimate how much of the CAN bus the modules use. The rest of the devices on
+     * the bus share what is left, and latency climbs quickly as the total
+     * approaches 100%, so it is best kept well below that.
+     * 
+     * @param loopHz How many times per second drive() is called.
+     * @return The estimated fraction of the bus used by the modules, from 0 to 1.
+     */
+    public double estimateCanBusUtilization(double loopHz) {
+        return estimateCanFramesPerSecond(loopHz) * CAN_FRAME_BITS / CAN_BIT_RATE;
+    }
+
+    /**
+     * Get the number of counts it takes to rotate a module a full 360 degrees.
+     * 
+     * @return The counts per pivot revolution.
+     */
+    public double getCountsPerPivotRevolution() {
+        return countsPerPivotRevolution;
+    }
+
+    /**
+     * Get the modules this controller drives.
+     * 
+     * @return A copy of the modules, in the order of the geometry.
+     */
+    public AbstractSwerveModule[] getModules() {
+        return modules.clone();
+    }
+
+    /**
+     * Register a trace channel for each module. Modules of a rectangular base are
+     * named by their position, otherwise they are named by their index.
+     * 
+     * @param value The name of the value that will be traced.
+     * @return The channel IDs, indexed like the modules.
+     */
+    private int[] registerTraceChannels(String value) {
+        SwerveModule[] positions = SwerveModule.values();
+        int[] ids = new int[modules.length];
+        for (int i = 0; i < modules.length; i++) {
+            String name = (modules.length == positions.length) ? positions[i].name().toLowerCase() : "module" + i;
+            ids[i] = Trace.register("drive." + name + "." + value);
+        }
+        return ids;
+    }
+}
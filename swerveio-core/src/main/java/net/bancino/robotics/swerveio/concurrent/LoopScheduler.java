@@ -0,0 +1,189 @@
+package net.bancino.robotics.swerveio.concurrent;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs several tasks at different fixed rates on a single high-priority
+ * thread. This gives the swerve drive's control loops deterministic timing that
+ * doesn't depend on when the WPILib command scheduler gets around to them. For
+ * example:
+ * 
+ * <pre>
+ * LoopScheduler scheduler = new LoopScheduler("Drive");
+ * scheduler.schedule("drive", () -&gt; driveTrain.drive(fwd, str, rcw), 100);
+ * scheduler.schedule("odometry", odometry, 250);
+ * scheduler.schedule("telemetry", this::publishTelemetry, 10);
+ * scheduler.start();
+ * </pre>
+ * 
+ * Each run is scheduled relative to the task's previous deadline rather than
+ * when it last ran, so rates don't drift. When more than one task is due, the
+ * one with the earliest deadline runs first. The scheduler records jitter and
+ * overruns for every task; see {@link LoopTask}. A task that throws, even an
+ * error, is counted and keeps its schedule; it doesn't stop the other tasks.
+ * 
+ * @author Jordan Bancino
+ */
+public class LoopScheduler {
+    private final String name;
+
+    /* Copy on write, so the scheduler thread can iterate without locking. */
+    private volatile LoopTask[] tasks = new LoopTask[0];
+    private volatile long spinNanos = 0;
+    private volatile Thread thread;
+
+    /**
+     * Create a scheduler. It is not started until {@link #start()} is called.
+     * 
+     * @param name The name of the scheduler thread.
+     */
+    public LoopScheduler(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Register a task to be run at a fixed rate. Tasks may be added while the
+     * scheduler is running; the first run is due immediately.
+     * 
+     * @param taskName The name of the task, used in statistics.
+     * @param task     The task to run.
+     * @param hz       How many times per second to run the task.
+     * @return The registered task, which holds its timing statistics.
+     */
+    public synchronized LoopTask schedule(String taskName, Runnable task, double hz) {
+        LoopTask loopTask = new LoopTask(taskName, task, hz);
+        loopTask.deadline = System.nanoTime();
+        LoopTask[] newTasks = Arrays.copyOf(tasks, tasks.length + 1);
+        newTasks[tasks.length] = loopTask;
+        tasks = newTasks;
+        LockSupport.unpark(thread);
+        return loopTask;
+    }
+
+    /**
+     * Stop running a task. If it is currently running, it finishes first.
+     * 
+     * @param task The task returned by {@link #schedule(String, Runnable, double)}.
+     */
+    public synchronized void cancel(LoopTask task) {
+        int index = Arrays.asList(tasks).indexOf(task);
+        if (index >= 0) {
+            LoopTask[] newTasks = new LoopTask[tasks.length - 1];
+            System.arraycopy(tasks, 0, newTasks, 0, index);
+            System.arraycopy(tasks, index + 1, newTasks, index, newTasks.length - index);
+            tasks = newTasks;
+        }
+    }
+
+    /**
+     * Get all the registered tasks.
+     * 
+     * @return A copy of the registered tasks.
+     */
+    public LoopTask[] getTasks() {
+        return tasks.clone();
+    }
+
+    /**
+     * Set how long before a deadline the scheduler stops parking and busy-waits
+     * instead. Parking can wake up late by a good fraction of a millisecond on
+     * some systems; spinning for the last stretch trades CPU time for lower
+     * jitter. The default is 0, which never spins.
+     * 
+     * @param spinNanos The spin window, in nanoseconds.
+     */
+    public void setSpinNanos(long spinNanos) {
+        this.spinNanos = Math.max(0, spinNanos);
+    }
+
+    /**
+     * Start running tasks on the scheduler thread. This does nothing if it is
+     * already running.
+     */
+    public synchronized void start() {
+        if (!isRunning()) {
+            long now = System.nanoTime();
+            for (LoopTask task : tasks) {
+                task.deadline = now;
+            }
+            thread = new Thread(this::loop, name);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MAX_PRIORITY);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stop running tasks. Any task that is currently running finishes first, and
+     * this waits for it, unless it is called from a task.
+     */
+    public void stop() {
+        Thread stopped;
+        synchronized (this) {
+            stopped = thread;
+            if (stopped == null) {
+                return;
+            }
+            /* The old thread exits as soon as it sees it has been replaced. */
+            thread = null;
+            stopped.interrupt();
+        }
+        /* Tasks may call into the scheduler, so it must not be locked while waiting. */
+        if (stopped != Thread.currentThread()) {
+            boolean interrupted = false;
+            while (stopped.isAlive()) {
+                try {
+                    stopped.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Check whether or not the scheduler thread is running.
+     * 
+     * @return Whether or not the scheduler has been started and not stopped, and
+     *         its thread is still alive.
+     */
+    public boolean isRunning() {
+        Thread current = thread;
+        return current != null && current.isAlive();
+    }
+
+    private void loop() {
+        Thread self = Thread.currentThread();
+        /* Only the latest thread may run tasks, even if an old one is still finishing. */
+        while (thread == self && !self.isInterrupted()) {
+            /* Find the task with the earliest deadline. */
+            LoopTask[] current = tasks;
+            LoopTask next = null;
+            for (LoopTask task : current) {
+                if (next == null || task.deadline - next.deadline < 0) {
+                    next = task;
+                }
+            }
+            if (next == null) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            long wait = next.deadline - System.nanoTime();
+            long spin = spinNanos;
+            if (wait > spin) {
+                /* Tasks may have been added while parked, so look again after. */
+                LockSupport.parkNanos(this, wait - spin);
+                continue;
+            }
+            while (next.deadline - System.nanoTime() > 0) {
+                Thread.onSpinWait();
+            }
+            next.run(System.nanoTime());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package net.bancino.robotics.swerveio.concurrent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A task registered with a {@link LoopScheduler}, along with the timing
+ * statistics the scheduler keeps for it. Statistics are written by the
+ * scheduler thread and may be read from any thread.
+ * 
+ * @author Jordan Bancino
+ */
+public class LoopTask {
+    private final String name;
+    private final Runnable task;
+    private final long periodNanos;
+
+    /*
+     * Set by schedule() and start() before the scheduler thread can see this
+     * task, and only touched by the scheduler thread after that.
+     */
+    long deadline;
+
+    /* Only touched by the scheduler thread. */
+    private long jitterSum;
+
+    private volatile long runs;
+    private volatile long overruns;
+    private volatile long skipped;
+    private volatile long errors;
+    private volatile long maxJitter;
+    private volatile long meanJitter;
+    private volatile long lastRuntime;
+    private volatile long maxRuntime;
+    private volatile Throwable lastError;
+    private volatile boolean resetRequested;
+
+    LoopTask(String name, Runnable task, double hz) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task must not be null.");
+        } else if (!(hz > 0)) {
+            throw new IllegalArgumentException("Task rate must be positive: " + hz);
+        }
+        this.name = name;
+        this.task = task;
+        this.periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / hz);
+    }
+
+    /**
+     * Run the task and record its timing. This is called from the scheduler
+     * thread.
+     * 
+     * @param start The time the task was started.
+     * @return The time the task finished.
+     */
+    long run(long start) {
+        if (resetRequested) {
+            runs = overruns = skipped = errors = maxJitter = meanJitter = lastRuntime = maxRuntime = 0;
+            jitterSum = 0;
+            lastError = null;
+            resetRequested = false;
+        }
+        try {
+            task.run();
+        } catch (Throwable e) {
+            /* Errors too, or they would kill the scheduler thread and every other task. */
+            errors++;
+            lastError = e;
+        }
+        long end = System.nanoTime();
+
+        long jitter = start - deadline;
+        long runtime = end - start;
+        long count = runs + 1;
+        jitterSum += jitter;
+        runs = count;
+        meanJitter = jitterSum / count;
+        lastRuntime = runtime;
+        if (jitter > maxJitter) {
+            maxJitter = jitter;
+        }
+        if (runtime > maxRuntime) {
+            maxRuntime = runtime;
+        }
+        /* The task overran if it didn't finish before its next deadline. */
+        if (end - deadline > periodNanos) {
+            overruns++;
+        }
+
+        deadline += periodNanos;
+        if (end - deadline > periodNanos) {
+            /* Too far behind to catch up, so drop the missed runs. */
+            long missed = (end - deadline) / periodNanos;
+            skipped += missed;
+            deadline += missed * periodNanos;
+        }
+        return end;
+    }
+
+    /**
+     * @return The name this task was registered with.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The time between runs of this task, in nanoseconds.
+     */
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    /**
+     * @return The number of times this task has run.
+     */
+    public long getRuns() {
+        return runs;
+    }
+
+    /**
+     * @return The number of runs that didn't finish before the next one was due.
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    /**
+     * @return The number of runs that were dropped entirely because the task
+     *         fell too far behind.
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return The number of runs that threw an exception.
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return The last exception or error thrown by this task, or null if it has
+     *         never thrown one.
+     */
+    public Throwable getLastError() {
+        return lastError;
+    }
+
+    /**
+     * @return The largest delay between a run's deadline and when it actually
+     *         started, in nanoseconds.
+     */
+    public long getMaxJitterNanos() {
+        return maxJitter;
+    }
+
+    /**
+     * @return The average delay between a run's deadline and when it actually
+     *         started, in nanoseconds.
+     */
+    public long getMeanJitterNanos() {
+        return meanJitter;
+    }
+
+    /**
+     * @return How long the most recent run took, in nanoseconds.
+     */
+    public long getLastRuntimeNanos() {
+        return lastRuntime;
+    }
+
+    /**
+     * @return How long the longest run took, in nanoseconds.
+     */
+    public long getMaxRuntimeNanos() {
+        return maxRuntime;
+    }
+
+    /**
+     * Clear the statistics of this task. This takes effect on its next run.
+     */
+    public void resetStatistics() {
+        resetRequested = true;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": runs=" + runs + ", overruns=" + overruns + ", skipped=" + skipped + ", jitter(mean/max)="
+                + TimeUnit.NANOSECONDS.toMicros(meanJitter) + "/" + TimeUnit.NANOSECONDS.toMicros(maxJitter)
+                + "us, runtime(max)=" + TimeUnit.NANOSECONDS.toMicros(maxRuntime) + "us";
+    }
+}
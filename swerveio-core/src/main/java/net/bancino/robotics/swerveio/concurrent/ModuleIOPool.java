@@ -0,0 +1,352 @@
+package net.bancino.robotics.swerveio.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import net.bancino.robotics.swerveio.SwerveImplementationException;
+import net.bancino.robotics.swerveio.module.AbstractSwerveModule;
+import net.bancino.robotics.swerveio.telemetry.DriveProfiler;
+import net.bancino.robotics.swerveio.telemetry.DriveProfiler.Phase;
+
+/**
+ * A small, fixed pool of worker threads that performs swerve module I/O for
+ * all the modules at once. On most modules, reading an encoder or setting a
+ * motor is a blocking round trip over the CAN bus, so doing it for each module
+ * in turn makes the control loop's latency grow with the number of modules.
+ * This pool fans those calls out so a tick only takes about as long as the
+ * slowest module.
+ * <p>
+ * A tick goes like this: {@link #readPivotEncoders(double[])} reads every pivot
+ * encoder in parallel and waits for the results. The caller then fills in the
+ * back {@link Frame} with the new commands, and {@link #commit()} swaps it to
+ * the front and sends it to every module in parallel. Commit does not wait for
+ * the writes to finish; they overlap with whatever the caller does next, and
+ * the next operation waits for them. Use {@link #flush()} to wait explicitly.
+ * </p>
+ * <p>
+ * Each worker is assigned a fixed subset of the modules, and the workers are
+ * coordinated by parking and unparking them, so nothing is allocated per tick.
+ * The pool itself must only be driven from one thread.
+ * </p>
+ * <p>
+ * Workers never die because of a module. Anything a module throws, errors
+ * included, is kept and thrown to the caller by the next operation that waits
+ * on the workers; errors are thrown as they are, and everything else as a
+ * {@link SwerveImplementationException}.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public class ModuleIOPool implements AutoCloseable {
+    private static final int OP_READ = 0;
+    private static final int OP_WRITE = 1;
+
+    /* How many times the caller spins before parking while waiting on workers. */
+    private static final int SPIN_LIMIT = 100;
+
+    /**
+     * A set of commands for every module. Fill in the arrays, indexed like the
+     * modules, then commit the frame.
+     */
+    public static class Frame {
+        /** The reference to pass to each module's setPivotReference(). */
+        public final double[] pivotReferences;
+        /** The pivot encoder reading that each reference was calculated from. */
+        public final double[] pivotPositions;
+        /**
+         * The speed to pass to each module's setDriveMotorSpeed(), or in velocity
+         * mode, the velocity to pass to setDriveVelocity().
+         */
+        public final double[] driveSpeeds;
+        /** The feed-forward to pass to each module's setDriveVelocity(). */
+        public final double[] driveFeedforwards;
+        /** Whether or not the drive speeds are velocities. */
+        public boolean driveVelocity;
+
+        private Frame(int modules) {
+            pivotReferences = new double[modules];
+            pivotPositions = new double[modules];
+            driveSpeeds = new double[modules];
+            driveFeedforwards = new double[modules];
+        }
+    }
+
+    private final AbstractSwerveModule[] modules;
+    private final Thread[] workers;
+    private final boolean virtual;
+
+    private Frame front, back;
+    private double[] readTarget;
+    private volatile DriveProfiler profiler;
+
+    /* Published to the workers by the write to generation. */
+    private int operation;
+    private volatile long generation;
+    private volatile boolean running = true;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    /* The first failure of an operation. Workers record it rather than dying. */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile Thread waiter;
+
+    /**
+     * Create a module I/O pool and start its workers.
+     * 
+     * @param modules               The modules to perform I/O on.
+     * @param workerCount           The number of worker threads. This is capped
+     *                              at the number of modules, and one worker per
+     *                              module gives the lowest latency.
+     * @param preferVirtualThreads  Whether or not to use virtual threads for the
+     *                              workers when running on a JDK that supports
+     *                              them. Note that virtual threads are pinned to
+     *                              their carrier during native (JNI) calls, which
+     *                              is what most vendor libraries use, so platform
+     *                              threads are usually the better choice on a
+     *                              robot.
+     */
+    public ModuleIOPool(AbstractSwerveModule[] modules, int workerCount, boolean preferVirtualThreads) {
+        if (modules == null || modules.length == 0) {
+            throw new IllegalArgumentException("At least one module is required.");
+        } else if (workerCount <= 0) {
+            throw new IllegalArgumentException("At least one worker is required.");
+        }
+        this.modules = modules.clone();
+        this.front = new Frame(modules.length);
+        this.back = new Frame(modules.length);
+        this.workers = new Thread[Math.min(workerCount, modules.length)];
+
+        ThreadFactory factory = preferVirtualThreads ? virtualThreadFactory() : null;
+        this.virtual = factory != null;
+        for (int i = 0; i < workers.length; i++) {
+            final int worker = i;
+            Runnable loop = () -> workerLoop(worker);
+            Thread thread = (factory != null) ? factory.newThread(loop) : new Thread(loop);
+            thread.setName("SwerveIO Module I/O " + i);
+            if (!virtual) {
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MAX_PRIORITY - 1);
+            }
+            workers[i] = thread;
+        }
+        for (Thread thread : workers) {
+            thread.start();
+        }
+    }
+
+    /**
+     * Create a module I/O pool with one platform worker thread per module.
+     * 
+     * @param modules The modules to perform I/O on.
+     */
+    public ModuleIOPool(AbstractSwerveModule[] modules) {
+        this(modules, modules.length, false);
+    }
+
+    /**
+     * Read every module's pivot encoder in parallel. This waits for any
+     * previously committed frame to finish being written first.
+     * 
+     * @param positions The array to write each module's pivot encoder reading
+     *                  into.
+     * @throws SwerveImplementationException If a module threw an exception during
+     *                                       this or the previous operation.
+     */
+    public void readPivotEncoders(double[] positions) throws SwerveImplementationException {
+        awaitWorkers();
+        readTarget = positions;
+        run(OP_READ);
+        awaitWorkers();
+    }
+
+    /**
+     * Get the frame to fill in with the next commands. This frame is not being
+     * used by the workers, so it may be written freely until it is committed.
+     * 
+     * @return The back frame.
+     */
+    public Frame getBackFrame() {
+        return back;
+    }
+
+    /**
+     * Swap the back frame to the front and start sending it to every module. This
+     * returns as soon as the workers have been started.
+     * 
+     * @throws SwerveImplementationException If a module threw an exception during
+     *                                       the previous operation.
+     */
+    public void commit() throws SwerveImplementationException {
+        awaitWorkers();
+        Frame committed = back;
+        back = front;
+        front = committed;
+        run(OP_WRITE);
+    }
+
+    /**
+     * Wait for the last committed frame to be written to every module.
+     * 
+     * @throws SwerveImplementationException If a module threw an exception while
+     *                                       its frame was being written.
+     */
+    public void flush() throws SwerveImplementationException {
+        awaitWorkers();
+    }
+
+    /**
+     * Time each module's I/O with the given profiler.
+     * 
+     * @param profiler The profiler to record timings to, or null to not record
+     *                 any.
+     */
+    public void setProfiler(DriveProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Check whether or not the workers are virtual threads.
+     * 
+     * @return True if virtual threads were requested and are supported.
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Get the number of worker threads.
+     * 
+     * @return The worker count.
+     */
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    /**
+     * Wait for any outstanding writes, then stop the workers.
+     */
+    @Override
+    public void close() {
+        try {
+            awaitWorkers();
+        } finally {
+            running = false;
+            for (Thread worker : workers) {
+                LockSupport.unpark(worker);
+            }
+        }
+    }
+
+    private void run(int op) {
+        if (!running) {
+            throw new IllegalStateException("This module I/O pool has been closed.");
+        }
+        operation = op;
+        pending.set(workers.length);
+        /* The volatile write publishes the operation and its data to the workers. */
+        generation = generation + 1;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void awaitWorkers() throws SwerveImplementationException {
+        int spins = 0;
+        while (pending.get() != 0) {
+            if (spins < SPIN_LIMIT) {
+                spins++;
+                Thread.onSpinWait();
+            } else {
+                waiter = Thread.currentThread();
+                if (pending.get() != 0) {
+                    LockSupport.park(this);
+                }
+                waiter = null;
+            }
+        }
+        Throwable e = failure.getAndSet(null);
+        if (e instanceof SwerveImplementationException) {
+            throw (SwerveImplementationException) e;
+        } else if (e instanceof Error) {
+            /* Errors are passed on as they are, so they aren't mistaken for a module fault. */
+            throw (Error) e;
+        } else if (e != null) {
+            SwerveImplementationException wrapped = new SwerveImplementationException("Module I/O failed: " + e);
+            wrapped.initCause(e);
+            throw wrapped;
+        }
+    }
+
+    private void workerLoop(int worker) {
+        long seen = 0;
+        while (running) {
+            long current = generation;
+            if (current == seen) {
+                LockSupport.park(this);
+                continue;
+            }
+            seen = current;
+            DriveProfiler p = profiler;
+            try {
+                if (operation == OP_READ) {
+                    for (int i = worker; i < modules.length; i += workers.length) {
+                        long time = (p != null) ? p.start() : 0;
+                        readTarget[i] = modules[i].getPivotMotorEncoder();
+                        if (p != null) {
+                            p.record(Phase.SENSOR_READ, i, time);
+                        }
+                    }
+                } else {
+                    Frame frame = front;
+                    for (int i = worker; i < modules.length; i += workers.length) {
+                        long time = (p != null) ? p.start() : 0;
+                        modules[i].setPivotReference(frame.pivotReferences[i], frame.pivotPositions[i]);
+                        if (p != null) {
+                            time = p.record(Phase.PIVOT_WRITE, i, time);
+                        }
+                        if (frame.driveVelocity) {
+                            modules[i].setDriveVelocity(frame.driveSpeeds[i], frame.driveFeedforwards[i]);
+                        } else {
+                            modules[i].setDriveMotorSpeed(frame.driveSpeeds[i]);
+                        }
+                        if (p != null) {
+                            p.record(Phase.DRIVE_WRITE, i, time);
+                        }
+                    }
+                }
+            } catch (Throwable e) {
+                /*
+                 * The worker must survive anything a module throws, or pending would
+                 * never reach 0 and the caller would wait forever.
+                 */
+                failure.compareAndSet(null, e);
+            } finally {
+                if (pending.decrementAndGet() == 0) {
+                    Thread w = waiter;
+                    if (w != null) {
+                        LockSupport.unpark(w);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get a factory for virtual threads, if this JDK supports them. This is done
+     * reflectively so that SwerveIO still runs on older JDKs.
+     * 
+     * @return The virtual thread factory, or null if it isn't supported.
+     */
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Object builder = ofVirtual.invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
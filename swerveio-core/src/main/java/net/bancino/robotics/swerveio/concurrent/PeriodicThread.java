@@ -0,0 +1,174 @@
+package net.bancino.robotics.swerveio.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A daemon thread that runs a single task at a fixed rate. Each run is
+ * scheduled relative to the previous deadline rather than the previous run, so
+ * the rate doesn't drift with the time the task takes. If the task falls more
+ * than a full period behind, the missed runs are skipped instead of being run
+ * back to back. A task that throws, even an error, is counted and keeps its
+ * schedule.
+ * 
+ * @author Jordan Bancino
+ */
+public class PeriodicThread {
+    private final Runnable task;
+    private final long periodNanos;
+    private final String name;
+    private final int priority;
+
+    private volatile Thread thread;
+    private volatile long overruns;
+    private volatile long errors;
+    private volatile Throwable lastError;
+
+    /**
+     * Create a periodic thread. It is not started until {@link #start()} is
+     * called.
+     * 
+     * @param name     The name of the thread.
+     * @param task     The task to run.
+     * @param hz       How many times per second to run the task.
+     * @param priority The priority of the thread.
+     */
+    public PeriodicThread(String name, Runnable task, double hz, int priority) {
+        if (task == null) {
+            throw new IllegalArgumentException("Periodic task must not be null.");
+        } else if (!(hz > 0)) {
+            throw new IllegalArgumentException("Periodic rate must be positive: " + hz);
+        }
+        this.name = name;
+        this.task = task;
+        this.periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / hz);
+        this.priority = priority;
+    }
+
+    /**
+     * Create a periodic thread with normal priority.
+     * 
+     * @param name The name of the thread.
+     * @param task The task to run.
+     * @param hz   How many times per second to run the task.
+     */
+    public PeriodicThread(String name, Runnable task, double hz) {
+        this(name, task, hz, Thread.NORM_PRIORITY);
+    }
+
+    /**
+     * Start running the task. This does nothing if it is already running.
+     */
+    public synchronized void start() {
+        if (!isRunning()) {
+            thread = new Thread(this::loop, name);
+            thread.setDaemon(true);
+            thread.setPriority(priority);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stop running the task. If the task is currently running, it finishes first,
+     * and this waits for it, unless it is called from the task.
+     */
+    public void stop() {
+        Thread stopped;
+        synchronized (this) {
+            stopped = thread;
+            if (stopped == null) {
+                return;
+            }
+            /* The old thread exits as soon as it sees it has been replaced. */
+            thread = null;
+            stopped.interrupt();
+        }
+        /* The task may call into this thread, so it must not be locked while waiting. */
+        if (stopped != Thread.currentThread()) {
+            boolean interrupted = false;
+            while (stopped.isAlive()) {
+                try {
+                    stopped.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Check whether or not the task is being run.
+     * 
+     * @return Whether or not this thread has been started and not stopped, and is
+     *         still alive.
+     */
+    public boolean isRunning() {
+        Thread current = thread;
+        return current != null && current.isAlive();
+    }
+
+    /**
+     * Get the time between runs of the task.
+     * 
+     * @return The period, in nanoseconds.
+     */
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    /**
+     * Get the number of times the task fell more than a full period behind.
+     * 
+     * @return The number of overruns.
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    /**
+     * Get the number of runs of the task that threw an exception.
+     * 
+     * @return The number of errors.
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Get the last exception or error thrown by the task.
+     * 
+     * @return The last error, or null if the task has never thrown one.
+     */
+    public Throwable getLastError() {
+        return lastError;
+    }
+
+    private void loop() {
+        Thread self = Thread.currentThread();
+        long deadline = System.nanoTime();
+        /* Only the latest thread may run the task, even if an old one is still finishing. */
+        while (thread == self && !self.isInterrupted()) {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                /* Errors too, or they would silently kill the thread. */
+                errors++;
+                lastError = e;
+            }
+            deadline += periodNanos;
+            long now = System.nanoTime();
+            if (now - deadline > periodNanos) {
+                /* Too far behind to catch up, so skip ahead. */
+                overruns++;
+                deadline = now;
+            }
+            long wait;
+            while ((wait = deadline - System.nanoTime()) > 0 && !self.isInterrupted()) {
+                LockSupport.parkNanos(this, wait);
+            }
+        }
+    }
+}
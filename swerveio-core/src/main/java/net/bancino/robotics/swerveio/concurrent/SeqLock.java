@@ -0,0 +1,84 @@
+package net.bancino.robotics.swerveio.concurrent;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * A sequence lock, which lets a single writer publish a group of primitive
+ * fields to any number of readers without locking or allocating. The writer
+ * never waits on readers; readers retry if they catch the writer in the middle
+ * of an update.
+ * <p>
+ * The data protected by the lock lives in the owning class, as plain fields.
+ * The writer brackets its updates with {@link #beginWrite()} and
+ * {@link #endWrite()}, and readers use this pattern:
+ * </p>
+ * 
+ * <pre>
+ * long seq;
+ * do {
+ *     seq = lock.beginRead();
+ *     x = this.x;
+ *     y = this.y;
+ * } while (!lock.endRead(seq));
+ * </pre>
+ * 
+ * @author Jordan Bancino
+ */
+public final class SeqLock {
+    /* Odd while a write is in progress. */
+    private volatile long sequence;
+
+    /**
+     * Start writing the protected fields. This must only be called from the
+     * single writer thread.
+     */
+    public void beginWrite() {
+        sequence = sequence + 1;
+        /* Don't let the data writes float above the sequence increment. */
+        VarHandle.storeStoreFence();
+    }
+
+    /**
+     * Finish writing the protected fields, publishing them to readers.
+     */
+    public void endWrite() {
+        sequence = sequence + 1;
+    }
+
+    /**
+     * Start reading the protected fields. This spins while a write is in
+     * progress, which is only ever a handful of field writes long.
+     * 
+     * @return The sequence number to pass to {@link #endRead(long)}.
+     */
+    public long beginRead() {
+        long seq;
+        while (((seq = sequence) & 1) != 0) {
+            Thread.onSpinWait();
+        }
+        return seq;
+    }
+
+    /**
+     * Finish reading the protected fields.
+     * 
+     * @param seq The sequence number returned by {@link #beginRead()}.
+     * @return Whether or not the values that were read are consistent. If this
+     *         returns false, the read must be retried.
+     */
+    public boolean endRead(long seq) {
+        /* Don't let the data reads sink below the sequence check. */
+        VarHandle.loadLoadFence();
+        return sequence == seq;
+    }
+
+    /**
+     * Get the number of completed writes. This can be used by readers to tell
+     * whether anything has been published since they last looked.
+     * 
+     * @return The number of times the protected fields have been written.
+     */
+    public long getVersion() {
+        return sequence >>> 1;
+    }
+}
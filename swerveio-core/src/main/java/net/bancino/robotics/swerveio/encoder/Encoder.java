@@ -0,0 +1,100 @@
+package net.bancino.robotics.swerveio.encoder;
+
+import net.bancino.robotics.swerveio.SwerveImplementationException;
+
+/**
+ * A representation of an encoder. This can be used in swerve module
+ * implementations. This interface is generally very easy to implement and
+ * implementations often require very little code, it is simply a wrapper for
+ * the position functions on the encoder.
+ * 
+ * @author Jordan Bancino
+ */
+public interface Encoder {
+
+    /**
+     * Get the encoder's current position.
+     * 
+     * @return The encoder's current position. Note that this may not always be
+     *         double precision, it could be an int or whatever. This should be a
+     *         raw value straight from the hardware. If adjustments need to occour,
+     *         they can do so within reason here. Module-specific modifications
+     *         should occour in the swerve module's encoder-related functions.
+     */
+    public double get();
+
+    /**
+     * Set the encoder's position.
+     * 
+     * @param val The value to set the encoder to.
+     * @throws SwerveImplementationException If the underlying encoder does not
+     *                                       support setting the position.
+     */
+    public void set(double val) throws SwerveImplementationException;
+
+    /**
+     * Zero the encoder. The default implementation is the equal to calling set(0).
+     * 
+     * @throws SwerveImplementationException If the underlying encoder does not
+     *                                       support setting the position.
+     */
+    public default void zero() throws SwerveImplementationException {
+        set(0);
+    }
+
+    /**
+     * Get the time the latest reading was taken. Encoders that read the hardware
+     * when {@link #get()} is called are read right then, which is the default.
+     * Encoders whose readings are taken earlier, like sampled encoders, return
+     * the time of the sample.
+     * 
+     * @return The value of {@link System#nanoTime()} when the latest reading was
+     *         taken.
+     */
+    public default long getTimestamp() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Check whether or not this encoder can report its velocity. By default, it
+     * can't.
+     * 
+     * @return Whether or not {@link #getVelocity()} is supported.
+     */
+    public default boolean hasVelocity() {
+        return false;
+    }
+
+    /**
+     * Get how fast the encoder is turning. Encoders that don't measure velocity
+     * can be wrapped in a {@link VelocityEncoder}, which estimates it.
+     * 
+     * @return The velocity, in the units of {@link #get()} per second.
+     * @throws SwerveImplementationException If this encoder can't report its
+     *                                       velocity.
+     */
+    public default double getVelocity() throws SwerveImplementationException {
+        throw new SwerveImplementationException(getClass().getName() + " does not measure velocity.");
+    }
+
+    /**
+     * Predict what the encoder reads right now, from its latest reading and its
+     * velocity. A reading is already out of date by the time it is returned: it
+     * is as old as {@link #getTimestamp()} says, plus however long the sensor
+     * took to measure and report it, such as the period of a CAN status frame.
+     * The reading is moved forward by the velocity over both. Encoders that
+     * can't report their velocity return their latest reading.
+     * 
+     * @param sensorDelay How long the sensor takes to report a measurement, in
+     *                    seconds.
+     * @return The predicted reading.
+     */
+    public default double extrapolate(double sensorDelay) {
+        double value = get();
+        if (!hasVelocity()) {
+            return value;
+        }
+        double age = (System.nanoTime() - getTimestamp()) / 1e9;
+        return value + (getVelocity() * (age + sensorDelay));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,150 @@
+package net.bancino.robotics.swerveio.encoder;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import net.bancino.robotics.swerveio.concurrent.PeriodicThread;
+
+/**
+ * Reads a set of encoders at a fixed, high rate on a dedicated thread, so that
+ * the control loop and odometry never wait on the hardware. Register each
+ * encoder with {@link #register(Encoder)}, and use the returned
+ * {@link SampledEncoder} in its place:
+ * 
+ * <pre>
+ * EncoderSampler sampler = new EncoderSampler(500);
+ * Encoder pivotEncoder = sampler.register(new MK2Encoder(0));
+ * sampler.start();
+ * </pre>
+ * 
+ * @author Jordan Bancino
+ */
+public class EncoderSampler implements Runnable {
+    /** How many sample periods old a sample can be before it is stale. */
+    public static final int STALE_PERIODS = 5;
+
+    private final PeriodicThread thread;
+
+    /* Copy on write, so the sampler thread can iterate without locking. */
+    private volatile SampledEncoder[] encoders = new SampledEncoder[0];
+
+    /**
+     * Create an encoder sampler. It is not started until {@link #start()} is
+     * called.
+     * 
+     * @param hz How many times per second to sample each encoder.
+     */
+    public EncoderSampler(double hz) {
+        thread = new PeriodicThread("SwerveIO Encoder Sampler", this, hz, Thread.MAX_PRIORITY - 1);
+    }
+
+    /**
+     * Register an encoder to be sampled. If the encoder is already sampled by
+     * this sampler, the existing sampled encoder is returned.
+     * 
+     * @param encoder The encoder to sample.
+     * @return An encoder that returns the latest sample.
+     */
+    public synchronized SampledEncoder register(Encoder encoder) {
+        if (encoder == null) {
+            throw new IllegalArgumentException("Encoder must not be null.");
+        }
+        for (SampledEncoder sampled : encoders) {
+            if (sampled.getEncoder() == encoder || sampled == encoder) {
+                return sampled;
+            }
+        }
+        SampledEncoder sampled = new SampledEncoder(encoder, thread.getPeriodNanos() * STALE_PERIODS);
+        SampledEncoder[] newEncoders = Arrays.copyOf(encoders, encoders.length + 1);
+        newEncoders[encoders.length] = sampled;
+        encoders = newEncoders;
+        return sampled;
+    }
+
+    /**
+     * Stop sampling an encoder. The sampled encoder keeps returning its last
+     * sample, and will become stale.
+     * 
+     * @param encoder The sampled encoder returned by {@link #register(Encoder)}.
+     */
+    public synchronized void unregister(SampledEncoder encoder) {
+        int index = Arrays.asList(encoders).indexOf(encoder);
+        if (index >= 0) {
+            SampledEncoder[] newEncoders = new SampledEncoder[encoders.length - 1];
+            System.arraycopy(encoders, 0, newEncoders, 0, index);
+            System.arraycopy(encoders, index + 1, newEncoders, index, newEncoders.length - index);
+            encoders = newEncoders;
+        }
+    }
+
+    /**
+     * Sample every registered encoder once. This is what the sampler thread does
+     * on each period.
+     */
+    @Override
+    public void run() {
+        for (SampledEncoder encoder : encoders) {
+            encoder.sample();
+        }
+    }
+
+    /**
+     * Start sampling on the sampler thread.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Stop sampling. All the sampled encoders will become stale.
+     */
+    public void stop() {
+        thread.stop();
+    }
+
+    /**
+     * Check whether any registered encoder has a stale sample.
+     * 
+     * @return Whether or not any encoder's latest sample is too old.
+     */
+    public boolean isAnyStale() {
+        for (SampledEncoder encoder : encoders) {
+            if (encoder.isStale()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the age of the oldest sample across all the registered encoders.
+     * 
+     * @param unit The unit to return the age in.
+     * @return The age of the oldest sample.
+     */
+    public long getOldestSampleAge(TimeUnit unit) {
+        long oldest = 0;
+        for (SampledEncoder encoder : encoders) {
+            oldest = Math.max(oldest, encoder.getSampleAge());
+        }
+        return unit.convert(oldest, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the number of times the sampler fell more than a full period behind.
+     * 
+     * @return The number of overruns.
+     */
+    public long getOverruns() {
+        return thread.getOverruns();
+    }
+
+    /**
+     * Get the number of sampling passes that threw an exception.
+     * 
+     * @return The number of errors.
+     */
+    public long getErrors() {
+        return thread.getErrors();
+    }
+}
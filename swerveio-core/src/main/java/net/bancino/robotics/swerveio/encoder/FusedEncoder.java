@@ -0,0 +1,356 @@
+package net.bancino.robotics.swerveio.encoder;
+
+import net.bancino.robotics.swerveio.SwerveImplementationException;
+import net.bancino.robotics.swerveio.concurrent.PeriodicThread;
+
+/**
+ * An encoder that combines an absolute encoder, which knows where it is at
+ * boot but is noisy or slow, with a relative encoder, which is fast and precise
+ * but forgets its position at boot. Readings come from the relative encoder,
+ * plus an offset that lines it up with the absolute encoder. While the shaft is
+ * nearly still, the offset is corrected in the background from the absolute
+ * encoder, so the reading keeps absolute accuracy with relative latency.
+ * <p>
+ * A single absolute reading carries all of the absolute encoder's noise, so
+ * corrections don't snap onto it. The absolute readings are averaged for as
+ * long as the shaft stays still, and the offset only moves a fraction of the
+ * way towards that average each time, and not at all once it is within a
+ * small deadband. The fused reading therefore settles on the absolute position
+ * without picking up its noise.
+ * </p>
+ * <p>
+ * The absolute encoder wraps around, but the fused reading doesn't: corrections
+ * take the shortest way around, so a fused reading counts whole turns like the
+ * relative encoder does. How much the two encoders disagree at each correction
+ * is kept, so drift and a failing sensor can be spotted.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public class FusedEncoder implements Encoder {
+
+    /** How many times per second the offset is corrected by default. */
+    public static final double DEFAULT_RESYNC_HZ = 10;
+
+    /** How far the offset moves towards the averaged absolute position by default. */
+    public static final double DEFAULT_CORRECTION_GAIN = 0.25;
+
+    private final Encoder absolute, relative;
+    private final double relativeScale, absoluteRange;
+    private final PeriodicThread resyncThread;
+
+    private volatile double offset;
+    private volatile double stationaryTolerance, correctionGain, deadband;
+
+    /* The readings at the last resync attempt. Protected by this object's lock. */
+    private double lastAbsolute = Double.NaN, lastRelative = Double.NaN;
+    private long lastResyncTime;
+
+    /*
+     * The offsets that would line the encoders up, averaged since the shaft
+     * stopped. They are summed relative to an anchor so that wraps don't split
+     * them. Protected by this object's lock.
+     */
+    private double windowAnchor, windowSum, lastTarget;
+    private int windowSize;
+
+    /* Metrics, written under this object's lock. */
+    private volatile double disagreement, maxDisagreement, driftRate;
+    private volatile long resyncs, skipped;
+
+    /**
+     * Create a fused encoder. The offset is set from the absolute encoder right
+     * away, so the shaft should be still.
+     * 
+     * @param absolute      The absolute encoder.
+     * @param relative      The relative encoder.
+     * @param relativeScale The number of absolute encoder units per relative
+     *                      encoder unit.
+     * @param absoluteRange The reading at which the absolute encoder wraps back
+     *                      to 0, such as 360 for an encoder that reads degrees.
+     * @param resyncHz      How many times per second to correct the offset once
+     *                      {@link #start()} is called.
+     */
+    public FusedEncoder(Encoder absolute, Encoder relative, double relativeScale, double absoluteRange,
+            double resyncHz) {
+        if (absolute == null || relative == null) {
+            throw new IllegalArgumentException("Both encoders must be provided.");
+        } else if (relativeScale == 0 || !(absoluteRange > 0)) {
+            throw new IllegalArgumentException(
+                    "The relative scale must not be 0, and the absolute range must be positive.");
+        }
+        this.absolute = absolute;
+        this.relative = relative;
+        this.relativeScale = relativeScale;
+        this.absoluteRange = absoluteRange;
+        this.stationaryTolerance = absoluteRange / 360;
+        this.correctionGain = DEFAULT_CORRECTION_GAIN;
+        this.deadband = absoluteRange / 3600;
+        this.resyncThread = new PeriodicThread("SwerveIO Encoder Fusion", this::resync, resyncHz);
+        reset();
+    }
+
+    /**
+     * Create a fused encoder that corrects its offset at the default rate.
+     * 
+     * @param absolute      The absolute encoder.
+     * @param relative      The relative encoder.
+     * @param relativeScale The number of absolute encoder units per relative
+     *                      encoder unit.
+     * @param absoluteRange The reading at which the absolute encoder wraps back
+     *                      to 0.
+     */
+    public FusedEncoder(Encoder absolute, Encoder relative, double relativeScale, double absoluteRange) {
+        this(absolute, relative, relativeScale, absoluteRange, DEFAULT_RESYNC_HZ);
+    }
+
+    /**
+     * Get the fused position. This only reads the relative encoder.
+     * 
+     * @return The position, in absolute encoder units.
+     */
+    @Override
+    public double get() {
+        return offset + (relative.get() * relativeScale);
+    }
+
+    /**
+     * @return The timestamp of the relative encoder's reading.
+     */
+    @Override
+    public long getTimestamp() {
+        return relative.getTimestamp();
+    }
+
+    @Override
+    public boolean hasVelocity() {
+        return relative.hasVelocity();
+    }
+
+    /**
+     * Get the velocity of the relative encoder, which is much less noisy than
+     * the absolute encoder's would be.
+     * 
+     * @return The velocity, in absolute encoder units per second.
+     * @throws SwerveImplementationException If the relative encoder can't report
+     *                                       its velocity.
+     */
+    @Override
+    public double getVelocity() throws SwerveImplementationException {
+        return relative.getVelocity() * relativeScale;
+    }
+
+    /**
+     * Set the position of both encoders, so that the background correction
+     * doesn't pull the reading back.
+     * 
+     * @param val The value to set the encoder to.
+     * @throws SwerveImplementationException If the absolute encoder does not
+     *                                       support setting the position.
+     */
+    @Override
+    public synchronized void set(double val) throws SwerveImplementationException {
+        absolute.set(val);
+        offset = val - (relative.get() * relativeScale);
+        lastRelative = Double.NaN;
+        windowSize = 0;
+        lastResyncTime = 0;
+    }
+
+    /**
+     * Line the relative encoder up with the absolute encoder right now, whether
+     * or not the shaft is still. This should be done when the relative encoder
+     * has been reset, or its units have changed.
+     */
+    public synchronized void reset() {
+        offset = absolute.get() - (relative.get() * relativeScale);
+        lastRelative = Double.NaN;
+        windowSize = 0;
+        lastResyncTime = 0;
+    }
+
+    /**
+     * Add the absolute encoder's reading to the average, if the shaft has been
+     * still since the last attempt, and move the offset part of the way towards
+     * the average. This is what the background thread runs.
+     * 
+     * @return Whether or not the offset was corrected.
+     */
+    public synchronized boolean resync() {
+        double absoluteReading, relativeReading;
+        try {
+            absoluteReading = absolute.get();
+            relativeReading = relative.get();
+        } catch (RuntimeException e) {
+            skipped++;
+            return false;
+        }
+        long now = System.nanoTime();
+        double tolerance = stationaryTolerance;
+        boolean stationary = Math.abs((relativeReading - lastRelative) * relativeScale) <= tolerance
+                && Math.abs(wrap(absoluteReading - lastAbsolute)) <= tolerance;
+        lastAbsolute = absoluteReading;
+        lastRelative = relativeReading;
+        if (!stationary) {
+            /* This is also false when there was no last reading, which is NaN. */
+            windowSize = 0;
+            skipped++;
+            return false;
+        }
+
+        /* The offset that would make this absolute reading the fused reading. */
+        if (windowSize == 0) {
+            windowAnchor = offset;
+            windowSum = 0;
+        }
+        windowSum += wrap(absoluteReading - (windowAnchor + (relativeReading * relativeScale)));
+        windowSize++;
+        double target = windowAnchor + (windowSum / windowSize);
+
+        double error = target - offset;
+        disagreement = error;
+        maxDisagreement = Math.max(maxDisagreement, Math.abs(error));
+        if (lastResyncTime != 0) {
+            driftRate = (target - lastTarget) / ((now - lastResyncTime) / 1e9);
+        }
+        lastResyncTime = now;
+        lastTarget = target;
+        if (Math.abs(error) <= deadband) {
+            return false;
+        }
+        offset += correctionGain * error;
+        resyncs++;
+        return true;
+    }
+
+    /**
+     * Start correcting the offset in the background. This does nothing if it is
+     * already running.
+     */
+    public void start() {
+        resyncThread.start();
+    }
+
+    /**
+     * Stop correcting the offset in the background. The last offset is kept.
+     */
+    public void stop() {
+        resyncThread.stop();
+    }
+
+    /**
+     * @return Whether or not the offset is being corrected in the background.
+     */
+    public boolean isRunning() {
+        return resyncThread.isRunning();
+    }
+
+    /**
+     * Set how far either encoder can move between two resync attempts for the
+     * shaft to still count as still. This should be above the noise of the
+     * absolute encoder.
+     * 
+     * @param tolerance The tolerance, in absolute encoder units. The default is
+     *                  one degree's worth of the absolute range.
+     */
+    public void setStationaryTolerance(double tolerance) {
+        if (!(tolerance >= 0)) {
+            throw new IllegalArgumentException("Stationary tolerance must not be negative.");
+        }
+        stationaryTolerance = tolerance;
+    }
+
+    /**
+     * Set how far the offset moves towards the averaged absolute position at each
+     * correction. Lower gains smooth out more noise, but take longer to remove a
+     * real error.
+     * 
+     * @param gain The gain, in (0, 1]. 1 snaps the offset onto the average. The
+     *             default is {@link #DEFAULT_CORRECTION_GAIN}.
+     */
+    public void setCorrectionGain(double gain) {
+        if (!(gain > 0 && gain <= 1)) {
+            throw new IllegalArgumentException("Correction gain must be in (0, 1]: " + gain);
+        }
+        correctionGain = gain;
+    }
+
+    /**
+     * Set how close the fused reading must be to the averaged absolute position
+     * for the offset to be left alone.
+     * 
+     * @param deadband The deadband, in absolute encoder units. The default is a
+     *                 tenth of a degree's worth of the absolute range.
+     */
+    public void setDeadband(double deadband) {
+        if (!(deadband >= 0)) {
+            throw new IllegalArgumentException("Deadband must not be negative.");
+        }
+        this.deadband = deadband;
+    }
+
+    /**
+     * Get how far the relative encoder had drifted from the absolute encoder at
+     * the last resync attempt where the shaft was still.
+     * 
+     * @return The averaged absolute position minus the fused reading, in
+     *         absolute encoder units.
+     */
+    public double getDisagreement() {
+        return disagreement;
+    }
+
+    /**
+     * @return The largest disagreement seen at any correction, in absolute
+     *         encoder units.
+     */
+    public double getMaxDisagreement() {
+        return maxDisagreement;
+    }
+
+    /**
+     * Get how fast the relative encoder drifts from the absolute encoder, as
+     * measured between the last two resync attempts where the shaft was still.
+     * 
+     * @return The drift rate, in absolute encoder units per second.
+     */
+    public double getDriftRate() {
+        return driftRate;
+    }
+
+    /**
+     * @return How many times the offset has been corrected.
+     */
+    public long getResyncCount() {
+        return resyncs;
+    }
+
+    /**
+     * @return How many resync attempts were skipped because the shaft was
+     *         moving or an encoder couldn't be read.
+     */
+    public long getSkippedCount() {
+        return skipped;
+    }
+
+    /**
+     * @return The absolute encoder.
+     */
+    public Encoder getAbsoluteEncoder() {
+        return absolute;
+    }
+
+    /**
+     * @return The relative encoder.
+     */
+    public Encoder getRelativeEncoder() {
+        return relative;
+    }
+
+    /**
+     * Wrap a difference in absolute readings to the shortest way around.
+     */
+    private double wrap(double difference) {
+        return difference - (absoluteRange * Math.floor((difference / absoluteRange) + 0.5));
+    }
+}
@@ -0,0 +1,219 @@
+package net.bancino.robotics.swerveio.encoder;
+
+import net.bancino.robotics.swerveio.SwerveImplementationException;
+import net.bancino.robotics.swerveio.concurrent.SeqLock;
+
+/**
+ * An encoder whose readings are taken in the background by an
+ * {@link EncoderSampler}. Calling {@link #get()} returns the latest sample
+ * immediately instead of reading the hardware, so it never blocks. Because
+ * this is an encoder itself, it can be used anywhere the encoder it samples
+ * could be.
+ * <p>
+ * Each sample is timestamped, so consumers can check how old it is and
+ * whether the sampler has stopped keeping up. If the sampled encoder reports
+ * its velocity, that is sampled along with the position.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public class SampledEncoder implements Encoder {
+    private final Encoder encoder;
+    private final boolean sampleVelocity;
+    private final SeqLock lock = new SeqLock();
+    private volatile long staleThreshold;
+
+    /* Protected by the sequence lock. */
+    private double value, velocity;
+    private long timestamp;
+
+    private volatile long failures;
+
+    /**
+     * Create a sampled encoder. This is done by the sampler when an encoder is
+     * registered.
+     * 
+     * @param encoder        The encoder to sample.
+     * @param staleThreshold How old, in nanoseconds, a sample can be before it is
+     *                       considered stale.
+     */
+    SampledEncoder(Encoder encoder, long staleThreshold) {
+        this.encoder = encoder;
+        this.sampleVelocity = encoder.hasVelocity();
+        this.staleThreshold = staleThreshold;
+        sample();
+    }
+
+    /**
+     * Read the underlying encoder and publish the result. This is called from
+     * the sampler thread, and is synchronized with {@link #set(double)} so that
+     * there is only ever one writer.
+     */
+    synchronized void sample() {
+        double reading, speed = 0;
+        try {
+            reading = encoder.get();
+            if (sampleVelocity) {
+                speed = encoder.getVelocity();
+            }
+        } catch (RuntimeException e) {
+            /* Keep the last good sample; it will go stale if this keeps happening. */
+            failures++;
+            return;
+        }
+        long now = System.nanoTime();
+        lock.beginWrite();
+        value = reading;
+        velocity = speed;
+        timestamp = now;
+        lock.endWrite();
+    }
+
+    /**
+     * Get the latest sample. This never blocks on the hardware.
+     * 
+     * @return The most recent reading of the underlying encoder.
+     */
+    @Override
+    public double get() {
+        double reading;
+        long seq;
+        do {
+            seq = lock.beginRead();
+            reading = value;
+        } while (!lock.endRead(seq));
+        return reading;
+    }
+
+    /**
+     * Get the time the latest sample was taken.
+     * 
+     * @return The value of {@link System#nanoTime()} when the latest sample was
+     *         read from the hardware.
+     */
+    @Override
+    public long getTimestamp() {
+        long time, seq;
+        do {
+            seq = lock.beginRead();
+            time = timestamp;
+        } while (!lock.endRead(seq));
+        return time;
+    }
+
+    @Override
+    public boolean hasVelocity() {
+        return sampleVelocity;
+    }
+
+    /**
+     * Get the velocity that was sampled along with the latest position. This
+     * never blocks on the hardware.
+     * 
+     * @return The velocity, in the units of {@link #get()} per second.
+     * @throws SwerveImplementationException If the sampled encoder can't report
+     *                                       its velocity.
+     */
+    @Override
+    public double getVelocity() throws SwerveImplementationException {
+        if (!sampleVelocity) {
+            return Encoder.super.getVelocity();
+        }
+        double speed;
+        long seq;
+        do {
+            seq = lock.beginRead();
+            speed = velocity;
+        } while (!lock.endRead(seq));
+        return speed;
+    }
+
+    /**
+     * Predict what the encoder reads right now from the latest sample. The
+     * position, velocity and timestamp are all read from the same sample, so a
+     * new sample published in the middle can't pair one sample's position with
+     * another's age.
+     * 
+     * @param sensorDelay How long the sensor takes to report a measurement, in
+     *                    seconds.
+     * @return The predicted reading.
+     */
+    @Override
+    public double extrapolate(double sensorDelay) {
+        double reading, speed;
+        long time, seq;
+        do {
+            seq = lock.beginRead();
+            reading = value;
+            speed = velocity;
+            time = timestamp;
+        } while (!lock.endRead(seq));
+        if (!sampleVelocity) {
+            return reading;
+        }
+        double age = (System.nanoTime() - time) / 1e9;
+        return reading + (speed * (age + sensorDelay));
+    }
+
+    /**
+     * Get how old the latest sample is.
+     * 
+     * @return The age of the latest sample, in nanoseconds.
+     */
+    public long getSampleAge() {
+        return System.nanoTime() - getTimestamp();
+    }
+
+    /**
+     * Check whether or not the latest sample is older than the stale threshold.
+     * This happens if the sampler is stopped, falls behind, or the underlying
+     * encoder keeps failing.
+     * 
+     * @return Whether or not the latest sample should be trusted.
+     */
+    public boolean isStale() {
+        return getSampleAge() > staleThreshold;
+    }
+
+    /**
+     * Set how old a sample can be before it is considered stale.
+     * 
+     * @param staleThreshold The threshold, in nanoseconds.
+     */
+    public void setStaleThreshold(long staleThreshold) {
+        this.staleThreshold = staleThreshold;
+    }
+
+    /**
+     * Get the number of times reading the underlying encoder threw an exception.
+     * 
+     * @return The failure count.
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * Get the encoder that is being sampled.
+     * 
+     * @return The underlying encoder.
+     */
+    public Encoder getEncoder() {
+        return encoder;
+    }
+
+    /**
+     * Set the position of the underlying encoder. This is passed straight through
+     * to the hardware, and then the encoder is sampled again so that
+     * {@link #get()} reflects the change right away.
+     * 
+     * @param val The value to set the encoder to.
+     * @throws SwerveImplementationException If the underlying encoder does not
+     *                                       support setting the position.
+     */
+    @Override
+    public synchronized void set(double val) throws SwerveImplementationException {
+        encoder.set(val);
+        sample();
+    }
+}
@@ -0,0 +1,249 @@
+package net.bancino.robotics.swerveio.encoder;
+
+import net.bancino.robotics.swerveio.SwerveImplementationException;
+
+/**
+ * An encoder that turns the readings of an encoder that wraps around, such as
+ * an analog absolute encoder that goes from 360 back to 0, into a continuous
+ * angle that counts whole turns. Each reading is compared to the last one, and
+ * a change of more than half the range is taken to be a wrap rather than a
+ * jump.
+ * <p>
+ * Analog encoders sometimes read a single sample that is far from the truth.
+ * Changes that are larger than the shaft could possibly move between two
+ * readings are rejected, and the last good reading is returned instead. If the
+ * encoder keeps reading the new value, it is accepted after a few samples, so
+ * that a real change (like the encoder being set) isn't ignored forever. The
+ * rejected readings must agree with each other, to within the max step, or the
+ * count starts over; a run of unrelated glitches is never accepted.
+ * Readings are only compared when the underlying encoder has a new one, as told
+ * by its {@link Encoder#getTimestamp() timestamp}, so reading this encoder more
+ * than once per sample doesn't count the same glitch more than once.
+ * </p>
+ * <p>
+ * Reading this encoder never allocates, and it is safe to read from multiple
+ * threads.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public class UnwrappingEncoder implements Encoder {
+
+    /**
+     * How many readings in a row must agree on a rejected change before it is
+     * accepted by default.
+     */
+    public static final int DEFAULT_GLITCH_SAMPLES = 3;
+
+    private final Encoder encoder;
+    private final double range;
+    private volatile double maxStep;
+    private volatile int glitchSamples = DEFAULT_GLITCH_SAMPLES;
+
+    /* Protected by this object's lock. */
+    private double lastWrapped;
+    private long turns;
+    private int rejectedInRow;
+    private double candidate;
+    private long lastTimestamp;
+    private boolean updated;
+
+    private volatile long glitches;
+
+    /**
+     * Create an unwrapping encoder.
+     * 
+     * @param encoder The encoder to unwrap.
+     * @param range   The reading at which the encoder wraps back to 0, such as
+     *                360 for an encoder that reads degrees.
+     * @param maxStep The largest change that is possible between two readings.
+     *                Larger changes are rejected as glitches. This must be less
+     *                than half the range, or wraps can't be told apart from
+     *                moves; use the range to disable glitch rejection.
+     */
+    public UnwrappingEncoder(Encoder encoder, double range, double maxStep) {
+        if (encoder == null) {
+            throw new IllegalArgumentException("Encoder must not be null.");
+        } else if (!(range > 0)) {
+            throw new IllegalArgumentException("The range must be positive.");
+        }
+        this.encoder = encoder;
+        this.range = range;
+        setMaxStep(maxStep);
+        lastWrapped = wrap(encoder.get());
+    }
+
+    /**
+     * Create an unwrapping encoder that doesn't reject glitches.
+     * 
+     * @param encoder The encoder to unwrap.
+     * @param range   The reading at which the encoder wraps back to 0.
+     */
+    public UnwrappingEncoder(Encoder encoder, double range) {
+        this(encoder, range, range);
+    }
+
+    /**
+     * Read the encoder and get the continuous angle.
+     * 
+     * @return The angle, counting whole turns, in the encoder's units.
+     */
+    @Override
+    public synchronized double get() {
+        update();
+        return (turns * range) + lastWrapped;
+    }
+
+    /**
+     * Read the encoder and get the angle within a single turn.
+     * 
+     * @return The angle, between 0 and the range, in the encoder's units.
+     */
+    public synchronized double getWrapped() {
+        update();
+        return lastWrapped;
+    }
+
+    /**
+     * Read the encoder and get how many whole turns it has made.
+     * 
+     * @return The number of turns. Negative turns are counted below 0.
+     */
+    public synchronized long getTurns() {
+        update();
+        return turns;
+    }
+
+    @Override
+    public long getTimestamp() {
+        return encoder.getTimestamp();
+    }
+
+    @Override
+    public boolean hasVelocity() {
+        return encoder.hasVelocity();
+    }
+
+    /**
+     * Get the velocity of the underlying encoder. Unwrapping doesn't change how
+     * fast the shaft turns.
+     * 
+     * @return The velocity, in the encoder's units per second.
+     * @throws SwerveImplementationException If the underlying encoder can't
+     *                                       report its velocity.
+     */
+    @Override
+    public double getVelocity() throws SwerveImplementationException {
+        return encoder.getVelocity();
+    }
+
+    /**
+     * Set the continuous angle. The underlying encoder is set to the angle within
+     * a single turn.
+     * 
+     * @param val The angle, counting whole turns.
+     * @throws SwerveImplementationException If the underlying encoder does not
+     *                                       support setting the position.
+     */
+    @Override
+    public synchronized void set(double val) throws SwerveImplementationException {
+        double turnsOf = Math.floor(val / range);
+        encoder.set(val - (turnsOf * range));
+        turns = (long) turnsOf;
+        lastWrapped = wrap(encoder.get());
+        rejectedInRow = 0;
+        updated = false;
+    }
+
+    /**
+     * Set the largest change that is possible between two readings.
+     * 
+     * @param maxStep The largest change, in the encoder's units.
+     */
+    public void setMaxStep(double maxStep) {
+        if (!(maxStep > 0)) {
+            throw new IllegalArgumentException("The max step must be positive.");
+        }
+        this.maxStep = maxStep;
+    }
+
+    /**
+     * Set how many readings in a row must agree on a change that was rejected as
+     * a glitch before it is accepted.
+     * 
+     * @param samples The number of readings. The default is
+     *                {@link #DEFAULT_GLITCH_SAMPLES}.
+     */
+    public void setGlitchSamples(int samples) {
+        if (samples < 1) {
+            throw new IllegalArgumentException("At least one sample is required.");
+        }
+        glitchSamples = samples;
+    }
+
+    /**
+     * @return How many readings have been rejected as glitches.
+     */
+    public long getGlitchCount() {
+        return glitches;
+    }
+
+    /**
+     * @return The encoder that is being unwrapped.
+     */
+    public Encoder getEncoder() {
+        return encoder;
+    }
+
+    /**
+     * Read the underlying encoder, and count a turn if it wrapped.
+     */
+    private void update() {
+        double wrapped = wrap(encoder.get());
+        long time = encoder.getTimestamp();
+        if (updated && time == lastTimestamp) {
+            return;
+        }
+        updated = true;
+        lastTimestamp = time;
+        double step = wrapped - lastWrapped;
+        /* The shortest way from the last reading to this one. */
+        double shortest = shortest(step);
+        if (Math.abs(shortest) > maxStep) {
+            /* Only count readings that agree with the last rejected one. */
+            if (rejectedInRow > 0 && Math.abs(shortest(wrapped - candidate)) <= maxStep) {
+                rejectedInRow++;
+            } else {
+                rejectedInRow = 1;
+            }
+            candidate = wrapped;
+            if (rejectedInRow < glitchSamples) {
+                glitches++;
+                return;
+            }
+        }
+        rejectedInRow = 0;
+        if (step - shortest > 0) {
+            turns--;
+        } else if (step - shortest < 0) {
+            turns++;
+        }
+        lastWrapped = wrapped;
+    }
+
+    /**
+     * Get the shortest way around the circle that covers a change.
+     */
+    private double shortest(double step) {
+        return step - (range * Math.floor((step / range) + 0.5));
+    }
+
+    /**
+     * Bring a reading into a single turn.
+     */
+    private double wrap(double reading) {
+        double wrapped = reading - (range * Math.floor(reading / range));
+        /* Rounding can land a tiny negative reading on the range itself. */
+        return (wrapped >= range) ? 0 : wrapped;
+    }
+}
@@ -0,0 +1,175 @@
+package net.bancino.robotics.swerveio.encoder;
+
+import net.bancino.robotics.swerveio.SwerveImplementationException;
+
+/**
+ * An encoder that estimates its velocity from the last few readings of an
+ * encoder that only reports position. Each call to {@link #get()} records the
+ * reading and its timestamp in a fixed-size history, so the encoder should be
+ * read once per loop; {@link #getVelocity()} doesn't read the hardware itself.
+ * Readings with the same timestamp as the last one, like repeated reads of a
+ * sampled encoder between samples, are only recorded once.
+ * <p>
+ * The history is kept in primitive arrays that are allocated up front, so
+ * reading this encoder and estimating its velocity never allocate.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public class VelocityEncoder implements Encoder {
+
+    /**
+     * How the velocity is estimated from the history.
+     */
+    public static enum Estimator {
+        /**
+         * The change between the oldest and newest readings, over the time between
+         * them. This is cheap, and follows changes in speed quickly.
+         */
+        FINITE_DIFFERENCE,
+
+        /**
+         * The slope of the line that best fits all the readings. This uses every
+         * reading, so a single noisy one moves the estimate less.
+         */
+        LEAST_SQUARES
+    }
+
+    private final Encoder encoder;
+    private final Estimator estimator;
+
+    /* The history. Protected by this object's lock. */
+    private final long[] times;
+    private final double[] values;
+    private int next, size;
+
+    /**
+     * Create a velocity encoder.
+     * 
+     * @param encoder   The encoder to estimate the velocity of.
+     * @param samples   The number of readings to keep, at least 2.
+     * @param estimator How to estimate the velocity.
+     */
+    public VelocityEncoder(Encoder encoder, int samples, Estimator estimator) {
+        if (encoder == null || estimator == null) {
+            throw new IllegalArgumentException("Encoder and estimator must not be null.");
+        } else if (samples < 2) {
+            throw new IllegalArgumentException("At least two samples are needed to estimate velocity.");
+        }
+        this.encoder = encoder;
+        this.estimator = estimator;
+        this.times = new long[samples];
+        this.values = new double[samples];
+    }
+
+    /**
+     * Create a velocity encoder that uses finite differences.
+     * 
+     * @param encoder The encoder to estimate the velocity of.
+     * @param samples The number of readings to keep, at least 2.
+     */
+    public VelocityEncoder(Encoder encoder, int samples) {
+        this(encoder, samples, Estimator.FINITE_DIFFERENCE);
+    }
+
+    /**
+     * Read the underlying encoder and record the reading in the history.
+     * 
+     * @return The reading.
+     */
+    @Override
+    public synchronized double get() {
+        double value = encoder.get();
+        long time = encoder.getTimestamp();
+        if (size == 0 || time != times[newest()]) {
+            times[next] = time;
+            values[next] = value;
+            next = (next + 1 == times.length) ? 0 : next + 1;
+            if (size < times.length) {
+                size++;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Set the position of the underlying encoder, and clear the history so that
+     * the jump isn't taken for movement.
+     * 
+     * @param val The value to set the encoder to.
+     * @throws SwerveImplementationException If the underlying encoder does not
+     *                                       support setting the position.
+     */
+    @Override
+    public synchronized void set(double val) throws SwerveImplementationException {
+        encoder.set(val);
+        next = 0;
+        size = 0;
+    }
+
+    /**
+     * @return The timestamp of the newest reading in the history.
+     */
+    @Override
+    public synchronized long getTimestamp() {
+        return (size == 0) ? encoder.getTimestamp() : times[newest()];
+    }
+
+    @Override
+    public boolean hasVelocity() {
+        return true;
+    }
+
+    /**
+     * Estimate the velocity from the history.
+     * 
+     * @return The velocity, in the units of {@link #get()} per second, or 0 until
+     *         there are two readings to compare.
+     */
+    @Override
+    public synchronized double getVelocity() {
+        if (size < 2) {
+            return 0;
+        }
+        int oldest = (size == times.length) ? next : 0;
+        int newest = newest();
+        if (estimator == Estimator.FINITE_DIFFERENCE) {
+            long elapsed = times[newest] - times[oldest];
+            return (elapsed > 0) ? (values[newest] - values[oldest]) / (elapsed / 1e9) : 0;
+        }
+
+        /* Times are taken relative to the newest reading, so that they stay small. */
+        double meanTime = 0, meanValue = 0;
+        for (int i = 0; i < size; i++) {
+            meanTime += (times[i] - times[newest]) / 1e9;
+            meanValue += values[i];
+        }
+        meanTime /= size;
+        meanValue /= size;
+        double covariance = 0, variance = 0;
+        for (int i = 0; i < size; i++) {
+            double time = ((times[i] - times[newest]) / 1e9) - meanTime;
+            covariance += time * (values[i] - meanValue);
+            variance += time * time;
+        }
+        return (variance > 0) ? covariance / variance : 0;
+    }
+
+    /**
+     * @return How the velocity is estimated.
+     */
+    public Estimator getEstimator() {
+        return estimator;
+    }
+
+    /**
+     * @return The encoder whose velocity is estimated.
+     */
+    public Encoder getEncoder() {
+        return encoder;
+    }
+
+    private int newest() {
+        return ((next == 0) ? times.length : next) - 1;
+    }
+}
@@ -0,0 +1,48 @@
+package net.bancino.robotics.swerveio.encoder.filter;
+
+import net.bancino.robotics.swerveio.encoder.Encoder;
+
+/**
+ * An exponential moving average of an encoder's readings. Each reading moves
+ * the output part of the way towards it, so old readings fade out gradually
+ * instead of dropping out of a window. It takes no history, and reacts faster
+ * than a moving average that smooths as much.
+ * 
+ * @author Jordan Bancino
+ */
+public class ExponentialEncoder extends FilteredEncoder {
+    private final double alpha;
+    private double value;
+    private boolean empty = true;
+
+    /**
+     * Create an exponential moving average.
+     * 
+     * @param encoder The encoder to filter.
+     * @param alpha   How far each reading moves the output towards it, in (0,
+     *                1]. Smaller values smooth more; 1 disables the filter.
+     */
+    public ExponentialEncoder(Encoder encoder, double alpha) {
+        super(encoder);
+        if (!(alpha > 0 && alpha <= 1)) {
+            throw new IllegalArgumentException("Alpha must be in (0, 1]: " + alpha);
+        }
+        this.alpha = alpha;
+    }
+
+    @Override
+    protected double filter(double reading) {
+        if (empty) {
+            value = reading;
+            empty = false;
+        } else {
+            value += alpha * (reading - value);
+        }
+        return value;
+    }
+
+    @Override
+    protected void clear() {
+        empty = true;
+    }
+}
@@ -0,0 +1,137 @@
+package net.bancino.robotics.swerveio.encoder.filter;
+
+import net.bancino.robotics.swerveio.SwerveImplementationException;
+import net.bancino.robotics.swerveio.encoder.Encoder;
+
+/**
+ * An encoder that filters the readings of another encoder. Because a filtered
+ * encoder is an encoder itself, filters can be chained, and used anywhere the
+ * encoder they filter could be, such as a {@code GenericSwerveModule}:
+ * 
+ * <pre>
+ * new MedianEncoder(new UnwrappingEncoder(new MK2Encoder(0), 360), 5)
+ * </pre>
+ * <p>
+ * Filters average readings together, so an encoder that wraps from 360 back
+ * to 0 should be unwrapped first, or readings on either side of the wrap
+ * average out to the wrong side of the circle. Filters keep their history in
+ * primitive arrays that are allocated up front, so reading a filtered encoder
+ * never allocates. Reading is synchronized, so a filter may be shared between
+ * threads.
+ * </p>
+ * <p>
+ * A reading is only added to the filter when the underlying encoder has a new
+ * one, as told by its {@link Encoder#getTimestamp() timestamp}. Reading a
+ * sampled encoder more often than it samples therefore doesn't weigh the same
+ * sample more than once.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public abstract class FilteredEncoder implements Encoder {
+    private final Encoder encoder;
+
+    /* The last reading that was filtered. Protected by this object's lock. */
+    private long lastTimestamp;
+    private double lastFiltered;
+    private boolean filtered;
+
+    /**
+     * Create a filtered encoder.
+     * 
+     * @param encoder The encoder to filter.
+     */
+    protected FilteredEncoder(Encoder encoder) {
+        if (encoder == null) {
+            throw new IllegalArgumentException("Encoder must not be null.");
+        }
+        this.encoder = encoder;
+    }
+
+    /**
+     * Read the underlying encoder and filter the reading, if it is a new one.
+     * 
+     * @return The filtered reading.
+     */
+    @Override
+    public synchronized double get() {
+        double reading = encoder.get();
+        long time = encoder.getTimestamp();
+        if (!filtered || time != lastTimestamp) {
+            lastFiltered = filter(reading);
+            lastTimestamp = time;
+            filtered = true;
+        }
+        return lastFiltered;
+    }
+
+    /**
+     * Set the position of the underlying encoder. The history of the filter is
+     * cleared, so that old readings don't drag the new position.
+     * 
+     * @param val The value to set the encoder to.
+     * @throws SwerveImplementationException If the underlying encoder does not
+     *                                       support setting the position.
+     */
+    @Override
+    public synchronized void set(double val) throws SwerveImplementationException {
+        encoder.set(val);
+        reset();
+    }
+
+    /**
+     * @return The timestamp of the underlying encoder's reading.
+     */
+    @Override
+    public long getTimestamp() {
+        return encoder.getTimestamp();
+    }
+
+    @Override
+    public boolean hasVelocity() {
+        return encoder.hasVelocity();
+    }
+
+    /**
+     * Get the velocity of the underlying encoder. Velocity isn't filtered; only
+     * the position is.
+     * 
+     * @return The velocity, in the encoder's units per second.
+     * @throws SwerveImplementationException If the underlying encoder can't
+     *                                       report its velocity.
+     */
+    @Override
+    public double getVelocity() throws SwerveImplementationException {
+        return encoder.getVelocity();
+    }
+
+    /**
+     * Clear the history of the filter. The next reading starts it over.
+     */
+    public synchronized void reset() {
+        filtered = false;
+        clear();
+    }
+
+    /**
+     * @return The encoder that is being filtered.
+     */
+    public Encoder getEncoder() {
+        return encoder;
+    }
+
+    /**
+     * Add a reading to the filter. This is only called with this encoder's lock
+     * held, and must not allocate.
+     * 
+     * @param reading The reading of the underlying encoder.
+     * @return The filtered reading.
+     */
+    protected abstract double filter(double reading);
+
+    /**
+     * Forget all the readings. This is only called with this encoder's lock
+     * held.
+     */
+    protected abstract void clear();
+}
@@ -0,0 +1,74 @@
+package net.bancino.robotics.swerveio.encoder.filter;
+
+import net.bancino.robotics.swerveio.encoder.Encoder;
+
+/**
+ * A one-dimensional Kalman filter on an encoder's readings. The position is
+ * modeled as staying put, except for a random walk whose size is the process
+ * noise; each reading is weighed against the estimate by how noisy the sensor
+ * is. When the readings agree with the estimate, the filter trusts the
+ * estimate more and smooths harder; when the shaft moves, the growing
+ * uncertainty lets it catch up.
+ * <p>
+ * The measurement noise is the variance of the encoder's readings while the
+ * shaft is still. The process noise is how much the position is expected to
+ * change between two readings, squared; raise it to follow the shaft more
+ * closely.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public class KalmanEncoder extends FilteredEncoder {
+    private final double processNoise, measurementNoise;
+    private double estimate, variance;
+    private boolean empty = true;
+
+    /**
+     * Create a Kalman filter.
+     * 
+     * @param encoder          The encoder to filter.
+     * @param processNoise     The variance of the change in position between two
+     *                         readings.
+     * @param measurementNoise The variance of a single reading.
+     */
+    public KalmanEncoder(Encoder encoder, double processNoise, double measurementNoise) {
+        super(encoder);
+        if (!(processNoise >= 0) || !(measurementNoise > 0)) {
+            throw new IllegalArgumentException(
+                    "Process noise must not be negative, and measurement noise must be positive.");
+        }
+        this.processNoise = processNoise;
+        this.measurementNoise = measurementNoise;
+    }
+
+    @Override
+    protected double filter(double reading) {
+        if (empty) {
+            estimate = reading;
+            variance = measurementNoise;
+            empty = false;
+            return estimate;
+        }
+        /* Predict: the position may have wandered since the last reading. */
+        variance += processNoise;
+        /* Update: weigh the reading against the prediction. */
+        double gain = variance / (variance + measurementNoise);
+        estimate += gain * (reading - estimate);
+        variance *= (1 - gain);
+        return estimate;
+    }
+
+    @Override
+    protected void clear() {
+        empty = true;
+    }
+
+    /**
+     * Get how uncertain the current estimate is.
+     * 
+     * @return The variance of the estimate.
+     */
+    public synchronized double getVariance() {
+        return variance;
+    }
+}
@@ -0,0 +1,58 @@
+package net.bancino.robotics.swerveio.encoder.filter;
+
+import java.util.Arrays;
+
+import net.bancino.robotics.swerveio.encoder.Encoder;
+
+/**
+ * Takes the median of the last few readings of an encoder. Unlike an average,
+ * a median ignores single readings that are far off, so it is the best filter
+ * for the occasional spike from an analog input. The readings are also kept in
+ * sorted order, so each new reading takes time proportional to the window.
+ * 
+ * @author Jordan Bancino
+ */
+public class MedianEncoder extends FilteredEncoder {
+    private final RingBuffer window;
+    private final double[] sorted;
+
+    /**
+     * Create a median filter.
+     * 
+     * @param encoder The encoder to filter.
+     * @param samples The number of readings to take the median of. An odd number
+     *                gives a median that is always one of the readings.
+     */
+    public MedianEncoder(Encoder encoder, int samples) {
+        super(encoder);
+        window = new RingBuffer(samples);
+        sorted = new double[samples];
+    }
+
+    @Override
+    protected double filter(double reading) {
+        int size = window.size();
+        if (window.isFull()) {
+            /* Take the oldest reading out of the sorted readings. */
+            int oldest = Arrays.binarySearch(sorted, 0, size, window.oldest());
+            System.arraycopy(sorted, oldest + 1, sorted, oldest, size - oldest - 1);
+            size--;
+        }
+        window.add(reading);
+        int insert = Arrays.binarySearch(sorted, 0, size, reading);
+        if (insert < 0) {
+            insert = -(insert + 1);
+        }
+        System.arraycopy(sorted, insert, sorted, insert + 1, size - insert);
+        sorted[insert] = reading;
+        size++;
+
+        int middle = size / 2;
+        return ((size & 1) == 1) ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    @Override
+    protected void clear() {
+        window.clear();
+    }
+}
@@ -0,0 +1,51 @@
+package net.bancino.robotics.swerveio.encoder.filter;
+
+import net.bancino.robotics.swerveio.encoder.Encoder;
+
+/**
+ * Averages the last few readings of an encoder. This smooths out noise evenly,
+ * but lags behind a moving shaft by half the window.
+ * 
+ * @author Jordan Bancino
+ */
+public class MovingAverageEncoder extends FilteredEncoder {
+    private final RingBuffer window;
+    private double sum;
+    private int sinceResum;
+
+    /**
+     * Create a moving average.
+     * 
+     * @param encoder The encoder to filter.
+     * @param samples The number of readings to average.
+     */
+    public MovingAverageEncoder(Encoder encoder, int samples) {
+        super(encoder);
+        window = new RingBuffer(samples);
+    }
+
+    @Override
+    protected double filter(double reading) {
+        if (window.isFull()) {
+            sum -= window.oldest();
+        }
+        window.add(reading);
+        sum += reading;
+        /* Add the window up again once per window, so rounding errors can't build up. */
+        if (++sinceResum == window.capacity()) {
+            sinceResum = 0;
+            sum = 0;
+            for (int i = 0; i < window.size(); i++) {
+                sum += window.get(i);
+            }
+        }
+        return sum / window.size();
+    }
+
+    @Override
+    protected void clear() {
+        window.clear();
+        sum = 0;
+        sinceResum = 0;
+    }
+}
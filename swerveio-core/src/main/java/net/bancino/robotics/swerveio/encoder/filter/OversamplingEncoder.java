@@ -0,0 +1,46 @@
+package net.bancino.robotics.swerveio.encoder.filter;
+
+import net.bancino.robotics.swerveio.encoder.Encoder;
+
+/**
+ * Reads an encoder several times in a row and averages the readings. Unlike
+ * the other filters, this doesn't lag behind a moving shaft, because every
+ * reading is fresh, but each read of this encoder costs several reads of the
+ * underlying one. It suits encoders that are cheap to read, like analog
+ * inputs, and not ones whose reads wait on the CAN bus.
+ * 
+ * @author Jordan Bancino
+ */
+public class OversamplingEncoder extends FilteredEncoder {
+    private final int samples;
+
+    /**
+     * Create an oversampling encoder.
+     * 
+     * @param encoder The encoder to filter.
+     * @param samples The number of readings to average for each reading of this
+     *                encoder.
+     */
+    public OversamplingEncoder(Encoder encoder, int samples) {
+        super(encoder);
+        if (samples < 1) {
+            throw new IllegalArgumentException("At least one sample is required.");
+        }
+        this.samples = samples;
+    }
+
+    @Override
+    protected double filter(double reading) {
+        double sum = reading;
+        Encoder encoder = getEncoder();
+        for (int i = 1; i < samples; i++) {
+            sum += encoder.get();
+        }
+        return sum / samples;
+    }
+
+    @Override
+    protected void clear() {
+        /* There is no history to clear. */
+    }
+}
@@ -0,0 +1,93 @@
+package net.bancino.robotics.swerveio.encoder.filter;
+
+/**
+ * A fixed-size ring of doubles. Once it is full, each value that is added
+ * replaces the oldest one. This is not thread safe; the filters that use it
+ * synchronize around it.
+ * 
+ * @author Jordan Bancino
+ */
+final class RingBuffer {
+    private final double[] values;
+    private int next, size;
+
+    /**
+     * Create an empty ring buffer.
+     * 
+     * @param capacity The number of values the buffer holds.
+     */
+    RingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("A ring buffer must hold at least one value.");
+        }
+        values = new double[capacity];
+    }
+
+    /**
+     * Add a value, replacing the oldest value if the buffer is full.
+     * 
+     * @param value The value to add.
+     * @return Whether or not a value was replaced.
+     */
+    boolean add(double value) {
+        boolean full = isFull();
+        values[next] = value;
+        next = (next + 1 == values.length) ? 0 : next + 1;
+        if (!full) {
+            size++;
+        }
+        return full;
+    }
+
+    /**
+     * Get the value that the next {@link #add(double)} will replace, if the
+     * buffer is full.
+     * 
+     * @return The oldest value.
+     */
+    double oldest() {
+        return values[isFull() ? next : 0];
+    }
+
+    /**
+     * Get a value by age.
+     * 
+     * @param index 0 for the oldest value, up to {@link #size()} - 1 for the
+     *              newest.
+     * @return The value.
+     */
+    double get(int index) {
+        int start = isFull() ? next : 0;
+        int i = start + index;
+        return values[(i >= values.length) ? i - values.length : i];
+    }
+
+    /**
+     * @return Whether or not the next value that is added will replace one.
+     */
+    boolean isFull() {
+        return size == values.length;
+    }
+
+    /**
+     * @return The number of values in the buffer.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of values the buffer can hold.
+     */
+    int capacity() {
+        return values.length;
+    }
+
+    /**
+     * Remove all the values.
+     */
+    void clear() {
+        next = 0;
+        size = 0;
+    }
+}
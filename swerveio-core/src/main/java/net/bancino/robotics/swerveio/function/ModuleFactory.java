@@ -0,0 +1,22 @@
+package net.bancino.robotics.swerveio.function;
+
+import net.bancino.robotics.swerveio.module.AbstractSwerveModule;
+
+/**
+ * A functional interface that constructs a swerve module. A
+ * {@link net.bancino.robotics.swerveio.SwerveDriveBuilder} calls create() for
+ * each module on a thread of its own, so that the modules are brought up at
+ * the same time. Constructing a module usually talks to its motor controllers,
+ * so a factory should only touch its own module's hardware.
+ * 
+ * @author Jordan Bancino
+ */
+@FunctionalInterface
+public interface ModuleFactory {
+    /**
+     * Construct a swerve module.
+     * 
+     * @return The constructed module. This must not be null.
+     */
+    public AbstractSwerveModule create();
+}
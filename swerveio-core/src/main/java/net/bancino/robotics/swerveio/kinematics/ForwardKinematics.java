@@ -0,0 +1,151 @@
+package net.bancino.robotics.swerveio.kinematics;
+
+import static java.lang.Math.*;
+
+/**
+ * Calculates how the whole robot is moving from how each of its modules is
+ * moving. Because a swerve drive has more modules than the three degrees of
+ * freedom of the chassis, the module vectors generally disagree a little, so
+ * the least-squares solution is found using the pseudo-inverse of the
+ * geometry's kinematics matrix. The pseudo-inverse is precomputed, so solving
+ * is a single loop that allocates nothing.
+ * <p>
+ * Unlike the inverse kinematics used for driving, the rotational component
+ * here is not scaled, so module positions must be given in real units. The
+ * resulting chassis motion is in the same units as the module motion: if
+ * module speeds are in meters per second and positions are in meters, the
+ * chassis speed is in meters per second and the rotation is in radians per
+ * second, counter-clockwise.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public class ForwardKinematics {
+    private final int moduleCount;
+
+    /*
+     * The 3 by 2N pseudo-inverse, in row-major order. The rows produce X, Y and
+     * rotation. Columns 2i and 2i + 1 take the X and Y components of module i.
+     */
+    private final double[] pseudoInverse;
+
+    /**
+     * Create a forward kinematics solver for the given module layout.
+     * 
+     * @param geometry The positions of the modules, in real units.
+     * @throws IllegalArgumentException If the geometry doesn't have enough
+     *                                  distinct modules to determine the
+     *                                  rotation of the robot.
+     */
+    public ForwardKinematics(SwerveGeometry geometry) {
+        moduleCount = geometry.getModuleCount();
+
+        /*
+         * Each module contributes the rows [1, 0, -y] and [0, 1, x] to the
+         * kinematics matrix A. Build the normal matrix (A^T)A from those sums.
+         */
+        double sumX = 0, sumY = 0, sumR2 = 0;
+        for (int i = 0; i < moduleCount; i++) {
+            double x = geometry.getX(i);
+            double y = geometry.getY(i);
+            sumX += x;
+            sumY += y;
+            sumR2 += (x * x) + (y * y);
+        }
+        double[][] normal = { { moduleCount, 0, -sumY }, { 0, moduleCount, sumX }, { -sumY, sumX, sumR2 } };
+        double[][] inverse = invert(normal);
+
+        /* The pseudo-inverse is ((A^T)A)^-1 (A^T). */
+        pseudoInverse = new double[3 * 2 * moduleCount];
+        for (int row = 0; row < 3; row++) {
+            for (int i = 0; i < moduleCount; i++) {
+                int col = row * 2 * moduleCount + 2 * i;
+                pseudoInverse[col] = inverse[row][0] - inverse[row][2] * geometry.getY(i);
+                pseudoInverse[col + 1] = inverse[row][1] + inverse[row][2] * geometry.getX(i);
+            }
+        }
+    }
+
+    /**
+     * Get the number of modules this solver expects values for.
+     * 
+     * @return The module count.
+     */
+    public int getModuleCount() {
+        return moduleCount;
+    }
+
+    /**
+     * Solve for the chassis motion from module vectors.
+     * 
+     * @param vectors The X and Y components of each module's motion, so module i
+     *                is at index 2i and 2i + 1.
+     * @param chassis The array to write the chassis motion into: X, Y and
+     *                counter-clockwise rotation, in that order.
+     */
+    public void toChassis(double[] vectors, double[] chassis) {
+        final double[] m = pseudoInverse;
+        final int cols = moduleCount * 2;
+        for (int row = 0; row < 3; row++) {
+            int offset = row * cols;
+            double sum = 0;
+            for (int col = 0; col < cols; col++) {
+                sum += m[offset + col] * vectors[col];
+            }
+            chassis[row] = sum;
+        }
+    }
+
+    /**
+     * Solve for the chassis motion from module speeds and angles. This is what
+     * the module encoders provide.
+     * 
+     * @param speeds  The speed (or distance travelled) of each module.
+     * @param angles  The angle of each module, in degrees counter-clockwise from
+     *                the front of the robot.
+     * @param chassis The array to write the chassis motion into: X, Y and
+     *                counter-clockwise rotation, in that order.
+     */
+    public void toChassis(double[] speeds, double[] angles, double[] chassis) {
+        final double[] m = pseudoInverse;
+        final int cols = moduleCount * 2;
+        double chassisX = 0, chassisY = 0, chassisRotation = 0;
+        for (int i = 0; i < moduleCount; i++) {
+            double angle = toRadians(angles[i]);
+            double moduleX = speeds[i] * cos(angle);
+            double moduleY = speeds[i] * sin(angle);
+            int col = 2 * i;
+            chassisX += m[col] * moduleX + m[col + 1] * moduleY;
+            chassisY += m[cols + col] * moduleX + m[cols + col + 1] * moduleY;
+            chassisRotation += m[2 * cols + col] * moduleX + m[2 * cols + col + 1] * moduleY;
+        }
+        chassis[0] = chassisX;
+        chassis[1] = chassisY;
+        chassis[2] = chassisRotation;
+    }
+
+    /**
+     * Invert a 3 by 3 matrix using its adjugate.
+     */
+    private static double[][] invert(double[][] a) {
+        double c00 = a[1][1] * a[2][2] - a[1][2] * a[2][1];
+        double c01 = a[1][2] * a[2][0] - a[1][0] * a[2][2];
+        double c02 = a[1][0] * a[2][1] - a[1][1] * a[2][0];
+        double det = a[0][0] * c00 + a[0][1] * c01 + a[0][2] * c02;
+        if (abs(det) < 1e-12) {
+            throw new IllegalArgumentException(
+                    "The module geometry can't determine the robot's rotation. At least two modules must be placed apart.");
+        }
+        double[][] inv = new double[3][3];
+        inv[0][0] = c00 / det;
+        inv[1][0] = c01 / det;
+        inv[2][0] = c02 / det;
+        inv[0][1] = (a[0][2] * a[2][1] - a[0][1] * a[2][2]) / det;
+        inv[1][1] = (a[0][0] * a[2][2] - a[0][2] * a[2][0]) / det;
+        inv[2][1] = (a[0][1] * a[2][0] - a[0][0] * a[2][1]) / det;
+        inv[0][2] = (a[0][1] * a[1][2] - a[0][2] * a[1][1]) / det;
+        inv[1][2] = (a[0][2] * a[1][0] - a[0][0] * a[1][2]) / det;
+        inv[2][2] = (a[0][0] * a[1][1] - a[0][1] * a[1][0]) / det;
+        return inv;
+    }
+}
@@ -0,0 +1,86 @@
+package net.bancino.robotics.swerveio.kinematics;
+
+/**
+ * The position and heading of the robot on the field. This is a simple mutable
+ * holder so that poses can be read repeatedly without allocating; see
+ * {@link PoseSnapshot#read(Pose)}.
+ * <p>
+ * Positions use the field's frame of reference: positive X is straight down
+ * the field from where the pose was last reset, and positive Y is to the left
+ * of that. The heading is measured counter-clockwise from positive X.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public class Pose {
+    private double x;
+    private double y;
+    private double heading;
+    private long timestamp;
+
+    /**
+     * Create a pose at the origin, facing straight down the field.
+     */
+    public Pose() {
+    }
+
+    /**
+     * Create a pose at the given position.
+     * 
+     * @param x       The X position.
+     * @param y       The Y position.
+     * @param heading The heading, in degrees.
+     */
+    public Pose(double x, double y, double heading) {
+        set(x, y, heading, 0);
+    }
+
+    /**
+     * Set all the values of this pose at once.
+     * 
+     * @param x         The X position.
+     * @param y         The Y position.
+     * @param heading   The heading, in degrees.
+     * @param timestamp The value of {@link System#nanoTime()} when this pose was
+     *                  measured.
+     */
+    public void set(double x, double y, double heading, long timestamp) {
+        this.x = x;
+        this.y = y;
+        this.heading = heading;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return The X position, in the same units as the odometry's geometry.
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * @return The Y position, in the same units as the odometry's geometry.
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * @return The heading, in degrees counter-clockwise.
+     */
+    public double getHeading() {
+        return heading;
+    }
+
+    /**
+     * @return The value of {@link System#nanoTime()} when this pose was measured.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "Pose(x=" + x + ", y=" + y + ", heading=" + heading + ")";
+    }
+}
@@ -0,0 +1,65 @@
+package net.bancino.robotics.swerveio.kinematics;
+
+import net.bancino.robotics.swerveio.concurrent.SeqLock;
+
+/**
+ * The most recent pose of the robot, published by a single writer (usually the
+ * odometry thread) and readable from any thread without locking or allocating.
+ * 
+ * @author Jordan Bancino
+ */
+public class PoseSnapshot {
+    private final SeqLock lock = new SeqLock();
+
+    private double x;
+    private double y;
+    private double heading;
+    private long timestamp;
+
+    /**
+     * Publish a new pose. This must only be called from a single thread.
+     * 
+     * @param x         The X position.
+     * @param y         The Y position.
+     * @param heading   The heading, in degrees.
+     * @param timestamp The value of {@link System#nanoTime()} when the pose was
+     *                  measured.
+     */
+    public void publish(double x, double y, double heading, long timestamp) {
+        lock.beginWrite();
+        this.x = x;
+        this.y = y;
+        this.heading = heading;
+        this.timestamp = timestamp;
+        lock.endWrite();
+    }
+
+    /**
+     * Read the latest published pose into the given pose.
+     * 
+     * @param pose The pose to copy the latest values into.
+     * @return The pose that was passed in, for convenience.
+     */
+    public Pose read(Pose pose) {
+        double readX, readY, readHeading;
+        long readTimestamp, seq;
+        do {
+            seq = lock.beginRead();
+            readX = x;
+            readY = y;
+            readHeading = heading;
+            readTimestamp = timestamp;
+        } while (!lock.endRead(seq));
+        pose.set(readX, readY, readHeading, readTimestamp);
+        return pose;
+    }
+
+    /**
+     * Get the number of poses that have been published.
+     * 
+     * @return The number of calls to {@link #publish(double, double, double, long)}.
+     */
+    public long getVersion() {
+        return lock.getVersion();
+    }
+}
@@ -0,0 +1,198 @@
+package net.bancino.robotics.swerveio.kinematics;
+
+/**
+ * The physical layout of the modules on a swerve drive. Each module's position
+ * is given once, relative to the center of rotation of the robot, and an
+ * inverse kinematics matrix is precomputed from those positions so that
+ * converting chassis speeds into module vectors is a single, branch-free loop.
+ * <p>
+ * Positions use the robot's frame of reference: positive X is towards the
+ * front of the robot, and positive Y is towards the left. Like the base
+ * dimensions of the calculator, positions only need to be proportionate to
+ * each other, so any unit may be used.
+ * </p>
+ * <p>
+ * The inverse kinematics matrix has two rows for each module and three
+ * columns, one for each of the FWD, STR and RCW components of the chassis
+ * speed. The rotational column is scaled by the distance of the farthest module
+ * from the center, so that a full RCW input drives the farthest module at full
+ * speed, just like a full FWD or STR input does.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public class SwerveGeometry {
+    private final double[] x;
+    private final double[] y;
+    private final double maxRadius;
+
+    /*
+     * The 2N by 3 inverse kinematics matrix, stored in row-major order. Row 2i is
+     * the FWD component of module i, and row 2i + 1 is its STR component.
+     */
+    private final double[] inverseKinematics;
+
+    /**
+     * Create a geometry from the positions of each module. Modules are identified
+     * by their index in these arrays, which is also the order in which results
+     * are returned.
+     * 
+     * @param x The X position (positive is forward) of each module.
+     * @param y The Y position (positive is left) of each module.
+     */
+    public SwerveGeometry(double[] x, double[] y) {
+        if (x == null || y == null) {
+            throw new IllegalArgumentException("Module positions must not be null.");
+        } else if (x.length != y.length) {
+            throw new IllegalArgumentException(
+                    "Every module must have both an X and Y position: got " + x.length + " X and " + y.length + " Y.");
+        } else if (x.length == 0) {
+            throw new IllegalArgumentException("A swerve drive must have at least one module.");
+        }
+        this.x = x.clone();
+        this.y = y.clone();
+
+        double radius = 0;
+        for (int i = 0; i < x.length; i++) {
+            radius = Math.max(radius, Math.sqrt((x[i] * x[i]) + (y[i] * y[i])));
+        }
+        maxRadius = radius;
+
+        /* If every module is at the center, rotation can't be produced at all. */
+        double scale = (radius == 0) ? 0 : 1 / radius;
+        inverseKinematics = new double[x.length * 6];
+        for (int i = 0; i < x.length; i++) {
+            int row = i * 6;
+            /* FWD component: fwd - rcw * y */
+            inverseKinematics[row] = 1;
+            inverseKinematics[row + 1] = 0;
+            inverseKinematics[row + 2] = -y[i] * scale;
+            /* STR component: str + rcw * x */
+            inverseKinematics[row + 3] = 0;
+            inverseKinematics[row + 4] = 1;
+            inverseKinematics[row + 5] = x[i] * scale;
+        }
+    }
+
+    /**
+     * Create the geometry of a rectangular base with a module in each corner. The
+     * modules are ordered the same way as the
+     * {@link net.bancino.robotics.swerveio.SwerveModule} enumeration: front left,
+     * front right, rear left, rear right.
+     * 
+     * @param baseWidth  The width of the drive base.
+     * @param baseLength The length of the drive base.
+     * @return The geometry of the base.
+     */
+    public static SwerveGeometry rectangle(double baseWidth, double baseLength) {
+        double halfWidth = baseWidth / 2;
+        double halfLength = baseLength / 2;
+        return new SwerveGeometry(new double[] { halfLength, halfLength, -halfLength, -halfLength },
+                new double[] { halfWidth, -halfWidth, halfWidth, -halfWidth });
+    }
+
+    /**
+     * Get the number of modules in this geometry.
+     * 
+     * @return The module count.
+     */
+    public int getModuleCount() {
+        return x.length;
+    }
+
+    /**
+     * Get the X position of a module.
+     * 
+     * @param module The index of the module.
+     * @return The module's position towards the front of the robot.
+     */
+    public double getX(int module) {
+        return x[module];
+    }
+
+    /**
+     * Get the Y position of a module.
+     * 
+     * @param module The index of the module.
+     * @return The module's position towards the left of the robot.
+     */
+    public double getY(int module) {
+        return y[module];
+    }
+
+    /**
+     * Get the distance from the center of rotation to the farthest module. This is
+     * the value the rotational column of the inverse kinematics matrix is scaled
+     * by.
+     * 
+     * @return The largest module radius.
+     */
+    public double getMaxRadius() {
+        return maxRadius;
+    }
+
+    /**
+     * Get the width spanned by the modules, from the leftmost to the rightmost
+     * module.
+     * 
+     * @return The width of the base.
+     */
+    public double getWidth() {
+        return span(y);
+    }
+
+    /**
+     * Get the length spanned by the modules, from the rearmost to the frontmost
+     * module.
+     * 
+     * @return The length of the base.
+     */
+    public double getLength() {
+        return span(x);
+    }
+
+    /**
+     * Get a single element of the inverse kinematics matrix.
+     * 
+     * @param row    The row, which is 2 * module for the FWD component and 2 *
+     *               module + 1 for the STR component.
+     * @param column The column, 0 for FWD, 1 for STR and 2 for RCW.
+     * @return The matrix element.
+     */
+    public double getInverseKinematics(int row, int column) {
+        if (column < 0 || column > 2) {
+            throw new IndexOutOfBoundsException("Column must be between 0 and 2: " + column);
+        }
+        return inverseKinematics[(row * 3) + column];
+    }
+
+    /**
+     * Convert chassis speeds into a vector for each module. The results are
+     * written into the given array as pairs of FWD and STR components, so module i
+     * is at index 2i and 2i + 1. Nothing is allocated.
+     * 
+     * @param fwd     The Y degree (from an input device)
+     * @param str     The X degree (from an input device)
+     * @param rcw     The Z degree (from an input device)
+     * @param vectors The array to write the module vectors into. This must hold at
+     *                least twice as many values as there are modules.
+     */
+    public void toModuleVectors(double fwd, double str, double rcw, double[] vectors) {
+        final double[] m = inverseKinematics;
+        final int rows = x.length * 2;
+        for (int row = 0; row < rows; row++) {
+            int i = row * 3;
+            vectors[row] = (m[i] * fwd) + (m[i + 1] * str) + (m[i + 2] * rcw);
+        }
+    }
+
+    private static double span(double[] values) {
+        double min = values[0];
+        double max = values[0];
+        for (double value : values) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        return max - min;
+    }
+}
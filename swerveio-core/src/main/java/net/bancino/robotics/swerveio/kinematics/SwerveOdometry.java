@@ -0,0 +1,253 @@
+package net.bancino.robotics.swerveio.kinematics;
+
+import java.util.function.DoubleSupplier;
+
+import net.bancino.robotics.swerveio.SwerveDriveCalculator;
+import net.bancino.robotics.swerveio.concurrent.PeriodicThread;
+import net.bancino.robotics.swerveio.module.AbstractSwerveModule;
+
+import static java.lang.Math.*;
+
+/**
+ * Tracks the pose of the robot by integrating how far each module has driven
+ * and which way it was pointed. Each update reads the module encoders, solves
+ * for the motion of the chassis with {@link ForwardKinematics}, and integrates
+ * that motion along an arc (the pose exponential), which is much more accurate
+ * than integrating it as a straight line when the robot is turning.
+ * <p>
+ * Odometry can be updated from the control loop by calling {@link #update()},
+ * or on its own thread at a higher rate with {@link #start(double)}. Either
+ * way, only one thread may update it. The latest pose is published through a
+ * {@link PoseSnapshot}, which any thread can read without locking.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public class SwerveOdometry implements Runnable {
+    private final ForwardKinematics kinematics;
+    private final AbstractSwerveModule[] modules;
+    private final double countsPerPivotRevolution;
+    private final double distancePerDriveCount;
+    private final PoseSnapshot snapshot = new PoseSnapshot();
+
+    private DoubleSupplier gyro;
+
+    /* Separate from this object's lock, which updates take to apply resets. */
+    private final Object threadLock = new Object();
+    private volatile PeriodicThread thread;
+
+    /* State that belongs to the updating thread. */
+    private final double[] lastDrivePositions;
+    private final double[] distances;
+    private final double[] angles;
+    private final double[] twist = new double[3];
+    private boolean initialized = false;
+    private double x, y, heading, lastGyroAngle;
+
+    /* A reset requested by another thread, applied on the next update. */
+    private volatile boolean resetRequested = false;
+    private double resetX, resetY, resetHeading;
+
+    /**
+     * Create an odometry tracker.
+     * 
+     * @param geometry                 The positions of the modules, in the units
+     *                                 the pose should be in.
+     * @param modules                  The modules, in the same order as the
+     *                                 geometry.
+     * @param countsPerPivotRevolution The number of counts it takes to rotate the
+     *                                 module a full 360 degrees.
+     * @param distancePerDriveCount    How far the robot travels for each count on
+     *                                 the drive encoder, in the units of the
+     *                                 geometry.
+     */
+    public SwerveOdometry(SwerveGeometry geometry, AbstractSwerveModule[] modules, double countsPerPivotRevolution,
+            double distancePerDriveCount) {
+        if (modules == null || modules.length != geometry.getModuleCount()) {
+            throw new IllegalArgumentException("A module must be provided for every position in the geometry.");
+        }
+        this.kinematics = new ForwardKinematics(geometry);
+        this.modules = modules.clone();
+        this.countsPerPivotRevolution = countsPerPivotRevolution;
+        this.distancePerDriveCount = distancePerDriveCount;
+        lastDrivePositions = new double[modules.length];
+        distances = new double[modules.length];
+        angles = new double[modules.length];
+    }
+
+    /**
+     * Use a gyro for the heading instead of the heading calculated from the
+     * modules. The gyro is usually much more accurate, because wheels slip when
+     * the robot turns. This should be set before odometry is started.
+     * 
+     * @param gyro A supplier of the gyro angle, in degrees counter-clockwise. Pass
+     *             null to go back to using the modules.
+     */
+    public void setGyro(DoubleSupplier gyro) {
+        this.gyro = gyro;
+        this.initialized = false;
+    }
+
+    /**
+     * Reset the pose of the robot. This is safe to call from any thread, and takes
+     * effect on the next update.
+     * 
+     * @param x       The new X position.
+     * @param y       The new Y position.
+     * @param heading The new heading, in degrees counter-clockwise.
+     */
+    public synchronized void resetPose(double x, double y, double heading) {
+        resetX = x;
+        resetY = y;
+        resetHeading = heading;
+        resetRequested = true;
+    }
+
+    /**
+     * Read the module encoders and integrate the motion since the last update.
+     * This must only be called from one thread.
+     */
+    public void update() {
+        long now = System.nanoTime();
+        for (int i = 0; i < modules.length; i++) {
+            double drivePosition = modules[i].getDriveMotorEncoder();
+            distances[i] = (drivePosition - lastDrivePositions[i]) * distancePerDriveCount;
+            lastDrivePositions[i] = drivePosition;
+            angles[i] = SwerveDriveCalculator.convertToDegrees(modules[i].getPivotMotorEncoder(),
+                    countsPerPivotRevolution);
+        }
+        double gyroAngle = (gyro != null) ? toRadians(gyro.getAsDouble()) : 0;
+        if (!initialized) {
+            /* There is nothing to integrate against yet. */
+            lastGyroAngle = gyroAngle;
+            initialized = true;
+        } else {
+            kinematics.toChassis(distances, angles, twist);
+            if (gyro != null) {
+                twist[2] = gyroAngle - lastGyroAngle;
+                lastGyroAngle = gyroAngle;
+            }
+            integrate(twist[0], twist[1], twist[2]);
+        }
+        if (resetRequested) {
+            synchronized (this) {
+                x = resetX;
+                y = resetY;
+                heading = toRadians(resetHeading);
+                resetRequested = false;
+            }
+        }
+        snapshot.publish(x, y, toDegrees(heading), now);
+    }
+
+    /**
+     * Update the odometry. This is the same as calling {@link #update()}, so that
+     * odometry can be scheduled as a task.
+     */
+    @Override
+    public void run() {
+        update();
+    }
+
+    /**
+     * Start updating the odometry on its own thread. Once this is called,
+     * {@link #update()} must not be called from anywhere else.
+     * 
+     * @param hz How many times per second to update the odometry.
+     */
+    public void start(double hz) {
+        synchronized (threadLock) {
+            if (thread == null) {
+                thread = new PeriodicThread("SwerveIO Odometry", this, hz, Thread.NORM_PRIORITY + 2);
+                thread.start();
+            }
+        }
+    }
+
+    /**
+     * Stop the odometry thread, if it was started. This waits for an update in
+     * progress to finish, so the odometry can be started again right away.
+     */
+    public void stop() {
+        synchronized (threadLock) {
+            if (thread != null) {
+                thread.stop();
+                thread = null;
+            }
+        }
+    }
+
+    /**
+     * Get the number of updates on the odometry thread that threw an exception
+     * since it was last started.
+     * 
+     * @return The number of errors, or 0 if the thread isn't running.
+     */
+    public long getErrors() {
+        PeriodicThread current = thread;
+        return (current != null) ? current.getErrors() : 0;
+    }
+
+    /**
+     * Get the last exception or error thrown by an update on the odometry thread
+     * since it was last started.
+     * 
+     * @return The last error, or null if there hasn't been one.
+     */
+    public Throwable getLastError() {
+        PeriodicThread current = thread;
+        return (current != null) ? current.getLastError() : null;
+    }
+
+    /**
+     * Get the snapshot that the latest pose is published to.
+     * 
+     * @return The pose snapshot, which can be read from any thread.
+     */
+    public PoseSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Read the latest pose into the given pose. This doesn't allocate.
+     * 
+     * @param pose The pose to copy the latest values into.
+     * @return The pose that was passed in, for convenience.
+     */
+    public Pose getPose(Pose pose) {
+        return snapshot.read(pose);
+    }
+
+    /**
+     * Get the latest pose. This allocates a new pose; use
+     * {@link #getPose(Pose)} in loops.
+     * 
+     * @return The latest pose.
+     */
+    public Pose getPose() {
+        return snapshot.read(new Pose());
+    }
+
+    /**
+     * Integrate a motion in the robot's frame of reference onto the pose, along
+     * the arc that the robot travelled.
+     */
+    private void integrate(double dx, double dy, double dTheta) {
+        double s, c;
+        if (abs(dTheta) < 1e-9) {
+            /* Use the Taylor series to avoid dividing by zero. */
+            s = 1.0 - (dTheta * dTheta) / 6.0;
+            c = dTheta / 2.0;
+        } else {
+            s = sin(dTheta) / dTheta;
+            c = (1 - cos(dTheta)) / dTheta;
+        }
+        double robotX = dx * s - dy * c;
+        double robotY = dx * c + dy * s;
+        double cosHeading = cos(heading);
+        double sinHeading = sin(heading);
+        x += robotX * cosHeading - robotY * sinHeading;
+        y += robotX * sinHeading + robotY * cosHeading;
+        heading += dTheta;
+    }
+}
@@ -0,0 +1,393 @@
+package net.bancino.robotics.swerveio.module;
+
+import net.bancino.robotics.swerveio.SwerveImplementationException;
+import net.bancino.robotics.swerveio.encoder.EncoderSampler;
+import net.bancino.robotics.swerveio.pid.PidBank;
+
+/**
+ * A swerve module definition that swerve drive implementations should use to
+ * drive a module. These methods should be standardized and implemented
+ * similarly across variations in motor controllers and motors. This class is
+ * the sole abstraction layer between the hardware-specific API and the SwerveIO
+ * API.
+ * 
+ * @author Jordan Bancino
+ * @author Ethan Snyder
+ */
+public interface AbstractSwerveModule {
+
+    /**
+     * Set the speed of the pivot motor. A negative value is the reverse direction.
+     * 
+     * @param speed The speed to set the motor to.
+     */
+    public void setPivotMotorSpeed(double speed);
+
+    /**
+     * Set the speed of the drive motor. A negative value is the reverse direction.
+     * 
+     * @param speed The speed to set the motor to.
+     */
+    public void setDriveMotorSpeed(double speed);
+
+    /**
+     * Get the currently set speed of the pivot motor.
+     * 
+     * @return The speed of the motor.
+     */
+    public double getPivotMotorSpeed();
+
+    /**
+     * Get the currently set speed of the drive motor.
+     * 
+     * @return The speed of the motor.
+     */
+    public double getDriveMotorSpeed();
+
+    /**
+     * Get an encoder reading from the pivot motor.
+     * 
+     * @return A raw encoder reading.
+     */
+    public double getPivotMotorEncoder();
+
+    /**
+     * Get an encoder reading from the drive motor.
+     * 
+     * @return A raw encoder reading.
+     */
+    public double getDriveMotorEncoder();
+
+    /**
+     * Zero the pivot encoder.
+     */
+    public void zeroPivotEncoder();
+
+    /**
+     * Zero the drive encoder.
+     */
+    public void zeroDriveEncoder();
+
+    /**
+     * Stop the pivot motor.
+     */
+    public void stopPivotMotor();
+
+    /**
+     * Stop the drive motor.
+     */
+    public void stopDriveMotor();
+
+    /**
+     * Sets the closed loop ramp rate for the pivot motor.
+     * 
+     * @param rate Time in seconds to go from 0 to full throttle.
+     */
+    public void setPivotClosedLoopRampRate(double rate);
+
+    /**
+     * Sets the open loop ramp rate for the pivot motor.
+     * 
+     * @param rate Time in seconds to go from 0 to full throttle.
+     */
+    public void setPivotOpenLoopRampRate(double rate);
+
+    /**
+     * Sets the closed loop ramp rate for the drive motor.
+     * 
+     * @param rate Time in seconds to go from 0 to full throttle.
+     */
+    public void setDriveClosedLoopRampRate(double rate);
+
+    /**
+     * Sets the open loop ramp rate for the drive motor.
+     * 
+     * @param rate Time in seconds to go from 0 to full throttle.
+     */
+    public void setDriveOpenLoopRampRate(double rate);
+
+    /**
+     * Set the drive motor to the given reference. This should act as the interface
+     * for a closed-loop position control. PID constants should be placed in the
+     * actual implementation of the module.
+     * 
+     * @param ref The reference to set for closed loop control.
+     */
+    public void setDriveReference(double ref);
+
+    /**
+     * Set the pivot motor to the given reference. This should act as the interface
+     * for a closed-loop position control. PID constants should be placed in the
+     * actual implementation of the module.
+     * 
+     * @param ref The reference to set for closed loop control.
+     */
+    public void setPivotReference(double ref);
+
+    /**
+     * Set the pivot motor to the given reference, given the pivot encoder reading
+     * that the reference was calculated from. Modules that calculate the pivot
+     * PID themselves should use this reading rather than reading the encoder
+     * again, which would cost another round trip and advance a filtered encoder
+     * twice in one loop. By default, the reading is ignored.
+     * 
+     * @param ref      The reference to set for closed loop control.
+     * @param position The reading of {@link #getPivotMotorEncoder()} that the
+     *                 reference was calculated from.
+     */
+    public default void setPivotReference(double ref, double position) {
+        setPivotReference(ref);
+    }
+
+    /**
+     * Set the proportional gain of the PID loop coefficient. (The motor will
+     * correct itself proportional to the offset of the measure compared to its
+     * targeted measure.) It's only weakness will be when it treats positive and
+     * negative offset equally, otherwise it narrows error to 0.
+     * 
+     * @param gain Proportional gain value. Must be positive.
+     */
+    public void setPivotPidP(double gain);
+
+    public void setDrivePidP(double gain);
+
+    /**
+     * Set the integral gain of the PID loop coefficient. (The motor will correct
+     * itself based on past errors and integrates the history of offset to narrow
+     * error down to 0.) The downside of using a purely integral system is that it's
+     * slow to start, as it takes time to accumulate enough information to
+     * accurately form it's coefficient.
+     * 
+     * @param gain Integral gain value. Must be positive.
+     */
+    public void setPivotPidI(double gain);
+
+    public void setDrivePidI(double gain);
+
+    /**
+     * Set the derivative gain of the PID loop coefficient. (The motor will correct
+     * error based on it's rate of change, not seeking to bring the error to 0, but
+     * seeking to keep the error that the system is stable.) A derivative loop will
+     * never bring your error to 0, but will simply keep your error from growing
+     * larger by catching any change and correcting it.
+     * 
+     * @param gain Derivative gain value. Must be positive.
+     */
+    public void setPivotPidD(double gain);
+
+    public void setDrivePidD(double gain);
+
+    /**
+     * Sets the range of error allowed in the PID loop for the integral factor to
+     * disable. This will prevent the integral loop from continuing to integrate
+     * error when the error is too close to 0 to matter.
+     * 
+     * @param iZone IZone value. Must be positive, or set to 0 to disable.
+     */
+    public void setPivotPidIZone(double iZone);
+
+    public void setDrivePidIZone(double iZone);
+
+    /**
+     * Sets the priority held in feed-forward augment. In a closed loop system, the
+     * feed-forward predicts the outcome of the next output from the motor
+     * controllers for better error correcting accuracy.
+     * 
+     * @param gain Feed-forward gain value. Must be positive.
+     */
+    public void setPivotPidFF(double gain);
+
+    public void setDrivePidFF(double gain);
+
+    /**
+     * Set the output limits of the pivot PID controller.
+     * 
+     * @param min The minimum value the PID should output.
+     * @param max The maximum value the PID should output.
+     */
+    public void setPivotPidOutputLimits(double min, double max);
+
+    /**
+     * Limit how far the pivot PID's setpoint can be from the current position.
+     * Large moves are then taken at the speed that a move of this size would be,
+     * which lets gains tuned for small moves work for large ones too. Not every
+     * module supports this.
+     * 
+     * @param range The range, in pivot encoder counts, or 0 to disable.
+     * @throws SwerveImplementationException If the module doesn't support a
+     *                                       setpoint range.
+     */
+    public default void setPivotPidSetpointRange(double range) throws SwerveImplementationException {
+        throw new SwerveImplementationException(getClass().getName() + " does not support a pivot setpoint range.");
+    }
+
+    /**
+     * Set the output limits of the drive PID controller.
+     * 
+     * @param min The minimum value the PID should output.
+     * @param max The maximum value the PID should output.
+     */
+    public void setDrivePidOutputLimits(double min, double max);
+
+    /**
+     * Drive the wheel at a velocity, using a closed velocity loop. The
+     * feed-forward voltage is added to the output of the loop, so that the loop
+     * only has to correct for what the feed-forward gets wrong. Not every module
+     * supports this.
+     * 
+     * @param velocity    The velocity, in drive encoder counts per second.
+     * @param feedforward The feed-forward voltage, in volts. See
+     *                    {@link net.bancino.robotics.swerveio.pid.Feedforward}.
+     * @throws SwerveImplementationException If the module doesn't support
+     *                                       velocity control.
+     */
+    public default void setDriveVelocity(double velocity, double feedforward) throws SwerveImplementationException {
+        throw new SwerveImplementationException(getClass().getName() + " does not support velocity control.");
+    }
+
+    /**
+     * Get the velocity the wheel is driving at.
+     * 
+     * @return The velocity, in drive encoder counts per second.
+     * @throws SwerveImplementationException If the module doesn't support
+     *                                       velocity control.
+     */
+    public default double getDriveVelocity() throws SwerveImplementationException {
+        throw new SwerveImplementationException(getClass().getName() + " does not support velocity control.");
+    }
+
+    /**
+     * Set the proportional gain of the drive velocity loop. This is separate from
+     * the drive PID used by {@link #setDriveReference(double)}.
+     * 
+     * @param gain Proportional gain value. Must be positive.
+     * @throws SwerveImplementationException If the module doesn't support
+     *                                       velocity control.
+     */
+    public default void setDriveVelocityPidP(double gain) throws SwerveImplementationException {
+        throw new SwerveImplementationException(getClass().getName() + " does not support velocity control.");
+    }
+
+    /**
+     * Set the integral gain of the drive velocity loop.
+     * 
+     * @param gain Integral gain value. Must be positive.
+     * @throws SwerveImplementationException If the module doesn't support
+     *                                       velocity control.
+     */
+    public default void setDriveVelocityPidI(double gain) throws SwerveImplementationException {
+        throw new SwerveImplementationException(getClass().getName() + " does not support velocity control.");
+    }
+
+    /**
+     * Set the derivative gain of the drive velocity loop.
+     * 
+     * @param gain Derivative gain value. Must be positive.
+     * @throws SwerveImplementationException If the module doesn't support
+     *                                       velocity control.
+     */
+    public default void setDriveVelocityPidD(double gain) throws SwerveImplementationException {
+        throw new SwerveImplementationException(getClass().getName() + " does not support velocity control.");
+    }
+
+    /**
+     * Read the current value of a setting back from the module's controllers, so
+     * that a {@link ModuleConfiguration} can skip pushing settings that already
+     * match. Modules that can't read a setting back return NaN, which is the
+     * default, and the setting is always pushed.
+     * 
+     * @param parameter The setting to read.
+     * @return The current value of the setting, or NaN if it can't be read.
+     */
+    public default double readParameter(ModuleParameter parameter) {
+        return Double.NaN;
+    }
+
+    /**
+     * Save the current settings of the module's controllers to their flash, so
+     * that they are kept when the controllers lose power. Modules that don't
+     * have flash do nothing, which is the default.
+     * 
+     * @return Whether or not anything was saved.
+     */
+    public default boolean burnFlash() {
+        return false;
+    }
+
+    /**
+     * Estimate how many CAN frames this module puts on the bus each second. This
+     * counts the status frames its motor controllers send periodically, and the
+     * frames sent to command them. Modules that don't use the CAN bus, or don't
+     * know, return 0, which is the default.
+     * 
+     * @param commandHz How many times per second the module is commanded, which
+     *                  is usually the rate of the robot loop.
+     * @return The estimated CAN frames per second.
+     */
+    public default double getCanFramesPerSecond(double commandHz) {
+        return 0;
+    }
+
+    /**
+     * Stop the entire module, this just calls the stop function for each motor.
+     */
+    public default void stop() {
+        stopPivotMotor();
+        stopDriveMotor();
+    }
+
+    /**
+     * Zero all the encoders by calling the zero functions for both the drive and
+     * pivot motors.
+     */
+    public default void zero() {
+        zeroPivotEncoder();
+        zeroDriveEncoder();
+    }
+
+    /**
+     * Reset this module by stopping all motors and resetting all the encoders.
+     */
+    public default void reset() {
+        stop();
+        zero();
+    }
+
+    /**
+     * Have the given sampler read this module's encoders in the background. From
+     * then on, encoder readings return the latest sample instead of reading the
+     * hardware. This should be done before the module is driven. By default,
+     * modules are not sampled and keep reading their encoders directly.
+     * 
+     * @param sampler The sampler to register the encoders with.
+     */
+    public default void sampleEncoders(EncoderSampler sampler) {
+        /* Modules that can be sampled override this. */
+    }
+
+    /**
+     * Move this module's pivot PID into a slot of a shared PID bank, so that the
+     * pivots of all the modules can be calculated in one loop. The current
+     * settings and state of the pivot PID are copied into the slot, and from then
+     * on the pivot PID setters configure the slot. By default, modules keep their
+     * own pivot PID and this returns false.
+     * 
+     * @param bank The bank to use.
+     * @param slot The slot in the bank for this module's pivot PID.
+     * @return Whether or not this module now uses the bank.
+     */
+    public default boolean usePivotPidBank(PidBank bank, int slot) {
+        return false;
+    }
+
+    /**
+     * Apply a pivot output that was calculated by this module's slot in a PID
+     * bank, the same way {@link #setPivotReference(double)} would have applied
+     * it. This is only called on modules that accepted a bank.
+     * 
+     * @param output The output of the pivot PID.
+     */
+    public default void setPivotPidOutput(double output) {
+        setPivotMotorSpeed(output);
+    }
+}
@@ -0,0 +1,372 @@
+package net.bancino.robotics.swerveio.module;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import net.bancino.robotics.swerveio.SwerveImplementationException;
+import net.bancino.robotics.swerveio.function.ModuleModifier;
+
+/**
+ * A declarative set of module settings, which is applied to all the modules of
+ * a swerve drive at once. Instead of calling a setter for each setting on each
+ * module, which on CAN motor controllers is a blocking round trip every time,
+ * the settings are described here and applied as efficiently as possible:
+ * <ul>
+ * <li>Only parameters that differ from what the module reports with
+ * {@link AbstractSwerveModule#readParameter(ModuleParameter)} are pushed.
+ * Parameters that a module can't read back are always pushed.</li>
+ * <li>All the modules are configured in parallel, one thread per module.</li>
+ * <li>Once the settings are pushed, they are read back in the background to
+ * verify that the controllers took them.</li>
+ * <li>Optionally, the settings are burned into the controllers' flash, so that
+ * on later boots they already match and nothing needs to be pushed at
+ * all.</li>
+ * </ul>
+ * <p>
+ * A configuration is a {@link ModuleModifier}, so it can be passed straight to
+ * a swerve drive, which recognizes it and applies it to all the modules in
+ * parallel. It can also be applied by hand with
+ * {@link #applyAll(AbstractSwerveModule[])}.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public class ModuleConfiguration implements ModuleModifier {
+
+    /* Controllers often store settings as floats, so allow for rounding. */
+    private static final double TOLERANCE = 1e-6;
+
+    private static final ModuleParameter[] PARAMETERS = ModuleParameter.values();
+
+    /* Runs the background verification on a daemon thread of its own. */
+    private static final Executor VERIFIER = (task) -> {
+        Thread thread = new Thread(task, "SwerveIO Configuration Verifier");
+        thread.setDaemon(true);
+        thread.start();
+    };
+
+    private final double[] values = new double[PARAMETERS.length];
+    private final boolean[] isSet = new boolean[PARAMETERS.length];
+    private boolean burnFlash = false;
+    private volatile CompletableFuture<List<String>> verification;
+
+    /**
+     * Create an empty configuration, which doesn't change anything.
+     */
+    public ModuleConfiguration() {
+
+    }
+
+    /**
+     * Set a parameter. Parameters that are never set are left alone.
+     * 
+     * @param parameter The parameter to set.
+     * @param value     The value to set it to.
+     */
+    public synchronized void set(ModuleParameter parameter, double value) {
+        if (parameter == null) {
+            throw new IllegalArgumentException("Parameter must not be null.");
+        }
+        values[parameter.ordinal()] = value;
+        isSet[parameter.ordinal()] = true;
+    }
+
+    /**
+     * Get the value of a parameter.
+     * 
+     * @param parameter The parameter.
+     * @return The value it is set to, or NaN if it isn't set.
+     */
+    public synchronized double get(ModuleParameter parameter) {
+        return isSet[parameter.ordinal()] ? values[parameter.ordinal()] : Double.NaN;
+    }
+
+    /**
+     * Stop setting a parameter.
+     * 
+     * @param parameter The parameter to leave alone.
+     */
+    public synchronized void unset(ModuleParameter parameter) {
+        isSet[parameter.ordinal()] = false;
+    }
+
+    /**
+     * Set whether or not the settings are burned into the controllers' flash
+     * after they are pushed. Flash is only burned on modules where a setting that
+     * can be read back had to be pushed, so a module whose flash already matches
+     * is left alone.
+     * Flash has a limited number of writes, so this is off by default.
+     * 
+     * @param burnFlash Whether or not to burn the settings into flash.
+     */
+    public synchronized void setBurnFlash(boolean burnFlash) {
+        this.burnFlash = burnFlash;
+    }
+
+    /**
+     * Apply this configuration to a single module, on the calling thread. The
+     * result isn't verified.
+     * 
+     * @param module The module to configure.
+     */
+    @Override
+    public void modify(AbstractSwerveModule module) {
+        apply(module);
+    }
+
+    /**
+     * Apply this configuration to a single module, on the calling thread.
+     * 
+     * @param module The module to configure.
+     * @return The number of parameters that were pushed to the module.
+     * @throws SwerveImplementationException If the module doesn't support one of
+     *                                       the parameters.
+     */
+    public int apply(AbstractSwerveModule module) throws SwerveImplementationException {
+        double[] values;
+        boolean[] isSet;
+        boolean burnFlash;
+        synchronized (this) {
+            values = this.values.clone();
+            isSet = this.isSet.clone();
+            burnFlash = this.burnFlash;
+        }
+        checkPairs(isSet, ModuleParameter.PIVOT_OUTPUT_MIN, ModuleParameter.PIVOT_OUTPUT_MAX);
+        checkPairs(isSet, ModuleParameter.DRIVE_OUTPUT_MIN, ModuleParameter.DRIVE_OUTPUT_MAX);
+
+        boolean[] push = new boolean[PARAMETERS.length];
+        /* Whether a setting that the controller keeps, and so could be in flash, changed. */
+        boolean flashStale = false;
+        for (ModuleParameter parameter : PARAMETERS) {
+            int i = parameter.ordinal();
+            if (isSet[i]) {
+                double current = module.readParameter(parameter);
+                push[i] = !matches(current, values[i]);
+                flashStale |= push[i] && !Double.isNaN(current);
+            }
+        }
+        /* The limits are pushed together, so if either differs, both are pushed. */
+        pushPair(push, ModuleParameter.PIVOT_OUTPUT_MIN, ModuleParameter.PIVOT_OUTPUT_MAX);
+        pushPair(push, ModuleParameter.DRIVE_OUTPUT_MIN, ModuleParameter.DRIVE_OUTPUT_MAX);
+        int pushed = 0;
+        for (ModuleParameter parameter : PARAMETERS) {
+            if (push[parameter.ordinal()]) {
+                push(module, parameter, values);
+                pushed++;
+            }
+        }
+        if (flashStale && burnFlash) {
+            module.burnFlash();
+        }
+        return pushed;
+    }
+
+    /**
+     * Apply this configuration to all the modules in parallel, and then verify it
+     * in the background. See {@link #getVerification()}.
+     * 
+     * @param modules The modules to configure.
+     * @return The number of parameters pushed to each module, indexed like the
+     *         modules.
+     * @throws SwerveImplementationException If any of the modules couldn't be
+     *                                       configured, including if one threw an
+     *                                       error. The other modules are still
+     *                                       configured, and the first failure is
+     *                                       the cause.
+     */
+    public int[] applyAll(AbstractSwerveModule[] modules) throws SwerveImplementationException {
+        synchronized (this) {
+            checkPairs(isSet, ModuleParameter.PIVOT_OUTPUT_MIN, ModuleParameter.PIVOT_OUTPUT_MAX);
+            checkPairs(isSet, ModuleParameter.DRIVE_OUTPUT_MIN, ModuleParameter.DRIVE_OUTPUT_MAX);
+        }
+        int[] pushed = new int[modules.length];
+        Throwable[] failures = new Throwable[modules.length];
+        Thread[] threads = new Thread[modules.length];
+        for (int i = 0; i < modules.length; i++) {
+            final int module = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    pushed[module] = apply(modules[module]);
+                } catch (Throwable e) {
+                    /* Errors too, like a vendor library that failed to link, or the module looks configured. */
+                    failures[module] = e;
+                }
+            }, "SwerveIO Configuration " + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SwerveImplementationException("Interrupted while configuring the modules.");
+            }
+        }
+
+        StringBuilder failed = new StringBuilder("The following modules could not be configured:");
+        Throwable firstFailure = null;
+        for (int i = 0; i < modules.length; i++) {
+            Throwable failure = failures[i];
+            if (failure != null) {
+                String reason = (failure instanceof SwerveImplementationException) ? failure.getMessage()
+                        : failure.toString();
+                failed.append(" [").append(i).append(": ").append(reason).append("]");
+                if (firstFailure == null) {
+                    firstFailure = failure;
+                }
+            }
+        }
+        verify(modules);
+        if (firstFailure != null) {
+            SwerveImplementationException e = new SwerveImplementationException(failed.toString());
+            e.initCause(firstFailure);
+            throw e;
+        }
+        return pushed;
+    }
+
+    /**
+     * Read back the settings of all the modules in the background, and compare
+     * them with this configuration. Parameters that a module can't read back are
+     * not checked.
+     * 
+     * @param modules The modules to check.
+     * @return A future that completes with a description of each setting that
+     *         didn't match. It is empty if everything matched.
+     */
+    public CompletableFuture<List<String>> verify(AbstractSwerveModule[] modules) {
+        double[] values;
+        boolean[] isSet;
+        synchronized (this) {
+            values = this.values.clone();
+            isSet = this.isSet.clone();
+        }
+        AbstractSwerveModule[] checked = modules.clone();
+        CompletableFuture<List<String>> started = CompletableFuture.supplyAsync(() -> {
+            List<String> mismatches = new ArrayList<>();
+            for (int m = 0; m < checked.length; m++) {
+                for (ModuleParameter parameter : PARAMETERS) {
+                    int i = parameter.ordinal();
+                    if (!isSet[i]) {
+                        continue;
+                    }
+                    double actual = checked[m].readParameter(parameter);
+                    if (!Double.isNaN(actual) && !matches(actual, values[i])) {
+                        mismatches.add("Module " + m + ": " + parameter + " is " + actual + ", but should be "
+                                + values[i] + ".");
+                    }
+                }
+            }
+            return mismatches;
+        }, VERIFIER);
+        verification = started;
+        return started;
+    }
+
+    /**
+     * Get the background verification started by the last call to
+     * {@link #applyAll(AbstractSwerveModule[])} or
+     * {@link #verify(AbstractSwerveModule[])}.
+     * 
+     * @return The verification, or null if this configuration hasn't been
+     *         applied to all the modules yet.
+     */
+    public CompletableFuture<List<String>> getVerification() {
+        return verification;
+    }
+
+    /**
+     * Whether or not a value read back from a module matches what it was set to.
+     * NaN means the module can't read it back, so it never matches.
+     */
+    private static boolean matches(double actual, double expected) {
+        return !Double.isNaN(actual) && Math.abs(actual - expected) <= TOLERANCE * Math.max(1, Math.abs(expected));
+    }
+
+    private static void checkPairs(boolean[] isSet, ModuleParameter min, ModuleParameter max) {
+        if (isSet[min.ordinal()] != isSet[max.ordinal()]) {
+            throw new IllegalStateException(min + " and " + max + " must be set together.");
+        }
+    }
+
+    private static void pushPair(boolean[] push, ModuleParameter min, ModuleParameter max) {
+        boolean either = push[min.ordinal()] || push[max.ordinal()];
+        push[min.ordinal()] = either;
+        push[max.ordinal()] = either;
+    }
+
+    /**
+     * Call the module setter for a parameter. The output limits are set when the
+     * minimum comes up, and skipped for the maximum.
+     */
+    private static void push(AbstractSwerveModule module, ModuleParameter parameter, double[] values) {
+        double value = values[parameter.ordinal()];
+        switch (parameter) {
+        case PIVOT_P:
+            module.setPivotPidP(value);
+            break;
+        case PIVOT_I:
+            module.setPivotPidI(value);
+            break;
+        case PIVOT_D:
+            module.setPivotPidD(value);
+            break;
+        case PIVOT_FF:
+            module.setPivotPidFF(value);
+            break;
+        case PIVOT_IZONE:
+            module.setPivotPidIZone(value);
+            break;
+        case PIVOT_OUTPUT_MIN:
+            module.setPivotPidOutputLimits(value, values[ModuleParameter.PIVOT_OUTPUT_MAX.ordinal()]);
+            break;
+        case PIVOT_SETPOINT_RANGE:
+            module.setPivotPidSetpointRange(value);
+            break;
+        case PIVOT_CLOSED_LOOP_RAMP_RATE:
+            module.setPivotClosedLoopRampRate(value);
+            break;
+        case PIVOT_OPEN_LOOP_RAMP_RATE:
+            module.setPivotOpenLoopRampRate(value);
+            break;
+        case DRIVE_P:
+            module.setDrivePidP(value);
+            break;
+        case DRIVE_I:
+            module.setDrivePidI(value);
+            break;
+        case DRIVE_D:
+            module.setDrivePidD(value);
+            break;
+        case DRIVE_FF:
+            module.setDrivePidFF(value);
+            break;
+        case DRIVE_IZONE:
+            module.setDrivePidIZone(value);
+            break;
+        case DRIVE_OUTPUT_MIN:
+            module.setDrivePidOutputLimits(value, values[ModuleParameter.DRIVE_OUTPUT_MAX.ordinal()]);
+            break;
+        case DRIVE_CLOSED_LOOP_RAMP_RATE:
+            module.setDriveClosedLoopRampRate(value);
+            break;
+        case DRIVE_OPEN_LOOP_RAMP_RATE:
+            module.setDriveOpenLoopRampRate(value);
+            break;
+        case DRIVE_VELOCITY_P:
+            module.setDriveVelocityPidP(value);
+            break;
+        case DRIVE_VELOCITY_I:
+            module.setDriveVelocityPidI(value);
+            break;
+        case DRIVE_VELOCITY_D:
+            module.setDriveVelocityPidD(value);
+            break;
+        default:
+            /* The maximum output limits are set along with the minimums. */
+            break;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package net.bancino.robotics.swerveio.module;
+
+/**
+ * A setting of a swerve module that can be configured with a
+ * {@link ModuleConfiguration}. Each parameter corresponds to one of the setters
+ * on {@link AbstractSwerveModule}. The output limits are split into a minimum
+ * and a maximum, which must be configured together.
+ * 
+ * @author Jordan Bancino
+ */
+public enum ModuleParameter {
+    /** See {@link AbstractSwerveModule#setPivotPidP(double)}. */
+    PIVOT_P,
+    /** See {@link AbstractSwerveModule#setPivotPidI(double)}. */
+    PIVOT_I,
+    /** See {@link AbstractSwerveModule#setPivotPidD(double)}. */
+    PIVOT_D,
+    /** See {@link AbstractSwerveModule#setPivotPidFF(double)}. */
+    PIVOT_FF,
+    /** See {@link AbstractSwerveModule#setPivotPidIZone(double)}. */
+    PIVOT_IZONE,
+    /** See {@link AbstractSwerveModule#setPivotPidOutputLimits(double, double)}. */
+    PIVOT_OUTPUT_MIN,
+    /** See {@link AbstractSwerveModule#setPivotPidOutputLimits(double, double)}. */
+    PIVOT_OUTPUT_MAX,
+    /** See {@link AbstractSwerveModule#setPivotPidSetpointRange(double)}. */
+    PIVOT_SETPOINT_RANGE,
+    /** See {@link AbstractSwerveModule#setPivotClosedLoopRampRate(double)}. */
+    PIVOT_CLOSED_LOOP_RAMP_RATE,
+    /** See {@link AbstractSwerveModule#setPivotOpenLoopRampRate(double)}. */
+    PIVOT_OPEN_LOOP_RAMP_RATE,
+    /** See {@link AbstractSwerveModule#setDrivePidP(double)}. */
+    DRIVE_P,
+    /** See {@link AbstractSwerveModule#setDrivePidI(double)}. */
+    DRIVE_I,
+    /** See {@link AbstractSwerveModule#setDrivePidD(double)}. */
+    DRIVE_D,
+    /** See {@link AbstractSwerveModule#setDrivePidFF(double)}. */
+    DRIVE_FF,
+    /** See {@link AbstractSwerveModule#setDrivePidIZone(double)}. */
+    DRIVE_IZONE,
+    /** See {@link AbstractSwerveModule#setDrivePidOutputLimits(double, double)}. */
+    DRIVE_OUTPUT_MIN,
+    /** See {@link AbstractSwerveModule#setDrivePidOutputLimits(double, double)}. */
+    DRIVE_OUTPUT_MAX,
+    /** See {@link AbstractSwerveModule#setDriveClosedLoopRampRate(double)}. */
+    DRIVE_CLOSED_LOOP_RAMP_RATE,
+    /** See {@link AbstractSwerveModule#setDriveOpenLoopRampRate(double)}. */
+    DRIVE_OPEN_LOOP_RAMP_RATE,
+    /** See {@link AbstractSwerveModule#setDriveVelocityPidP(double)}. */
+    DRIVE_VELOCITY_P,
+    /** See {@link AbstractSwerveModule#setDriveVelocityPidI(double)}. */
+    DRIVE_VELOCITY_I,
+    /** See {@link AbstractSwerveModule#setDriveVelocityPidD(double)}. */
+    DRIVE_VELOCITY_D
+}
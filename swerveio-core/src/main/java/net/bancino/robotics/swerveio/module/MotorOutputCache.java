@@ -0,0 +1,148 @@
+package net.bancino.robotics.swerveio.module;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A shadow copy of the last value sent to a motor controller, used to skip
+ * sending values that haven't meaningfully changed. Most motor controllers send
+ * a frame over the CAN bus for every set, even if the value is the same as
+ * before, so caching outputs can recover a good amount of bus bandwidth.
+ * <p>
+ * A value is sent if caching is disabled, if it differs from the last sent
+ * value by more than the deadband, if it is zero and the last sent value
+ * wasn't, or if the keepalive period has passed since the last send. The
+ * keepalive makes sure the controller keeps hearing from the robot, so its
+ * safety timeout doesn't trip.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public class MotorOutputCache {
+    private volatile boolean enabled = false;
+    private volatile double deadband = 0;
+    private volatile long keepaliveNanos = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /* Only touched by the thread that sets the motor. */
+    private boolean valid = false;
+    private double lastValue = 0;
+    private long lastWrite = 0;
+
+    private volatile long written = 0;
+    private volatile long suppressed = 0;
+
+    /**
+     * Enable caching.
+     * 
+     * @param deadband         Values within this much of the last sent value are
+     *                         not sent.
+     * @param keepaliveSeconds The longest time to go without sending a value,
+     *                         even if it hasn't changed. Set to 0 to always send
+     *                         values outside of the deadband only.
+     */
+    public void enable(double deadband, double keepaliveSeconds) {
+        this.deadband = Math.abs(deadband);
+        this.keepaliveNanos = (long) (TimeUnit.SECONDS.toNanos(1) * Math.max(0, keepaliveSeconds));
+        this.enabled = true;
+        invalidate();
+    }
+
+    /**
+     * Disable caching, so every value is sent.
+     */
+    public void disable() {
+        enabled = false;
+    }
+
+    /**
+     * @return Whether or not values are being cached.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Decide whether or not a value should be sent to the controller. If this
+     * returns true, the caller must send it, because it is recorded as the last
+     * sent value.
+     * 
+     * @param value The value about to be sent.
+     * @return Whether or not the value should be sent.
+     */
+    public boolean shouldWrite(double value) {
+        long now = System.nanoTime();
+        if (!enabled || !valid || Math.abs(value - lastValue) > deadband || (value == 0 && lastValue != 0)
+                || (keepaliveNanos > 0 && now - lastWrite >= keepaliveNanos)) {
+            record(value, now);
+            return true;
+        }
+        suppressed++;
+        return false;
+    }
+
+    /**
+     * Record a value that was sent to the controller without going through
+     * {@link #shouldWrite(double)}, such as when the motor is stopped.
+     * 
+     * @param value The value that the controller was set to.
+     */
+    public void written(double value) {
+        record(value, System.nanoTime());
+    }
+
+    /**
+     * Forget the last sent value, so that the next value is always sent. This
+     * should be called whenever the controller is commanded in a way that
+     * doesn't go through this cache, such as a closed loop reference.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Check whether this cache knows the last value sent to the controller.
+     * 
+     * @return Whether or not {@link #get()} can be trusted.
+     */
+    public boolean isValid() {
+        return enabled && valid;
+    }
+
+    /**
+     * Get the last value sent to the controller.
+     * 
+     * @return The shadow copy of the controller's output.
+     */
+    public double get() {
+        return lastValue;
+    }
+
+    /**
+     * @return The number of values that were sent to the controller.
+     */
+    public long getWrittenFrames() {
+        return written;
+    }
+
+    /**
+     * @return The number of values that were not sent because they hadn't
+     *         changed.
+     */
+    public long getSuppressedFrames() {
+        return suppressed;
+    }
+
+    /**
+     * Reset the sent and suppressed frame counts.
+     */
+    public void resetCounts() {
+        written = 0;
+        suppressed = 0;
+    }
+
+    private void record(double value, long now) {
+        lastValue = value;
+        lastWrite = now;
+        valid = true;
+        written++;
+    }
+}
@@ -4,13 +4,22 @@ package net.bancino.robotics.swerveio.module;
  * A swerve module that has multiple sources of encoder input, this usually is
  * useful when an analog encoder is added to a module that already has encoders
  * in the motor controller. This interface allows switching between encoders so
- * that the getEncoder functions can return the proper reading.
+ * that the getEncoder functions can return the proper reading, or combining
+ * them with a {@link net.bancino.robotics.swerveio.encoder.FusedEncoder}.
  * 
  * @author Jordan Bancino
  */
 public interface MultiEncoderModule extends AbstractSwerveModule {
     public static enum EncoderSetting {
-        ANALOG, INTERNAL
+        /** The absolute analog encoder. */
+        ANALOG,
+        /** The encoder in the motor controller. */
+        INTERNAL,
+        /**
+         * The encoder in the motor controller, kept lined up with the analog
+         * encoder in the background while the module is still.
+         */
+        FUSED
     }
 
     public void setEncoder(EncoderSetting encoder);
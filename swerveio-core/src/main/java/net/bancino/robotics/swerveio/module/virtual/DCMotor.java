@@ -0,0 +1,100 @@
+package net.bancino.robotics.swerveio.module.virtual;
+
+/**
+ * A model of a brushed or brushless DC motor, built from the four numbers on
+ * any motor's spec sheet. The model is the standard linear one: torque is
+ * proportional to current, and back-EMF is proportional to speed.
+ * 
+ * @author Jordan Bancino
+ */
+public class DCMotor {
+    /** The voltage that the spec sheet numbers are given at. */
+    public static final double NOMINAL_VOLTAGE = 12.0;
+
+    private final double resistance;
+    private final double kt;
+    private final double kv;
+    private final double freeSpeed;
+
+    /**
+     * Create a motor model from its spec sheet.
+     * 
+     * @param stallTorque  The stall torque, in newton meters.
+     * @param stallCurrent The stall current, in amps.
+     * @param freeSpeed    The free speed, in RPM.
+     * @param freeCurrent  The free current, in amps.
+     */
+    public DCMotor(double stallTorque, double stallCurrent, double freeSpeed, double freeCurrent) {
+        if (stallTorque <= 0 || stallCurrent <= 0 || freeSpeed <= 0 || freeCurrent < 0) {
+            throw new IllegalArgumentException("Motor constants must be positive.");
+        }
+        this.freeSpeed = freeSpeed * 2 * Math.PI / 60.0;
+        this.resistance = NOMINAL_VOLTAGE / stallCurrent;
+        this.kt = stallTorque / stallCurrent;
+        this.kv = this.freeSpeed / (NOMINAL_VOLTAGE - resistance * freeCurrent);
+    }
+
+    /**
+     * @return A model of the REV Robotics NEO brushless motor.
+     */
+    public static DCMotor neo() {
+        return new DCMotor(2.6, 105, 5676, 1.8);
+    }
+
+    /**
+     * @return A model of the CIM motor.
+     */
+    public static DCMotor cim() {
+        return new DCMotor(2.42, 133, 5310, 2.7);
+    }
+
+    /**
+     * @return The winding resistance, in ohms.
+     */
+    public double getResistance() {
+        return resistance;
+    }
+
+    /**
+     * @return The torque constant, in newton meters per amp.
+     */
+    public double getKt() {
+        return kt;
+    }
+
+    /**
+     * @return The velocity constant, in radians per second per volt.
+     */
+    public double getKv() {
+        return kv;
+    }
+
+    /**
+     * @return The free speed, in radians per second.
+     */
+    public double getFreeSpeed() {
+        return freeSpeed;
+    }
+
+    /**
+     * Get the current drawn by the motor.
+     * 
+     * @param voltage The voltage applied to the motor.
+     * @param speed   The speed of the motor shaft, in radians per second.
+     * @return The current, in amps.
+     */
+    public double getCurrent(double voltage, double speed) {
+        return (voltage - speed / kv) / resistance;
+    }
+
+    /**
+     * Get the torque produced by the motor.
+     * 
+     * @param voltage The voltage applied to the motor.
+     * @param speed   The speed of the motor shaft, in radians per second.
+     * @return The torque, in newton meters.
+     */
+    public double getTorque(double voltage, double speed) {
+        return kt * getCurrent(voltage, speed);
+    }
+}
@@ -0,0 +1,56 @@
+package net.bancino.robotics.swerveio.module.virtual;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A simulation clock that only moves when it is told to. This lets a
+ * simulation be stepped as fast as the computer can go, and makes it
+ * completely repeatable.
+ * 
+ * @author Jordan Bancino
+ */
+public class ManualClock implements SimulationClock {
+    private volatile long time;
+
+    /**
+     * Create a clock starting at zero.
+     */
+    public ManualClock() {
+        this(0);
+    }
+
+    /**
+     * Create a clock starting at the given time.
+     * 
+     * @param time The starting time, in nanoseconds.
+     */
+    public ManualClock(long time) {
+        this.time = time;
+    }
+
+    @Override
+    public long nanoTime() {
+        return time;
+    }
+
+    /**
+     * Move this clock forward.
+     * 
+     * @param nanos How far to move the clock, in nanoseconds.
+     */
+    public synchronized void advance(long nanos) {
+        if (nanos < 0) {
+            throw new IllegalArgumentException("Time can't go backwards.");
+        }
+        time += nanos;
+    }
+
+    /**
+     * Move this clock forward.
+     * 
+     * @param seconds How far to move the clock, in seconds.
+     */
+    public void advanceSeconds(double seconds) {
+        advance((long) (seconds * TimeUnit.SECONDS.toNanos(1)));
+    }
+}
@@ -0,0 +1,90 @@
+package net.bancino.robotics.swerveio.module.virtual;
+
+import static java.lang.Math.*;
+
+/**
+ * A motor driving a rotating load through a gear reduction. This is used to
+ * simulate both the drive wheel and the pivot of a virtual swerve module.
+ * <p>
+ * With the voltage held constant over a step, the motion of the load is a
+ * linear differential equation, so it is integrated exactly rather than with
+ * Euler's method. This keeps stiff mechanisms, like a pivot with a large gear
+ * reduction, stable at any step size.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+class Mechanism {
+    private final DCMotor motor;
+    private final double gearRatio;
+    private final double inertia;
+    private final double damping;
+
+    /* In radians and radians per second, at the load. */
+    private double position;
+    private double velocity;
+    private double voltage;
+
+    /**
+     * @param motor     The motor driving the load.
+     * @param gearRatio The number of motor rotations per rotation of the load.
+     * @param inertia   The moment of inertia of the load, in kilogram meters
+     *                  squared.
+     * @param damping   Viscous friction of the load, in newton meters per radian
+     *                  per second.
+     */
+    Mechanism(DCMotor motor, double gearRatio, double inertia, double damping) {
+        if (gearRatio <= 0 || inertia <= 0 || damping < 0) {
+            throw new IllegalArgumentException("Gear ratio and inertia must be positive, and damping can't be negative.");
+        }
+        this.motor = motor;
+        this.gearRatio = gearRatio;
+        this.inertia = inertia;
+        this.damping = damping;
+    }
+
+    /**
+     * Advance the mechanism.
+     * 
+     * @param appliedVoltage The voltage applied to the motor for the whole step.
+     * @param dt             The length of the step, in seconds.
+     */
+    void step(double appliedVoltage, double dt) {
+        voltage = appliedVoltage;
+        /*
+         * The torque at the load is A - B * velocity, where A comes from the applied
+         * voltage and B from the motor's back-EMF and friction.
+         */
+        double a = gearRatio * motor.getKt() * appliedVoltage / motor.getResistance();
+        double b = (gearRatio * gearRatio * motor.getKt()) / (motor.getResistance() * motor.getKv()) + damping;
+        double terminal = a / b;
+        double decay = exp(-b * dt / inertia);
+        double initial = velocity - terminal;
+        position += terminal * dt + initial * (inertia / b) * (1 - decay);
+        velocity = terminal + initial * decay;
+    }
+
+    double getPosition() {
+        return position;
+    }
+
+    double getVelocity() {
+        return velocity;
+    }
+
+    double getMotorPosition() {
+        return position * gearRatio;
+    }
+
+    double getMotorVelocity() {
+        return velocity * gearRatio;
+    }
+
+    double getCurrent() {
+        return motor.getCurrent(voltage, getMotorVelocity());
+    }
+
+    double getGearRatio() {
+        return gearRatio;
+    }
+}
@@ -0,0 +1,24 @@
+package net.bancino.robotics.swerveio.module.virtual;
+
+/**
+ * The source of time for a simulation. Simulated modules advance their physics
+ * by however much time has passed on their clock, so a simulation can run in
+ * real time with {@link #SYSTEM}, or faster (or slower) than real time with a
+ * {@link ManualClock}.
+ * 
+ * @author Jordan Bancino
+ */
+@FunctionalInterface
+public interface SimulationClock {
+
+    /** A clock that follows real time. */
+    public static final SimulationClock SYSTEM = System::nanoTime;
+
+    /**
+     * Get the current time on this clock. Like {@link System#nanoTime()}, only
+     * differences between values are meaningful.
+     * 
+     * @return The current time, in nanoseconds.
+     */
+    public long nanoTime();
+}
@@ -0,0 +1,637 @@
+package net.bancino.robotics.swerveio.module.virtual;
+
+import java.util.concurrent.TimeUnit;
+
+import net.bancino.robotics.swerveio.SwerveImplementationException;
+import net.bancino.robotics.swerveio.encoder.Encoder;
+import net.bancino.robotics.swerveio.module.AbstractSwerveModule;
+import net.bancino.robotics.swerveio.pid.MiniPID;
+import net.bancino.robotics.swerveio.pid.PidBank;
+
+/**
+ * This is a virtual representation of a Swerve Module. This is meant for use in
+ * "virtual" implementations of the SwerveIO library. The goal is for this
+ * module to simulate the behavior of physical swerve modules, complete with PID
+ * control, simulated encoder feedback, and drive functionality.
+ * <p>
+ * The drive wheel and the pivot are each simulated as a {@link DCMotor} turning
+ * a load through a gear reduction. Every call to the module first advances the
+ * physics to the current time on the module's {@link SimulationClock}, in steps
+ * of at most a millisecond, so with a {@link ManualClock} a whole
+ * {@link net.bancino.robotics.swerveio.SwerveDriveController} can be run faster
+ * than real time.
+ * </p>
+ * <p>
+ * Like a {@code GenericSwerveModule}, the pivot PID is calculated whenever a
+ * pivot reference is set, and its output is held until the next one. The
+ * drive PID is calculated every {@link #STEP} of simulated time, the way a
+ * smart motor controller closes the loop onboard at a fixed rate, so the
+ * simulation doesn't depend on how often the module is called. The drive
+ * position and velocity loops and the pivot each use a {@link MiniPID}, and the
+ * pivot PID can be moved into a shared {@link PidBank}. The feed-forward of the
+ * velocity loop is scaled against {@link DCMotor#NOMINAL_VOLTAGE}.
+ * </p>
+ * <p>
+ * The pivot encoder reads in counts per module revolution (360 by default), and
+ * the drive encoder reads in drive motor rotations, like a Spark Max.
+ * </p>
+ * 
+ * @author David Krajewski
+ * @author Jordan Bancino
+ */
+public class VirtualSwerveModule implements AbstractSwerveModule {
+
+    /** The drive gear reduction of an SDS MK2 module. */
+    public static final double MK2_DRIVE_RATIO = 8.31;
+
+    /** The pivot gear reduction of an SDS MK2 module. */
+    public static final double MK2_PIVOT_RATIO = 18.0;
+
+    /** The longest the simulation is stepped at once, in seconds. */
+    public static final double STEP = 0.001;
+
+    /** The most time that is simulated in one update, in seconds. */
+    public static final double MAX_UPDATE = 1.0;
+
+    private static final double TWO_PI = 2 * Math.PI;
+    private static final long STEP_NANOS = (long) (STEP * TimeUnit.SECONDS.toNanos(1));
+    private static final long MAX_UPDATE_NANOS = (long) (MAX_UPDATE * TimeUnit.SECONDS.toNanos(1));
+
+    private final SimulationClock clock;
+    private final Mechanism drive, pivot;
+    private final MiniPID drivePid = new MiniPID(0, 0, 0);
+    private final MiniPID driveVelocityPid = new MiniPID(0, 0, 0);
+    private final MiniPID pivotPid = new MiniPID(0, 0, 0);
+    /* Set once the pivot PID has been moved into a shared bank. */
+    private PidBank pivotBank;
+    private int pivotSlot;
+    private double pivotPidPeriod;
+    private long lastPivotReference;
+    private final Encoder driveEncoder = new VirtualEncoder(true);
+    private final Encoder pivotEncoder = new VirtualEncoder(false);
+
+    private double wheelRadius = 0.0508;
+    private double pivotCountsPerRevolution = 360;
+    private double driveEncoderOffset, pivotEncoderOffset;
+    private long lastUpdate;
+    /* When the drive PID is calculated next, on the simulation clock. */
+    private long nextDrivePid;
+
+    /* What each motor has been told to do. */
+    private double driveMotorSpeed, pivotMotorSpeed;
+    private double driveReference, driveFeedforward, drivePidOutput;
+    private boolean driveClosedLoop, driveVelocityControl;
+
+    /* What each motor is actually doing, after ramping. */
+    private double driveApplied, pivotApplied;
+    private double pivotOpenLoopRampRate;
+    private double driveClosedLoopRampRate, driveOpenLoopRampRate;
+
+    /**
+     * Create a simulated MK2 module with NEO motors, running in real time.
+     */
+    public VirtualSwerveModule() {
+        this(SimulationClock.SYSTEM);
+    }
+
+    /**
+     * Create a simulated MK2 module with NEO motors.
+     * 
+     * @param clock The clock the simulation follows.
+     */
+    public VirtualSwerveModule(SimulationClock clock) {
+        /*
+         * A quarter of a 50 kg robot on a 2 inch radius wheel, and a pivot with
+         * roughly the inertia of the MK2's wheel assembly.
+         */
+        this(clock, DCMotor.neo(), MK2_DRIVE_RATIO, 12.5 * 0.0508 * 0.0508, DCMotor.neo(), MK2_PIVOT_RATIO, 0.004);
+    }
+
+    /**
+     * Create a simulated module.
+     * 
+     * @param clock          The clock the simulation follows.
+     * @param driveMotor     The drive motor.
+     * @param driveGearRatio The number of drive motor rotations per wheel
+     *                       rotation.
+     * @param driveInertia   The inertia the drive motor moves, as seen at the
+     *                       wheel, in kilogram meters squared. This should
+     *                       include this module's share of the robot's mass.
+     * @param pivotMotor     The pivot motor.
+     * @param pivotGearRatio The number of pivot motor rotations per module
+     *                       rotation.
+     * @param pivotInertia   The inertia of the pivoting part of the module, in
+     *                       kilogram meters squared.
+     */
+    public VirtualSwerveModule(SimulationClock clock, DCMotor driveMotor, double driveGearRatio, double driveInertia,
+            DCMotor pivotMotor, double pivotGearRatio, double pivotInertia) {
+        if (clock == null || driveMotor == null || pivotMotor == null) {
+            throw new IllegalArgumentException("Clock and motors must not be null.");
+        }
+        this.clock = clock;
+        this.drive = new Mechanism(driveMotor, driveGearRatio, driveInertia, 0.01);
+        this.pivot = new Mechanism(pivotMotor, pivotGearRatio, pivotInertia, 0.01);
+        this.lastUpdate = clock.nanoTime();
+        this.nextDrivePid = lastUpdate;
+        pivotPid.setOutputLimits(-1, 1);
+        drivePid.setOutputLimits(-1, 1);
+        driveVelocityPid.setOutputLimits(-1, 1);
+    }
+
+    /**
+     * Advance the simulation to the current time on the clock. This is done
+     * automatically by every other method, but can be called to step the
+     * simulation without interacting with it.
+     */
+    public synchronized void update() {
+        long now = clock.nanoTime();
+        long time = Math.max(lastUpdate, now - MAX_UPDATE_NANOS);
+        lastUpdate = now;
+        if (nextDrivePid < time) {
+            /* Time that was skipped is skipped by the motor controller too. */
+            nextDrivePid = time;
+        }
+        while (time < now) {
+            if (time == nextDrivePid) {
+                calculateDrivePid();
+                nextDrivePid += STEP_NANOS;
+            }
+            /* Step to the next drive PID calculation, which is at most STEP away. */
+            long end = Math.min(now, nextDrivePid);
+            double dt = (end - time) / (double) TimeUnit.SECONDS.toNanos(1);
+            time = end;
+            double driveTarget = driveClosedLoop ? drivePidOutput : driveMotorSpeed;
+            driveApplied = ramp(driveApplied, clamp(driveTarget),
+                    driveClosedLoop ? driveClosedLoopRampRate : driveOpenLoopRampRate, dt);
+            /* The pivot PID runs here, not on the motor controller, so its output is open loop. */
+            pivotApplied = ramp(pivotApplied, clamp(pivotMotorSpeed), pivotOpenLoopRampRate, dt);
+            drive.step(driveApplied * DCMotor.NOMINAL_VOLTAGE, dt);
+            pivot.step(pivotApplied * DCMotor.NOMINAL_VOLTAGE, dt);
+        }
+    }
+
+    /**
+     * Calculate the drive PID, whose output is held until the next calculation.
+     */
+    private void calculateDrivePid() {
+        if (driveClosedLoop && driveVelocityControl) {
+            drivePidOutput = (driveFeedforward / DCMotor.NOMINAL_VOLTAGE)
+                    + driveVelocityPid.getOutput(getDriveCountVelocity(), driveReference);
+        } else if (driveClosedLoop) {
+            drivePidOutput = drivePid.getOutput(driveEncoder.get(), driveReference);
+        }
+    }
+
+    /**
+     * @return The clock this simulation follows.
+     */
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Set the radius of the drive wheel, used to report linear wheel speeds and
+     * distances.
+     * 
+     * @param wheelRadius The radius, in meters.
+     */
+    public synchronized void setWheelRadius(double wheelRadius) {
+        this.wheelRadius = wheelRadius;
+    }
+
+    /**
+     * Set how many counts the pivot encoder reads for one full rotation of the
+     * module.
+     * 
+     * @param countsPerRevolution The counts per pivot revolution.
+     */
+    public synchronized void setPivotCountsPerRevolution(double countsPerRevolution) {
+        update();
+        double reading = pivotEncoder.get();
+        this.pivotCountsPerRevolution = countsPerRevolution;
+        pivotEncoder.set(reading);
+    }
+
+    /**
+     * @return An encoder that reads the simulated drive encoder.
+     */
+    public Encoder getDriveEncoder() {
+        return driveEncoder;
+    }
+
+    /**
+     * @return An encoder that reads the simulated pivot encoder.
+     */
+    public Encoder getPivotEncoder() {
+        return pivotEncoder;
+    }
+
+    /**
+     * @return The actual angle of the module, in degrees, regardless of where the
+     *         encoder has been zeroed.
+     */
+    public synchronized double getPivotAngle() {
+        update();
+        return Math.toDegrees(pivot.getPosition());
+    }
+
+    /**
+     * @return The actual speed the module is pivoting at, in degrees per second.
+     */
+    public synchronized double getPivotVelocity() {
+        update();
+        return Math.toDegrees(pivot.getVelocity());
+    }
+
+    /**
+     * @return The linear speed of the wheel, in meters per second.
+     */
+    public synchronized double getWheelVelocity() {
+        update();
+        return drive.getVelocity() * wheelRadius;
+    }
+
+    /**
+     * @return The total linear distance the wheel has rolled, in meters.
+     */
+    public synchronized double getWheelDistance() {
+        update();
+        return drive.getPosition() * wheelRadius;
+    }
+
+    /**
+     * @return The current drawn by the drive motor, in amps.
+     */
+    public synchronized double getDriveCurrent() {
+        update();
+        return drive.getCurrent();
+    }
+
+    /**
+     * @return The current drawn by the pivot motor, in amps.
+     */
+    public synchronized double getPivotCurrent() {
+        update();
+        return pivot.getCurrent();
+    }
+
+    @Override
+    public synchronized void setPivotMotorSpeed(double speed) {
+        update();
+        this.pivotMotorSpeed = speed;
+    }
+
+    @Override
+    public synchronized void setDriveMotorSpeed(double speed) {
+        update();
+        driveClosedLoop = false;
+        this.driveMotorSpeed = speed;
+    }
+
+    @Override
+    public synchronized double getPivotMotorSpeed() {
+        update();
+        return this.pivotApplied;
+    }
+
+    @Override
+    public synchronized double getDriveMotorSpeed() {
+        update();
+        return this.driveApplied;
+    }
+
+    @Override
+    public synchronized double getPivotMotorEncoder() {
+        update();
+        return pivotEncoder.get();
+    }
+
+    @Override
+    public synchronized double getDriveMotorEncoder() {
+        update();
+        return driveEncoder.get();
+    }
+
+    @Override
+    public synchronized void zeroPivotEncoder() {
+        update();
+        pivotEncoder.zero();
+    }
+
+    @Override
+    public synchronized void zeroDriveEncoder() {
+        update();
+        driveEncoder.zero();
+    }
+
+    @Override
+    public synchronized void stopPivotMotor() {
+        update();
+        this.pivotMotorSpeed = 0.0;
+    }
+
+    @Override
+    public synchronized void stopDriveMotor() {
+        update();
+        driveClosedLoop = false;
+        this.driveMotorSpeed = 0.0;
+    }
+
+    /**
+     * Set the closed loop ramp rate of the pivot motor. This has no effect, since
+     * the pivot PID is calculated by this module, like a
+     * {@code GenericSwerveModule} calculates it on the roboRIO, and sent to the
+     * motor as an open loop output. Its output is ramped by the open loop ramp
+     * rate instead.
+     */
+    @Override
+    public void setPivotClosedLoopRampRate(double rate) {
+        /* There is no closed loop on the motor to ramp. */
+    }
+
+    @Override
+    public synchronized void setPivotOpenLoopRampRate(double rate) {
+        pivotOpenLoopRampRate = rate;
+    }
+
+    @Override
+    public synchronized void setDriveClosedLoopRampRate(double rate) {
+        driveClosedLoopRampRate = rate;
+    }
+
+    @Override
+    public synchronized void setDriveOpenLoopRampRate(double rate) {
+        driveOpenLoopRampRate = rate;
+    }
+
+    @Override
+    public synchronized void setDriveReference(double ref) {
+        update();
+        if (!driveClosedLoop || driveVelocityControl) {
+            drivePid.reset();
+            driveClosedLoop = true;
+            driveVelocityControl = false;
+            /* The loop starts with this reference. */
+            nextDrivePid = lastUpdate;
+        }
+        driveReference = ref;
+    }
+
+    @Override
+    public synchronized void setDriveVelocity(double velocity, double feedforward) {
+        update();
+        if (!driveClosedLoop || !driveVelocityControl) {
+            driveVelocityPid.reset();
+            driveClosedLoop = true;
+            driveVelocityControl = true;
+            /* The loop starts with this reference. */
+            nextDrivePid = lastUpdate;
+        }
+        driveReference = velocity;
+        driveFeedforward = feedforward;
+    }
+
+    @Override
+    public synchronized double getDriveVelocity() {
+        update();
+        return getDriveCountVelocity();
+    }
+
+    @Override
+    public synchronized void setDriveVelocityPidP(double gain) {
+        driveVelocityPid.setP(gain);
+    }
+
+    @Override
+    public synchronized void setDriveVelocityPidI(double gain) {
+        driveVelocityPid.setI(gain);
+    }
+
+    @Override
+    public synchronized void setDriveVelocityPidD(double gain) {
+        driveVelocityPid.setD(gain);
+    }
+
+    /**
+     * @return The speed of the drive encoder, in counts (drive motor rotations)
+     *         per second.
+     */
+    private double getDriveCountVelocity() {
+        return drive.getMotorVelocity() / TWO_PI;
+    }
+
+    @Override
+    public synchronized void setPivotReference(double ref) {
+        update();
+        double position = pivotEncoder.get();
+        if (pivotBank != null) {
+            pivotMotorSpeed = pivotBank.getOutput(pivotSlot, position, ref);
+        } else if (pivotPidPeriod != 0) {
+            /* Time the PID on the simulation clock, so it works faster than real time. */
+            long now = clock.nanoTime();
+            double dt = (lastPivotReference != 0) ? (now - lastPivotReference) / 1e9 : pivotPidPeriod;
+            lastPivotReference = now;
+            pivotMotorSpeed = pivotPid.getOutput(position, ref, dt);
+        } else {
+            pivotMotorSpeed = pivotPid.getOutput(position, ref);
+        }
+    }
+
+    /**
+     * Move the pivot PID into a slot of a shared bank. This is refused if the
+     * pivot PID uses the time-aware mode or a derivative filter, which a bank
+     * doesn't have.
+     */
+    @Override
+    public synchronized boolean usePivotPidBank(PidBank bank, int slot) {
+        if (!PidBank.supports(pivotPid)) {
+            return false;
+        }
+        bank.copy(pivotPid, slot);
+        pivotBank = bank;
+        pivotSlot = slot;
+        return true;
+    }
+
+    /**
+     * Run the pivot PID in the time-aware mode of {@link MiniPID}. The time
+     * between pivot references is measured on the simulation clock. See
+     * {@link MiniPID#setPeriod(double)}.
+     * 
+     * @param seconds The nominal period of the loop that sets pivot references,
+     *                or 0 to disable the time-aware mode.
+     * @throws IllegalStateException If the pivot PID has been moved into a bank.
+     */
+    public synchronized void setPivotPidPeriod(double seconds) {
+        checkPivotUnbanked();
+        pivotPid.setPeriod(seconds);
+        pivotPidPeriod = seconds;
+        lastPivotReference = 0;
+    }
+
+    /**
+     * Set a low-pass filter on the D term of the pivot PID. See
+     * {@link MiniPID#setDerivativeFilter(double)}.
+     * 
+     * @param strength The strength, in [0, 1). 0 disables filtering.
+     * @throws IllegalStateException If the pivot PID has been moved into a bank.
+     */
+    public synchronized void setPivotPidDerivativeFilter(double strength) {
+        checkPivotUnbanked();
+        pivotPid.setDerivativeFilter(strength);
+    }
+
+    private void checkPivotUnbanked() {
+        if (pivotBank != null) {
+            throw new IllegalStateException("The pivot PID is in a PID bank, which has no time-aware mode.");
+        }
+    }
+
+    @Override
+    public synchronized void setPivotPidOutput(double output) {
+        update();
+        pivotMotorSpeed = output;
+    }
+
+    @Override
+    public synchronized void setPivotPidP(double gain) {
+        if (pivotBank != null) {
+            pivotBank.setP(pivotSlot, gain);
+        } else {
+            pivotPid.setP(gain);
+        }
+    }
+
+    @Override
+    public synchronized void setDrivePidP(double gain) {
+        drivePid.setP(gain);
+    }
+
+    @Override
+    public synchronized void setPivotPidI(double gain) {
+        if (pivotBank != null) {
+            pivotBank.setI(pivotSlot, gain);
+        } else {
+            pivotPid.setI(gain);
+        }
+    }
+
+    @Override
+    public synchronized void setDrivePidI(double gain) {
+        drivePid.setI(gain);
+    }
+
+    @Override
+    public synchronized void setPivotPidD(double gain) {
+        if (pivotBank != null) {
+            pivotBank.setD(pivotSlot, gain);
+        } else {
+            pivotPid.setD(gain);
+        }
+    }
+
+    @Override
+    public synchronized void setDrivePidD(double gain) {
+        drivePid.setD(gain);
+    }
+
+    @Override
+    public void setPivotPidIZone(double iZone) {
+        throw new SwerveImplementationException(pivotPid.getClass().getName() + " does not support setting IZone.");
+    }
+
+    @Override
+    public void setDrivePidIZone(double iZone) {
+        throw new SwerveImplementationException(drivePid.getClass().getName() + " does not support setting IZone.");
+    }
+
+    @Override
+    public synchronized void setPivotPidFF(double gain) {
+        if (pivotBank != null) {
+            pivotBank.setF(pivotSlot, gain);
+        } else {
+            pivotPid.setF(gain);
+        }
+    }
+
+    @Override
+    public synchronized void setDrivePidFF(double gain) {
+        drivePid.setF(gain);
+    }
+
+    @Override
+    public synchronized void setPivotPidOutputLimits(double min, double max) {
+        if (pivotBank != null) {
+            pivotBank.setOutputLimits(pivotSlot, min, max);
+        } else {
+            pivotPid.setOutputLimits(min, max);
+        }
+    }
+
+    @Override
+    public synchronized void setPivotPidSetpointRange(double range) {
+        if (pivotBank != null) {
+            pivotBank.setSetpointRange(pivotSlot, range);
+        } else {
+            pivotPid.setSetpointRange(range);
+        }
+    }
+
+    @Override
+    public synchronized void setDrivePidOutputLimits(double min, double max) {
+        drivePid.setOutputLimits(min, max);
+    }
+
+    /**
+     * Limit how quickly an output can change.
+     * 
+     * @param current The current output.
+     * @param target  The output being asked for.
+     * @param rate    The time, in seconds, to go from 0 to full output. 0 disables
+     *                ramping.
+     * @param dt      The length of the step.
+     * @return The output to apply for this step.
+     */
+    private static double ramp(double current, double target, double rate, double dt) {
+        if (rate <= 0) {
+            return target;
+        }
+        double maxChange = dt / rate;
+        return current + Math.max(-maxChange, Math.min(maxChange, target - current));
+    }
+
+    private static double clamp(double output) {
+        return Math.max(-1, Math.min(1, output));
+    }
+
+    /**
+     * A view of one of the simulated encoders. Setting the encoder just changes
+     * its offset from the simulated mechanism.
+     */
+    private class VirtualEncoder implements Encoder {
+        private final boolean isDrive;
+
+        private VirtualEncoder(boolean isDrive) {
+            this.isDrive = isDrive;
+        }
+
+        @Override
+        public double get() {
+            synchronized (VirtualSwerveModule.this) {
+                return isDrive ? (drive.getMotorPosition() / TWO_PI) - driveEncoderOffset
+                        : (pivot.getPosition() / TWO_PI) * pivotCountsPerRevolution - pivotEncoderOffset;
+            }
+        }
+
+        @Override
+        public void set(double val) {
+            synchronized (VirtualSwerveModule.this) {
+                if (isDrive) {
+                    driveEncoderOffset = (drive.getMotorPosition() / TWO_PI) - val;
+                } else {
+                    pivotEncoderOffset = (pivot.getPosition() / TWO_PI) * pivotCountsPerRevolution - val;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package net.bancino.robotics.swerveio.pid;
+
+/**
+ * A feed-forward model of a motor driving a load: the voltage it takes to
+ * overcome friction, to hold a velocity, and to accelerate. A velocity loop
+ * only has to correct what this model gets wrong, so it stays accurate as the
+ * battery voltage and the load change. These are immutable, so they can be
+ * shared freely between threads.
+ * <p>
+ * The gains are usually found by characterizing the drivetrain: kS is the
+ * voltage at which the wheels just start to move, kV is the voltage per unit
+ * of velocity once they are moving, and kA is the voltage per unit of
+ * acceleration.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public final class Feedforward {
+
+    /**
+     * The battery voltage that feed-forward voltages are scaled against when a
+     * motor controller only takes a percent output.
+     */
+    public static final double NOMINAL_VOLTAGE = 12.0;
+
+    private final double kS, kV, kA;
+
+    /**
+     * Create a feed-forward model.
+     * 
+     * @param kS The static gain, in volts.
+     * @param kV The velocity gain, in volts per unit of velocity.
+     * @param kA The acceleration gain, in volts per unit of acceleration.
+     */
+    public Feedforward(double kS, double kV, double kA) {
+        if (kS < 0 || kV < 0 || kA < 0) {
+            throw new IllegalArgumentException("Feed-forward gains must not be negative.");
+        }
+        this.kS = kS;
+        this.kV = kV;
+        this.kA = kA;
+    }
+
+    /**
+     * Calculate the voltage it takes to move at a velocity.
+     * 
+     * @param velocity     The target velocity.
+     * @param acceleration The target acceleration.
+     * @return The voltage to apply, in volts.
+     */
+    public double calculate(double velocity, double acceleration) {
+        return (kS * Math.signum(velocity)) + (kV * velocity) + (kA * acceleration);
+    }
+
+    /**
+     * @return The static gain, in volts.
+     */
+    public double getS() {
+        return kS;
+    }
+
+    /**
+     * @return The velocity gain, in volts per unit of velocity.
+     */
+    public double getV() {
+        return kV;
+    }
+
+    /**
+     * @return The acceleration gain, in volts per unit of acceleration.
+     */
+    public double getA() {
+        return kA;
+    }
+
+    @Override
+    public String toString() {
+        return "kS=" + kS + ", kV=" + kV + ", kA=" + kA;
+    }
+}
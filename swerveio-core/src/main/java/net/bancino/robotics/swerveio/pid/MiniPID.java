@@ -10,37 +10,57 @@ package net.bancino.robotics.swerveio.pid;
  * } <br>
  * See
  * http://brettbeauregard.com/blog/2011/04/improving-the-beginners-pid-direction/improving-the-beginners-pid-introduction.
+ * <p>
+ * By default, every call to getOutput() is assumed to be one cycle after the
+ * last. If the loop calling it has jitter, set the nominal period with
+ * {@link #setPeriod(double)}. Then the I, D, ramp and filter terms are scaled by
+ * how long it has actually been since the last call, either measured or passed
+ * in with {@link #getOutput(double, double, double)}. Gains keep their meaning:
+ * they are still per nominal period.
+ * </p>
  */
 public class MiniPID {
 	// **********************************
-	// Class private variables
+	// Class variables. These are package-private so that a PidBank can copy
+	// them.
 	// **********************************
 
-	private double P = 0;
-	private double I = 0;
-	private double D = 0;
-	private double F = 0;
+	double P = 0;
+	double I = 0;
+	double D = 0;
+	double F = 0;
 
-	private double maxIOutput = 0;
-	private double maxError = 0;
-	private double errorSum = 0;
+	double maxIOutput = 0;
+	double maxError = 0;
+	double errorSum = 0;
 
-	private double maxOutput = 0;
-	private double minOutput = 0;
+	double maxOutput = 0;
+	double minOutput = 0;
 
-	private double setpoint = 0;
+	double setpoint = 0;
 
-	private double lastActual = 0;
+	double lastActual = 0;
 
-	private boolean firstRun = true;
-	private boolean reversed = false;
+	boolean firstRun = true;
+	boolean reversed = false;
 
-	private double outputRampRate = 0;
-	private double lastOutput = 0;
+	double outputRampRate = 0;
+	double lastOutput = 0;
 
-	private double outputFilter = 0;
+	double outputFilter = 0;
 
-	private double setpointRange = 0;
+	double setpointRange = 0;
+
+	// Time-aware mode. A period of 0 means every call is one cycle.
+	double period = 0;
+	long lastTime = 0;
+	double derivativeFilter = 0;
+	double lastDerivative = 0;
+
+	// Calls closer together than this many periods are treated as duplicates.
+	private static final double DUPLICATE_PERIODS = 0.01;
+	// Gaps longer than this many periods are treated as the controller resuming.
+	private static final double MAX_PERIODS = 5;
 
 	// **********************************
 	// Constructor functions
@@ -260,6 +280,42 @@ public class MiniPID {
 		}
 	}
 
+	/**
+	 * Enable the time-aware mode by setting the nominal period of the loop. The
+	 * I term then integrates error over the time that has actually passed, and
+	 * the D term uses the actual rate of change, both measured in nominal
+	 * periods so existing gains keep working. The output ramp rate and output
+	 * filter are scaled the same way. <br>
+	 * Calls that come less than 1% of a period after the last are treated as
+	 * duplicates, and return the last output without changing any state. After
+	 * a gap of more than 5 periods, the I term only integrates 5 periods' worth
+	 * of error and the D term starts over, as if the controller was resuming.
+	 * 
+	 * @param seconds The nominal period, in seconds, or 0 to disable the
+	 *                time-aware mode.
+	 */
+	public void setPeriod(double seconds) {
+		if (seconds < 0) {
+			throw new IllegalArgumentException("Period can't be negative.");
+		}
+		period = seconds;
+	}
+
+	/**
+	 * Set a low-pass filter on the D term to reduce the noise that it amplifies.
+	 * <br>
+	 * This works like the output filter, but only on the derivative. 0 disables
+	 * filtering. In the time-aware mode, the strength is per nominal period.
+	 * 
+	 * @param strength valid between [0..1), meaning [current derivative only..
+	 *                 historical derivative only)
+	 */
+	public void setDerivativeFilter(double strength) {
+		if (strength == 0 || bounded(strength, 0, 1)) {
+			derivativeFilter = strength;
+		}
+	}
+
 	/**
 	 * Set the operating direction of the PID controller
 	 * 
@@ -287,12 +343,61 @@ public class MiniPID {
 
 	/**
 	 * Calculate the output value for the current PID cycle.<br>
+	 * In the time-aware mode, the time since the last cycle is measured with
+	 * System.nanoTime().<br>
 	 * 
 	 * @param actual   The monitored value, typically as a sensor input.
 	 * @param setpoint The target value for the system
 	 * @return calculated output value for driving the system
 	 */
 	public double getOutput(double actual, double setpoint) {
+		if (period == 0) {
+			return calculate(actual, setpoint, 1);
+		}
+		long now = System.nanoTime();
+		double dt = firstRun ? period : (now - lastTime) * 1e-9;
+		if (!firstRun && dt < period * DUPLICATE_PERIODS) {
+			this.setpoint = setpoint;
+			return lastOutput;
+		}
+		lastTime = now;
+		return getOutput(actual, setpoint, dt);
+	}
+
+	/**
+	 * Calculate the output value for the current PID cycle, given how long it has
+	 * been since the last one. This requires the time-aware mode.<br>
+	 * 
+	 * @see #setPeriod(double)
+	 * @param actual   The monitored value, typically as a sensor input.
+	 * @param setpoint The target value for the system
+	 * @param dt       The time since the last cycle, in seconds.
+	 * @return calculated output value for driving the system
+	 */
+	public double getOutput(double actual, double setpoint, double dt) {
+		if (period == 0) {
+			throw new IllegalStateException("Set the period before passing in the time between cycles.");
+		}
+		double periods = dt / period;
+		if (!firstRun && periods < DUPLICATE_PERIODS) {
+			this.setpoint = setpoint;
+			return lastOutput;
+		}
+		if (periods > MAX_PERIODS) {
+			// The controller is resuming, so the last sensor value is stale.
+			lastActual = actual;
+			lastDerivative = 0;
+			periods = MAX_PERIODS;
+		}
+		return calculate(actual, setpoint, periods);
+	}
+
+	/**
+	 * Perform the PID calculation.
+	 * 
+	 * @param periods How many cycles it has been since the last calculation.
+	 */
+	private double calculate(double actual, double setpoint, double periods) {
 		double output;
 		double Poutput;
 		double Ioutput;
@@ -329,7 +434,12 @@ public class MiniPID {
 		// Calculate D Term
 		// Note, this is negative. This actually "slows" the system if it's doing
 		// the correct thing, and small values helps prevent output spikes and overshoot
-		Doutput = -D * (actual - lastActual);
+		double derivative = -(actual - lastActual) / periods;
+		if (derivativeFilter != 0) {
+			derivative = lastDerivative + (1 - Math.pow(derivativeFilter, periods)) * (derivative - lastDerivative);
+		}
+		lastDerivative = derivative;
+		Doutput = D * derivative;
 		lastActual = actual;
 
 		// The Iterm is more complex. There's several things to factor in to make it
@@ -346,6 +456,9 @@ public class MiniPID {
 		// And, finally, we can just add the terms up
 		output = Foutput + Poutput + Ioutput + Doutput;
 
+		// The ramp rate is per cycle, so scale it by how many have passed
+		double rampRate = outputRampRate * periods;
+
 		// Figure out what we're doing with the error.
 		if (minOutput != maxOutput && !bounded(output, minOutput, maxOutput)) {
 			errorSum = error;
@@ -353,25 +466,26 @@ public class MiniPID {
 			// Setting to current error ensures a smooth transition when the P term
 			// decreases enough for the I term to start acting upon the controller
 			// From that point the I term will build up as would be expected
-		} else if (outputRampRate != 0 && !bounded(output, lastOutput - outputRampRate, lastOutput + outputRampRate)) {
+		} else if (rampRate != 0 && !bounded(output, lastOutput - rampRate, lastOutput + rampRate)) {
 			errorSum = error;
 		} else if (maxIOutput != 0) {
-			errorSum = constrain(errorSum + error, -maxError, maxError);
+			errorSum = constrain(errorSum + error * periods, -maxError, maxError);
 			// In addition to output limiting directly, we also want to prevent I term
 			// buildup, so restrict the error directly
 		} else {
-			errorSum += error;
+			errorSum += error * periods;
 		}
 
 		// Restrict output to our specified output and ramp limits
-		if (outputRampRate != 0) {
-			output = constrain(output, lastOutput - outputRampRate, lastOutput + outputRampRate);
+		if (rampRate != 0) {
+			output = constrain(output, lastOutput - rampRate, lastOutput + rampRate);
 		}
 		if (minOutput != maxOutput) {
 			output = constrain(output, minOutput, maxOutput);
 		}
 		if (outputFilter != 0) {
-			output = lastOutput * outputFilter + output * (1 - outputFilter);
+			double filter = (periods == 1) ? outputFilter : Math.pow(outputFilter, periods);
+			output = lastOutput * filter + output * (1 - filter);
 		}
 
 		// Get a test printline with lots of details about the internal
@@ -419,6 +533,7 @@ public class MiniPID {
 	public void reset() {
 		firstRun = true;
 		errorSum = 0;
+		lastDerivative = 0;
 	}
 
 	/**
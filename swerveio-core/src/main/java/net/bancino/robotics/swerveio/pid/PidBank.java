@@ -0,0 +1,428 @@
+package net.bancino.robotics.swerveio.pid;
+
+/**
+ * A bank of PID controllers that stores the gains and state of every controller
+ * in parallel arrays, so that they can all be updated in one tight loop. Each
+ * controller is a numbered slot, and behaves exactly like a {@link MiniPID}
+ * with the same settings: output limits, output ramp rate, output filter,
+ * setpoint range, max I output and anti-windup all work the same way.
+ * <p>
+ * Disabled features are stored as infinite limits rather than flags, so the
+ * update loop has almost no branches. A bank is not thread safe, but separate
+ * slots may be used by separate threads, as long as each slot is only used by
+ * one thread at a time.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public class PidBank {
+    private static final double NONE = Double.POSITIVE_INFINITY;
+
+    private final int size;
+
+    /* Gains. */
+    private final double[] p, i, d, f;
+    private final boolean[] reversed;
+
+    /* Settings, as MiniPID stores them. 0 means disabled. */
+    private final double[] maxIOutput, maxError, minOutput, maxOutput, rampRate, setpointRange;
+
+    /* Settings, as the update loop uses them. Disabled means infinite. */
+    private final double[] iLimit, errorLimit, outputMin, outputMax, rampLimit, rangeLimit;
+    private final double[] filter;
+
+    /* State. */
+    private final double[] errorSum, lastActual, lastOutput;
+    private final boolean[] firstRun;
+
+    /**
+     * Create a bank of PID controllers with all gains set to 0.
+     * 
+     * @param size The number of controllers in the bank.
+     */
+    public PidBank(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("A PID bank must have at least one slot.");
+        }
+        this.size = size;
+        p = new double[size];
+        i = new double[size];
+        d = new double[size];
+        f = new double[size];
+        reversed = new boolean[size];
+        maxIOutput = new double[size];
+        maxError = new double[size];
+        minOutput = new double[size];
+        maxOutput = new double[size];
+        rampRate = new double[size];
+        setpointRange = new double[size];
+        iLimit = new double[size];
+        errorLimit = new double[size];
+        outputMin = new double[size];
+        outputMax = new double[size];
+        rampLimit = new double[size];
+        rangeLimit = new double[size];
+        filter = new double[size];
+        errorSum = new double[size];
+        lastActual = new double[size];
+        lastOutput = new double[size];
+        firstRun = new boolean[size];
+        for (int s = 0; s < size; s++) {
+            firstRun[s] = true;
+            updateLimits(s);
+        }
+    }
+
+    /**
+     * @return The number of controllers in this bank.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Set the proportional gain of a controller. See {@link MiniPID#setP(double)}.
+     * 
+     * @param slot The controller.
+     * @param gain The proportional gain.
+     */
+    public void setP(int slot, double gain) {
+        p[slot] = gain;
+        checkSigns(slot);
+    }
+
+    /**
+     * Set the integral gain of a controller. The accumulated error is scaled so
+     * that the I term's output doesn't jump. See {@link MiniPID#setI(double)}.
+     * 
+     * @param slot The controller.
+     * @param gain The integral gain.
+     */
+    public void setI(int slot, double gain) {
+        if (i[slot] != 0) {
+            errorSum[slot] = errorSum[slot] * i[slot] / gain;
+        }
+        if (maxIOutput[slot] != 0) {
+            maxError[slot] = maxIOutput[slot] / gain;
+        }
+        i[slot] = gain;
+        checkSigns(slot);
+        updateLimits(slot);
+    }
+
+    /**
+     * Set the derivative gain of a controller. See {@link MiniPID#setD(double)}.
+     * 
+     * @param slot The controller.
+     * @param gain The derivative gain.
+     */
+    public void setD(int slot, double gain) {
+        d[slot] = gain;
+        checkSigns(slot);
+    }
+
+    /**
+     * Set the feed-forward gain of a controller. See
+     * {@link MiniPID#setF(double)}.
+     * 
+     * @param slot The controller.
+     * @param gain The feed-forward gain.
+     */
+    public void setF(int slot, double gain) {
+        f[slot] = gain;
+        checkSigns(slot);
+    }
+
+    /**
+     * Set the P, I and D gains of a controller at once.
+     * 
+     * @param slot The controller.
+     * @param p    The proportional gain.
+     * @param i    The integral gain.
+     * @param d    The derivative gain.
+     */
+    public void setPID(int slot, double p, double i, double d) {
+        this.p[slot] = p;
+        this.d[slot] = d;
+        setI(slot, i);
+    }
+
+    /**
+     * Set the maximum output contributed by the I term of a controller. See
+     * {@link MiniPID#setMaxIOutput(double)}.
+     * 
+     * @param slot    The controller.
+     * @param maximum The maximum I output, or 0 for no maximum.
+     */
+    public void setMaxIOutput(int slot, double maximum) {
+        maxIOutput[slot] = maximum;
+        if (i[slot] != 0) {
+            maxError[slot] = maximum / i[slot];
+        }
+        updateLimits(slot);
+    }
+
+    /**
+     * Set the output range of a controller. See
+     * {@link MiniPID#setOutputLimits(double, double)}.
+     * 
+     * @param slot    The controller.
+     * @param minimum The minimum output.
+     * @param maximum The maximum output. If it is equal to the minimum, the output
+     *                is not limited.
+     */
+    public void setOutputLimits(int slot, double minimum, double maximum) {
+        if (maximum < minimum) {
+            return;
+        }
+        minOutput[slot] = minimum;
+        maxOutput[slot] = maximum;
+        if (maxIOutput[slot] == 0 || maxIOutput[slot] > (maximum - minimum)) {
+            setMaxIOutput(slot, maximum - minimum);
+        }
+        updateLimits(slot);
+    }
+
+    /**
+     * Set the maximum amount a controller's output can change per cycle. See
+     * {@link MiniPID#setOutputRampRate(double)}.
+     * 
+     * @param slot The controller.
+     * @param rate The ramp rate, in output units per cycle, or 0 to disable.
+     */
+    public void setOutputRampRate(int slot, double rate) {
+        rampRate[slot] = rate;
+        updateLimits(slot);
+    }
+
+    /**
+     * Set how far a controller's setpoint can be from its current position. See
+     * {@link MiniPID#setSetpointRange(double)}.
+     * 
+     * @param slot  The controller.
+     * @param range The range, in sensor units, or 0 to disable.
+     */
+    public void setSetpointRange(int slot, double range) {
+        setpointRange[slot] = range;
+        updateLimits(slot);
+    }
+
+    /**
+     * Set a filter on a controller's output. See
+     * {@link MiniPID#setOutputFilter(double)}.
+     * 
+     * @param slot     The controller.
+     * @param strength The strength, in [0, 1). 0 disables filtering.
+     */
+    public void setOutputFilter(int slot, double strength) {
+        if (strength == 0 || (0 < strength && strength < 1)) {
+            filter[slot] = strength;
+        }
+    }
+
+    /**
+     * Set the direction of a controller. See
+     * {@link MiniPID#setDirection(boolean)}.
+     * 
+     * @param slot     The controller.
+     * @param reversed Whether or not the output is reversed.
+     */
+    public void setDirection(int slot, boolean reversed) {
+        this.reversed[slot] = reversed;
+    }
+
+    /**
+     * Reset a controller, erasing the I term buildup and removing the D term on
+     * the next cycle.
+     * 
+     * @param slot The controller.
+     */
+    public void reset(int slot) {
+        firstRun[slot] = true;
+        errorSum[slot] = 0;
+    }
+
+    /**
+     * Reset all the controllers in this bank.
+     */
+    public void reset() {
+        for (int s = 0; s < size; s++) {
+            reset(s);
+        }
+    }
+
+    /**
+     * Copy the settings and state of a controller, so that it can be moved from
+     * one bank to another without losing anything.
+     * 
+     * @param from     The bank to copy from.
+     * @param fromSlot The controller to copy.
+     * @param toSlot   The controller in this bank to copy it to.
+     */
+    public void copy(PidBank from, int fromSlot, int toSlot) {
+        p[toSlot] = from.p[fromSlot];
+        i[toSlot] = from.i[fromSlot];
+        d[toSlot] = from.d[fromSlot];
+        f[toSlot] = from.f[fromSlot];
+        reversed[toSlot] = from.reversed[fromSlot];
+        maxIOutput[toSlot] = from.maxIOutput[fromSlot];
+        maxError[toSlot] = from.maxError[fromSlot];
+        minOutput[toSlot] = from.minOutput[fromSlot];
+        maxOutput[toSlot] = from.maxOutput[fromSlot];
+        rampRate[toSlot] = from.rampRate[fromSlot];
+        setpointRange[toSlot] = from.setpointRange[fromSlot];
+        filter[toSlot] = from.filter[fromSlot];
+        errorSum[toSlot] = from.errorSum[fromSlot];
+        lastActual[toSlot] = from.lastActual[fromSlot];
+        lastOutput[toSlot] = from.lastOutput[fromSlot];
+        firstRun[toSlot] = from.firstRun[fromSlot];
+        updateLimits(toSlot);
+    }
+
+    /**
+     * Check whether a bank slot can do everything a MiniPID is set up to do. A
+     * bank has no time-aware mode and no derivative filter, so a MiniPID that
+     * uses either can't be moved into a bank.
+     * 
+     * @param pid The controller to check.
+     * @return Whether or not the controller can be copied into a bank.
+     */
+    public static boolean supports(MiniPID pid) {
+        return pid.period == 0 && pid.derivativeFilter == 0;
+    }
+
+    /**
+     * Copy the settings and state of a MiniPID into a controller, so that it can
+     * be moved into this bank without losing anything.
+     * 
+     * @param from   The controller to copy.
+     * @param toSlot The controller in this bank to copy it to.
+     * @throws IllegalArgumentException If the controller uses a feature that a
+     *                                  bank doesn't have. See
+     *                                  {@link #supports(MiniPID)}.
+     */
+    public void copy(MiniPID from, int toSlot) {
+        if (!supports(from)) {
+            throw new IllegalArgumentException("A PID bank has no time-aware mode or derivative filter.");
+        }
+        p[toSlot] = from.P;
+        i[toSlot] = from.I;
+        d[toSlot] = from.D;
+        f[toSlot] = from.F;
+        reversed[toSlot] = from.reversed;
+        maxIOutput[toSlot] = from.maxIOutput;
+        maxError[toSlot] = from.maxError;
+        minOutput[toSlot] = from.minOutput;
+        maxOutput[toSlot] = from.maxOutput;
+        rampRate[toSlot] = from.outputRampRate;
+        setpointRange[toSlot] = from.setpointRange;
+        filter[toSlot] = from.outputFilter;
+        errorSum[toSlot] = from.errorSum;
+        lastActual[toSlot] = from.lastActual;
+        lastOutput[toSlot] = from.lastOutput;
+        firstRun[toSlot] = from.firstRun;
+        updateLimits(toSlot);
+    }
+
+    /**
+     * Calculate the output of a single controller.
+     * 
+     * @param slot     The controller.
+     * @param actual   The current sensor value.
+     * @param setpoint The target value.
+     * @return The output of the controller.
+     */
+    public double getOutput(int slot, double actual, double setpoint) {
+        return calculate(slot, actual, setpoint);
+    }
+
+    /**
+     * Calculate the outputs of all the controllers in this bank. The arrays are
+     * indexed by slot, and must each have at least as many elements as the bank
+     * has slots.
+     * 
+     * @param actual   The current sensor values.
+     * @param setpoint The target values.
+     * @param output   The array to write the outputs into.
+     */
+    public void update(double[] actual, double[] setpoint, double[] output) {
+        if (actual.length < size || setpoint.length < size || output.length < size) {
+            throw new IllegalArgumentException("Arrays must have at least " + size + " elements.");
+        }
+        for (int s = 0; s < size; s++) {
+            output[s] = calculate(s, actual[s], setpoint[s]);
+        }
+    }
+
+    /**
+     * The PID calculation of MiniPID, with disabled features expressed as
+     * infinite limits so that they fall through without branching.
+     */
+    private double calculate(int s, double actual, double setpoint) {
+        double range = rangeLimit[s];
+        setpoint = constrain(setpoint, actual - range, actual + range);
+        double error = setpoint - actual;
+        double fOutput = f[s] * setpoint;
+        double pOutput = p[s] * error;
+        if (firstRun[s]) {
+            lastActual[s] = actual;
+            lastOutput[s] = pOutput + fOutput;
+            firstRun[s] = false;
+        }
+        double dOutput = -d[s] * (actual - lastActual[s]);
+        lastActual[s] = actual;
+        double iMax = iLimit[s];
+        double iOutput = constrain(i[s] * errorSum[s], -iMax, iMax);
+        double output = fOutput + pOutput + iOutput + dOutput;
+
+        /* Anti-windup: start the integral over when the output is being limited. */
+        double last = lastOutput[s];
+        double min = outputMin[s], max = outputMax[s], ramp = rampLimit[s];
+        boolean limited = !((min < output) && (output < max)) || !((last - ramp < output) && (output < last + ramp));
+        double errorMax = errorLimit[s];
+        errorSum[s] = limited ? error : constrain(errorSum[s] + error, -errorMax, errorMax);
+
+        output = constrain(output, last - ramp, last + ramp);
+        output = constrain(output, min, max);
+        double strength = filter[s];
+        if (strength != 0) {
+            output = last * strength + output * (1 - strength);
+        }
+        lastOutput[s] = output;
+        return output;
+    }
+
+    /**
+     * Recalculate the limits the update loop uses from the settings.
+     */
+    private void updateLimits(int s) {
+        iLimit[s] = (maxIOutput[s] != 0) ? maxIOutput[s] : NONE;
+        errorLimit[s] = (maxIOutput[s] != 0) ? maxError[s] : NONE;
+        boolean limited = minOutput[s] != maxOutput[s];
+        outputMin[s] = limited ? minOutput[s] : -NONE;
+        outputMax[s] = limited ? maxOutput[s] : NONE;
+        rampLimit[s] = (rampRate[s] != 0) ? rampRate[s] : NONE;
+        rangeLimit[s] = (setpointRange[s] != 0) ? setpointRange[s] : NONE;
+    }
+
+    /**
+     * All the gains must have the same sign as the direction.
+     */
+    private void checkSigns(int s) {
+        double sign = reversed[s] ? -1 : 1;
+        p[s] = sign * Math.abs(p[s]);
+        i[s] = sign * Math.abs(i[s]);
+        d[s] = sign * Math.abs(d[s]);
+        f[s] = sign * Math.abs(f[s]);
+    }
+
+    private static double constrain(double value, double min, double max) {
+        if (value > max) {
+            return max;
+        }
+        if (value < min) {
+            return min;
+        }
+        return value;
+    }
+}
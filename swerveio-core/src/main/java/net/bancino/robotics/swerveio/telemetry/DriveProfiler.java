@@ -0,0 +1,184 @@
+package net.bancino.robotics.swerveio.telemetry;
+
+/**
+ * Times each phase of a swerve drive's control loop, so that slow ticks can be
+ * traced to the calculator, a particular module's sensor, or a particular
+ * module's motor controllers. Every phase of every module has its own
+ * {@link LatencyHistogram}, and each phase also has a histogram across all
+ * the modules.
+ * <p>
+ * Profiling costs two reads of {@link System#nanoTime()} and a few atomic
+ * increments per phase, and nothing when it is disabled. It may be recorded
+ * from any thread.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public class DriveProfiler {
+
+    /**
+     * The phases of a control loop tick.
+     */
+    public static enum Phase {
+        /** The whole tick, from start to finish. */
+        TICK,
+        /** Calculating the module speeds and angles. */
+        KINEMATICS,
+        /** Reading a module's pivot encoder. */
+        SENSOR_READ,
+        /**
+         * Setting a module's pivot reference. With a pivot PID bank, calculating the
+         * bank is also recorded here, but not for any one module.
+         */
+        PIVOT_WRITE,
+        /** Setting a module's drive motor speed. */
+        DRIVE_WRITE
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final int moduleCount;
+    private final LatencyHistogram[] total;
+    private final LatencyHistogram[][] perModule;
+    private volatile boolean enabled = false;
+
+    /**
+     * Create a profiler. It is disabled until {@link #setEnabled(boolean)} is
+     * called.
+     * 
+     * @param moduleCount The number of modules to keep histograms for.
+     */
+    public DriveProfiler(int moduleCount) {
+        this.moduleCount = moduleCount;
+        total = new LatencyHistogram[PHASES.length];
+        perModule = new LatencyHistogram[PHASES.length][moduleCount];
+        for (Phase phase : PHASES) {
+            String name = phase.name().toLowerCase();
+            total[phase.ordinal()] = new LatencyHistogram(name);
+            for (int i = 0; i < moduleCount; i++) {
+                perModule[phase.ordinal()][i] = new LatencyHistogram(name + "[" + i + "]");
+            }
+        }
+    }
+
+    /**
+     * Turn profiling on or off. Histograms keep their values while profiling is
+     * off.
+     * 
+     * @param enabled Whether or not to record timings.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return Whether or not timings are being recorded.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Mark the start of a phase.
+     * 
+     * @return The current time, or 0 if profiling is disabled.
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Mark the end of a phase that isn't specific to a module, and record how
+     * long it took.
+     * 
+     * @param phase The phase that ended.
+     * @param start The time returned by {@link #start()} or the previous call to
+     *              record.
+     * @return The current time, which can be used as the start of the next phase,
+     *         or 0 if profiling is disabled.
+     */
+    public long record(Phase phase, long start) {
+        if (!enabled || start == 0) {
+            return start();
+        }
+        long now = System.nanoTime();
+        total[phase.ordinal()].record(now - start);
+        return now;
+    }
+
+    /**
+     * Mark the end of a phase for a specific module, and record how long it
+     * took.
+     * 
+     * @param phase  The phase that ended.
+     * @param module The index of the module.
+     * @param start  The time returned by {@link #start()} or the previous call to
+     *               record.
+     * @return The current time, which can be used as the start of the next phase,
+     *         or 0 if profiling is disabled.
+     */
+    public long record(Phase phase, int module, long start) {
+        if (!enabled || start == 0) {
+            return start();
+        }
+        long now = System.nanoTime();
+        long elapsed = now - start;
+        total[phase.ordinal()].record(elapsed);
+        perModule[phase.ordinal()][module].record(elapsed);
+        return now;
+    }
+
+    /**
+     * Get the histogram of a phase across all modules.
+     * 
+     * @param phase The phase.
+     * @return The histogram for that phase.
+     */
+    public LatencyHistogram getHistogram(Phase phase) {
+        return total[phase.ordinal()];
+    }
+
+    /**
+     * Get the histogram of a phase for a single module.
+     * 
+     * @param phase  The phase.
+     * @param module The index of the module.
+     * @return The histogram for that phase of that module.
+     */
+    public LatencyHistogram getHistogram(Phase phase, int module) {
+        return perModule[phase.ordinal()][module];
+    }
+
+    /**
+     * @return The number of modules this profiler keeps histograms for.
+     */
+    public int getModuleCount() {
+        return moduleCount;
+    }
+
+    /**
+     * Clear every histogram.
+     */
+    public void reset() {
+        for (Phase phase : PHASES) {
+            total[phase.ordinal()].reset();
+            for (LatencyHistogram histogram : perModule[phase.ordinal()]) {
+                histogram.reset();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Phase phase : PHASES) {
+            builder.append(total[phase.ordinal()]).append('\n');
+            if (phase != Phase.TICK && phase != Phase.KINEMATICS) {
+                for (LatencyHistogram histogram : perModule[phase.ordinal()]) {
+                    builder.append("  ").append(histogram).append('\n');
+                }
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,162 @@
+package net.bancino.robotics.swerveio.telemetry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, lock-free histogram of latencies. Values are sorted into
+ * logarithmic buckets, with eight linear sub-buckets for each power of two, so
+ * any value from a nanosecond to hours is recorded with at most 12.5% error in
+ * under four kilobytes. Recording a value is a handful of atomic increments, is
+ * safe from any number of threads, and never allocates.
+ * 
+ * @author Jordan Bancino
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BITS) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Create an empty histogram.
+     * 
+     * @param name The name of the histogram, used when printing it.
+     */
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Record a single latency. Negative values are recorded as 0.
+     * 
+     * @param nanos The latency, in nanoseconds.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(bucketOf(nanos));
+        count.incrementAndGet();
+        sum.addAndGet(nanos);
+        long currentMax;
+        while (nanos > (currentMax = max.get()) && !max.compareAndSet(currentMax, nanos)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Get the latency below which the given fraction of recorded values fall.
+     * The result is the upper edge of the bucket the percentile lands in, so it
+     * never underestimates.
+     * 
+     * @param percentile The percentile, between 0 and 100.
+     * @return The latency at that percentile, in nanoseconds, or 0 if nothing has
+     *         been recorded.
+     */
+    public long getPercentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil((Math.min(100, Math.max(0, percentile)) / 100.0) * total);
+        target = Math.max(1, target);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * @return The median latency, in nanoseconds.
+     */
+    public long getP50() {
+        return getPercentile(50);
+    }
+
+    /**
+     * @return The 99th percentile latency, in nanoseconds.
+     */
+    public long getP99() {
+        return getPercentile(99);
+    }
+
+    /**
+     * @return The largest latency recorded, in nanoseconds.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return The average latency, in nanoseconds.
+     */
+    public double getMean() {
+        long total = count.get();
+        return (total == 0) ? 0 : (double) sum.get() / total;
+    }
+
+    /**
+     * @return The number of latencies recorded.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return The name of this histogram.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Clear all recorded values. Values recorded while the histogram is being
+     * reset may or may not be kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return name + ": n=" + getCount() + ", p50=" + TimeUnit.NANOSECONDS.toMicros(getP50()) + "us, p99="
+                + TimeUnit.NANOSECONDS.toMicros(getP99()) + "us, max=" + TimeUnit.NANOSECONDS.toMicros(getMax())
+                + "us";
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + ((exponent - SUB_BITS) * SUB_BUCKETS) + sub;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = ((bucket - SUB_BUCKETS) / SUB_BUCKETS) + SUB_BITS;
+        long sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        int shift = exponent - SUB_BITS;
+        long lower = (SUB_BUCKETS + sub) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
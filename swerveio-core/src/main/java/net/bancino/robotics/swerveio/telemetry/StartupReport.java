@@ -0,0 +1,123 @@
+package net.bancino.robotics.swerveio.telemetry;
+
+/**
+ * How long it took to bring up each module of a swerve drive. Each module is
+ * timed in two parts: constructing it, which is mostly opening its motor
+ * controllers, and configuring it with the drive's modifier. Comparing the
+ * total with the sum of the modules shows how much was gained by starting them
+ * at the same time. Reports are immutable.
+ * 
+ * @author Jordan Bancino
+ */
+public class StartupReport {
+    private final String[] names;
+    private final long[] constructionNanos, configurationNanos;
+    private final long totalNanos;
+    private final int threads;
+
+    /**
+     * Create a startup report.
+     * 
+     * @param names              The name of each module.
+     * @param constructionNanos  How long each module took to construct, in
+     *                           nanoseconds.
+     * @param configurationNanos How long each module took to configure, in
+     *                           nanoseconds.
+     * @param totalNanos         How long it took to bring up all the modules, in
+     *                           nanoseconds.
+     * @param threads            How many threads the modules were brought up on.
+     */
+    public StartupReport(String[] names, long[] constructionNanos, long[] configurationNanos, long totalNanos,
+            int threads) {
+        if (names.length != constructionNanos.length || names.length != configurationNanos.length) {
+            throw new IllegalArgumentException("Every module must have a name and both timings.");
+        }
+        this.names = names.clone();
+        this.constructionNanos = constructionNanos.clone();
+        this.configurationNanos = configurationNanos.clone();
+        this.totalNanos = totalNanos;
+        this.threads = threads;
+    }
+
+    /**
+     * @return The number of modules in this report.
+     */
+    public int getModuleCount() {
+        return names.length;
+    }
+
+    /**
+     * @param module The index of the module.
+     * @return The name of the module.
+     */
+    public String getName(int module) {
+        return names[module];
+    }
+
+    /**
+     * @param module The index of the module.
+     * @return How long the module took to construct, in nanoseconds.
+     */
+    public long getConstructionNanos(int module) {
+        return constructionNanos[module];
+    }
+
+    /**
+     * @param module The index of the module.
+     * @return How long the module took to configure, in nanoseconds.
+     */
+    public long getConfigurationNanos(int module) {
+        return configurationNanos[module];
+    }
+
+    /**
+     * @param module The index of the module.
+     * @return How long the module took to construct and configure, in
+     *         nanoseconds.
+     */
+    public long getModuleNanos(int module) {
+        return constructionNanos[module] + configurationNanos[module];
+    }
+
+    /**
+     * @return How long it took to bring up all the modules, in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return How long it would have taken to bring up the modules one after
+     *         another, in nanoseconds.
+     */
+    public long getSerialNanos() {
+        long serial = 0;
+        for (int i = 0; i < names.length; i++) {
+            serial += getModuleNanos(i);
+        }
+        return serial;
+    }
+
+    /**
+     * @return How many threads the modules were brought up on.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Started %d modules on %d threads in %.1f ms (%.1f ms one after another)%n",
+                names.length, threads, millis(totalNanos), millis(getSerialNanos())));
+        for (int i = 0; i < names.length; i++) {
+            report.append(String.format("  %d %-24s construct %8.1f ms  configure %8.1f ms%n", i, names[i],
+                    millis(constructionNanos[i]), millis(configurationNanos[i])));
+        }
+        return report.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,163 @@
+package net.bancino.robotics.swerveio.telemetry;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A low-overhead trace channel for debugging values in the control loop. This
+ * replaces printing to the console, which is slow and synchronized, with a
+ * pre-allocated ring buffer of primitive records that is drained by a
+ * background thread.
+ * <p>
+ * Tracing is disabled by default, in which case {@link #record(int, double)}
+ * costs a single field check. Channels are registered once, usually in a static
+ * initializer, and then referred to by their integer ID:
+ * </p>
+ * 
+ * <pre>
+ * private static final int GYRO = Trace.register("drive.gyro");
+ * ...
+ * Trace.record(GYRO, gyroAngle);
+ * </pre>
+ * 
+ * The trace buffer supports a single producer, so records must only be made
+ * from the thread running the control loop. SwerveIO itself only records from
+ * {@code SwerveDriveController.drive()}.
+ * 
+ * @author Jordan Bancino
+ */
+public final class Trace {
+    /** The number of records the trace buffer can hold. */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /** How often the drain thread empties the trace buffer. */
+    public static final long DRAIN_PERIOD_MS = 20;
+
+    private static volatile boolean enabled = false;
+
+    private static final TraceBuffer buffer = new TraceBuffer(DEFAULT_CAPACITY);
+    private static volatile String[] channels = new String[0];
+    private static volatile TraceSink sink;
+    private static Thread drainThread;
+
+    private Trace() {
+    }
+
+    /**
+     * Register a trace channel. If a channel with this name has already been
+     * registered, its existing ID is returned.
+     * 
+     * @param name The name of the channel.
+     * @return The ID to pass to {@link #record(int, double)}.
+     */
+    public static synchronized int register(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("Trace channel name must not be null.");
+        }
+        for (int i = 0; i < channels.length; i++) {
+            if (channels[i].equals(name)) {
+                return i;
+            }
+        }
+        /* Copy on write so that the drain thread always sees a complete array. */
+        String[] newChannels = Arrays.copyOf(channels, channels.length + 1);
+        newChannels[channels.length] = name;
+        channels = newChannels;
+        return channels.length - 1;
+    }
+
+    /**
+     * Check whether or not tracing is enabled. Callers that need to do work to
+     * compute a value for tracing should check this first.
+     * 
+     * @return Whether or not trace records are being kept.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Record a value on the given channel. This does nothing if tracing is
+     * disabled, and never allocates or blocks. This must only be called from the
+     * thread running the control loop.
+     * 
+     * @param channel The channel ID, as returned by {@link #register(String)}.
+     * @param value   The value to record.
+     */
+    public static void record(int channel, double value) {
+        if (enabled) {
+            buffer.offer(System.nanoTime(), channel, value);
+        }
+    }
+
+    /**
+     * Enable tracing, printing all records to the standard output.
+     */
+    public static void enable() {
+        enable((timestamp, channel, value) -> System.out.println(
+                TimeUnit.NANOSECONDS.toMicros(timestamp) + " " + channel + ": " + value));
+    }
+
+    /**
+     * Enable tracing, passing all records to the given sink. If tracing is already
+     * enabled, the sink is replaced.
+     * 
+     * @param traceSink The sink to send trace records to.
+     */
+    public static synchronized void enable(TraceSink traceSink) {
+        if (traceSink == null) {
+            throw new IllegalArgumentException("Trace sink must not be null.");
+        }
+        sink = traceSink;
+        if (drainThread == null) {
+            drainThread = new Thread(Trace::drainLoop, "SwerveIO Trace");
+            drainThread.setDaemon(true);
+            drainThread.setPriority(Thread.MIN_PRIORITY);
+            drainThread.start();
+        }
+        enabled = true;
+    }
+
+    /**
+     * Disable tracing. Records that have already been made are still passed to
+     * the sink before the drain thread exits.
+     */
+    public static synchronized void disable() {
+        enabled = false;
+        if (drainThread != null) {
+            drainThread.interrupt();
+            drainThread = null;
+        }
+    }
+
+    /**
+     * Get the number of trace records that have been dropped because the drain
+     * thread could not keep up.
+     * 
+     * @return The number of dropped records.
+     */
+    public static long getDropped() {
+        return buffer.getDropped();
+    }
+
+    private static void drainLoop() {
+        long lastDropped = 0;
+        boolean running = true;
+        while (running) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(DRAIN_PERIOD_MS));
+            /* Drain once more after being interrupted so nothing is lost. */
+            running = !Thread.interrupted();
+            TraceSink currentSink = sink;
+            /* An old drain thread may still be finishing up; only one may consume. */
+            synchronized (buffer) {
+                int drained = buffer.drain(channels, currentSink);
+                long dropped = buffer.getDropped();
+                if (drained > 0 || dropped != lastDropped) {
+                    currentSink.flush(dropped);
+                    lastDropped = dropped;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package net.bancino.robotics.swerveio.telemetry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pre-allocated, lock-free ring buffer of primitive trace records. This buffer
+ * supports exactly one producer and one consumer. Records are stored in
+ * parallel primitive arrays, so writing a record never allocates. If the
+ * producer gets too far ahead of the consumer, new records are dropped and
+ * counted instead of blocking the producer.
+ * 
+ * @author Jordan Bancino
+ */
+public class TraceBuffer {
+    private final int mask;
+    private final long[] timestamps;
+    private final int[] channels;
+    private final double[] values;
+
+    /* The next slot the producer writes to, and the next slot the consumer reads. */
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Create a trace buffer.
+     * 
+     * @param capacity The number of records this buffer can hold. This is rounded
+     *                 up to the next power of two.
+     */
+    public TraceBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Trace buffer capacity must be positive.");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mask = size - 1;
+        timestamps = new long[size];
+        channels = new int[size];
+        values = new double[size];
+    }
+
+    /**
+     * Write a record into this buffer. This must only be called from the producer
+     * thread.
+     * 
+     * @param timestamp The time of the record.
+     * @param channel   The channel ID of the record.
+     * @param value     The value to record.
+     * @return Whether or not the record was written. If the buffer is full, the
+     *         record is dropped.
+     */
+    public boolean offer(long timestamp, int channel, double value) {
+        long h = head.get();
+        if (h - tail.get() > mask) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        int i = (int) h & mask;
+        timestamps[i] = timestamp;
+        channels[i] = channel;
+        values[i] = value;
+        /* Publish the record to the consumer. */
+        head.lazySet(h + 1);
+        return true;
+    }
+
+    /**
+     * Read all the available records out of this buffer. This must only be called
+     * from the consumer thread.
+     * 
+     * @param names The channel names, indexed by channel ID.
+     * @param sink  The sink to pass each record to.
+     * @return The number of records that were drained.
+     */
+    public int drain(String[] names, TraceSink sink) {
+        long t = tail.get();
+        long h = head.get();
+        int count = 0;
+        while (t < h) {
+            int i = (int) t & mask;
+            int channel = channels[i];
+            String name = (channel >= 0 && channel < names.length) ? names[channel] : null;
+            sink.accept(timestamps[i], (name != null) ? name : "#" + channel, values[i]);
+            t++;
+            count++;
+        }
+        /* Free the slots for the producer. */
+        tail.lazySet(t);
+        return count;
+    }
+
+    /**
+     * Discard all the records in this buffer without reading them. This must only
+     * be called from the consumer thread.
+     */
+    public void clear() {
+        tail.lazySet(head.get());
+    }
+
+    /**
+     * Get the number of records that were dropped because this buffer was full.
+     * 
+     * @return The total number of dropped records.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Get the maximum number of records this buffer can hold at once.
+     * 
+     * @return The capacity of this buffer.
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+}
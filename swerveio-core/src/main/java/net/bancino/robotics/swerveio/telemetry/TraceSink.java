@@ -0,0 +1,33 @@
+package net.bancino.robotics.swerveio.telemetry;
+
+/**
+ * A destination for trace records. The sink is only ever called from the trace
+ * drain thread, never from the control loop, so it is free to do slow things
+ * like printing or writing to a file.
+ * 
+ * @author Jordan Bancino
+ */
+@FunctionalInterface
+public interface TraceSink {
+
+    /**
+     * Accept a single trace record.
+     * 
+     * @param timestamp The value of {@link System#nanoTime()} when the record was
+     *                  made.
+     * @param channel   The name of the channel the record was made on.
+     * @param value     The value that was recorded.
+     */
+    public void accept(long timestamp, String channel, double value);
+
+    /**
+     * Called after each batch of records has been passed to this sink, and when
+     * records were dropped because the buffer was full. The default
+     * implementation does nothing.
+     * 
+     * @param dropped The total number of records that have been dropped since
+     *                tracing was enabled.
+     */
+    public default void flush(long dropped) {
+    }
+}
@@ -0,0 +1,113 @@
+package net.bancino.robotics.swerveio.tuning;
+
+import net.bancino.robotics.swerveio.function.ModuleModifier;
+
+/**
+ * A set of pivot PID settings. These are immutable, so they can be shared
+ * freely between threads.
+ * 
+ * @author Jordan Bancino
+ */
+public final class PidGains {
+    private final double p, i, d, f;
+    private final double rampRate;
+    private final double setpointRange;
+
+    /**
+     * Create a set of pivot PID settings.
+     * 
+     * @param p             The proportional gain.
+     * @param i             The integral gain.
+     * @param d             The derivative gain.
+     * @param f             The feed-forward gain.
+     * @param rampRate      The ramp rate of the pivot motor, in seconds from 0 to
+     *                      full output, or 0 for none.
+     * @param setpointRange The setpoint range, in pivot encoder counts, or 0 for
+     *                      none.
+     */
+    public PidGains(double p, double i, double d, double f, double rampRate, double setpointRange) {
+        this.p = p;
+        this.i = i;
+        this.d = d;
+        this.f = f;
+        this.rampRate = rampRate;
+        this.setpointRange = setpointRange;
+    }
+
+    /**
+     * @return The proportional gain.
+     */
+    public double getP() {
+        return p;
+    }
+
+    /**
+     * @return The integral gain.
+     */
+    public double getI() {
+        return i;
+    }
+
+    /**
+     * @return The derivative gain.
+     */
+    public double getD() {
+        return d;
+    }
+
+    /**
+     * @return The feed-forward gain.
+     */
+    public double getF() {
+        return f;
+    }
+
+    /**
+     * @return The ramp rate of the pivot motor, in seconds from 0 to full output.
+     */
+    public double getRampRate() {
+        return rampRate;
+    }
+
+    /**
+     * @return The setpoint range, in pivot encoder counts.
+     */
+    public double getSetpointRange() {
+        return setpointRange;
+    }
+
+    /**
+     * Create a module modifier that applies these settings to a module's pivot.
+     * It can be passed straight to a swerve drive, or combined with other
+     * settings in a lambda. The setpoint range is only set if it is used, so
+     * that modules that don't support it can still use the other settings.
+     * <p>
+     * The ramp rate is set as the pivot's open loop ramp rate. The pivot PID
+     * runs on the roboRIO by default and sends its output to the motor as an
+     * open loop output, which is what the tuner simulates. It is also set as
+     * the closed loop ramp rate, which only matters if the module closes the
+     * pivot loop on its motor controller.
+     * </p>
+     * 
+     * @return A module modifier for these settings.
+     */
+    public ModuleModifier toModuleModifier() {
+        return (module) -> {
+            module.setPivotPidP(p);
+            module.setPivotPidI(i);
+            module.setPivotPidD(d);
+            module.setPivotPidFF(f);
+            module.setPivotOpenLoopRampRate(rampRate);
+            module.setPivotClosedLoopRampRate(rampRate);
+            if (setpointRange > 0) {
+                module.setPivotPidSetpointRange(setpointRange);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "P=" + p + ", I=" + i + ", D=" + d + ", F=" + f + ", ramp rate=" + rampRate + ", setpoint range="
+                + setpointRange;
+    }
+}
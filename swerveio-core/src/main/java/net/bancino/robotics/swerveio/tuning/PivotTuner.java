@@ -0,0 +1,434 @@
+package net.bancino.robotics.swerveio.tuning;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+import net.bancino.robotics.swerveio.module.virtual.ManualClock;
+import net.bancino.robotics.swerveio.module.virtual.SimulationClock;
+import net.bancino.robotics.swerveio.module.virtual.VirtualSwerveModule;
+
+/**
+ * Tunes the pivot PID of a swerve module by simulating it. Thousands of
+ * candidate gains are each put through a set of step responses on a
+ * {@link VirtualSwerveModule}, and the one with the lowest cost wins. The cost
+ * weighs overshoot, settling time and control effort. Candidates are evaluated
+ * in parallel on a fork-join pool, so a full search uses every core.
+ * <p>
+ * The search starts by sampling the whole search space at random, then
+ * repeatedly samples around the best candidate so far in a shrinking
+ * neighborhood. Candidates are generated from a seeded random number generator
+ * and evaluated independently, so the same settings always produce the same
+ * gains, no matter how many threads are used.
+ * </p>
+ * 
+ * <pre>
+ * PivotTuner tuner = new PivotTuner(VirtualSwerveModule::new);
+ * PidGains gains = tuner.tune();
+ * ModuleModifier modifier = gains.toModuleModifier();
+ * </pre>
+ * <p>
+ * The results are only as good as the simulation, so the plant should be
+ * created with the motors, gear ratio and inertia of the real module. The
+ * gains found are a starting point for tuning on the robot, not a
+ * replacement for it.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public class PivotTuner {
+
+    /* The dimensions of the search space, in the order of PidGains. */
+    private static final int P = 0, I = 1, D = 2, F = 3, RAMP = 4, RANGE = 5, DIMENSIONS = 6;
+
+    /* Below this many candidates, a fork-join task evaluates them itself. */
+    private static final int SPLIT_THRESHOLD = 4;
+
+    private final Function<SimulationClock, VirtualSwerveModule> plant;
+    private final Dimension[] space = new Dimension[DIMENSIONS];
+
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private double countsPerPivotRevolution = 360;
+    private double loopPeriod = 0.02;
+    private double duration = 2.0;
+    private double tolerance = 1.0;
+    private double[] steps = { 15, 90, 180 };
+    private double overshootWeight = 2.0, settlingWeight = 1.0, effortWeight = 0.1;
+    private int candidates = 1024;
+    private int rounds = 8;
+    private long seed = 6090;
+
+    /**
+     * Create a tuner for the given module.
+     * 
+     * @param plant Creates the simulated module that the gains are tuned for,
+     *              running on the given clock. A new one is created for every
+     *              step response, so that they don't affect each other.
+     */
+    public PivotTuner(Function<SimulationClock, VirtualSwerveModule> plant) {
+        if (plant == null) {
+            throw new IllegalArgumentException("Plant must not be null.");
+        }
+        this.plant = plant;
+        space[P] = new Dimension(1e-4, 1, true, false);
+        space[I] = new Dimension(1e-7, 1e-2, true, true);
+        space[D] = new Dimension(1e-4, 10, true, true);
+        space[F] = new Dimension(1e-6, 1e-2, true, true);
+        space[RAMP] = new Dimension(0.01, 0.5, false, true);
+        space[RANGE] = new Dimension(5, 180, false, true);
+    }
+
+    /**
+     * Search for the best gains.
+     * 
+     * @return The gains with the lowest cost.
+     */
+    public PidGains tune() {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[][] population = new double[candidates][DIMENSIONS];
+        double[] costs = new double[candidates];
+        double[] best = null;
+        double bestCost = Double.POSITIVE_INFINITY;
+        double spread = 1;
+        for (int round = 0; round < rounds; round++) {
+            for (int c = 0; c < candidates; c++) {
+                for (int dim = 0; dim < DIMENSIONS; dim++) {
+                    double u = random.nextDouble();
+                    if (best != null) {
+                        /* Sample the neighborhood of the best candidate. */
+                        u = best[dim] + ((u * 2) - 1) * spread;
+                    }
+                    population[c][dim] = Math.max(0, Math.min(1, u));
+                }
+            }
+            /* Always keep the best so far, so a round can't make things worse. */
+            if (best != null) {
+                System.arraycopy(best, 0, population[0], 0, DIMENSIONS);
+            } else {
+                /* Try 0 for everything that may be 0, like a plain P loop. */
+                for (int dim = 0; dim < DIMENSIONS; dim++) {
+                    if (space[dim].zero) {
+                        population[0][dim] = 0;
+                    }
+                }
+            }
+            pool.invoke(new Evaluation(population, costs, 0, candidates));
+            for (int c = 0; c < candidates; c++) {
+                if (costs[c] < bestCost) {
+                    bestCost = costs[c];
+                    best = population[c].clone();
+                }
+            }
+            spread *= 0.5;
+        }
+        return toGains(best);
+    }
+
+    /**
+     * Simulate the step responses of the given gains.
+     * 
+     * @param gains The gains to simulate.
+     * @return How well the gains performed.
+     */
+    public StepResponse evaluate(PidGains gains) {
+        double overshoot = 0, settlingTime = 0, effort = 0, cost = 0;
+        for (double step : steps) {
+            ManualClock clock = new ManualClock();
+            VirtualSwerveModule module = plant.apply(clock);
+            module.setPivotCountsPerRevolution(countsPerPivotRevolution);
+            gains.toModuleModifier().modify(module);
+
+            double target = step * countsPerPivotRevolution / 360;
+            double band = tolerance * countsPerPivotRevolution / 360;
+            long period = (long) (loopPeriod * 1e9);
+            double maxOvershoot = 0, lastUnsettled = 0, stepEffort = 0, error = target;
+            for (double time = 0; time < duration; time += loopPeriod) {
+                module.setPivotReference(target);
+                clock.advance(period);
+                error = target - module.getPivotMotorEncoder();
+                maxOvershoot = Math.max(maxOvershoot, -error);
+                stepEffort += Math.abs(module.getPivotMotorSpeed()) * loopPeriod;
+                if (Math.abs(error) > band) {
+                    lastUnsettled = time + loopPeriod;
+                }
+            }
+            double stepSettlingTime = lastUnsettled;
+            if (Math.abs(error) > band) {
+                /* It never settled. Penalize it for how far away it still is. */
+                stepSettlingTime = duration * (1 + Math.abs(error) / target);
+            }
+            overshoot += maxOvershoot / target;
+            settlingTime += stepSettlingTime;
+            effort += stepEffort;
+            cost += (overshootWeight * maxOvershoot / target) + (settlingWeight * stepSettlingTime)
+                    + (effortWeight * stepEffort);
+        }
+        int n = steps.length;
+        return new StepResponse(overshoot / n, settlingTime / n, effort / n, cost / n);
+    }
+
+    /**
+     * Set the pool the candidates are evaluated on. By default, the common pool
+     * is used.
+     * 
+     * @param pool The fork-join pool to use.
+     */
+    public void setPool(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool must not be null.");
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * Set the resolution of the pivot encoder, which the gains are in terms of.
+     * 
+     * @param countsPerPivotRevolution The number of counts it takes to rotate the
+     *                                 module a full 360 degrees. 360 by default.
+     */
+    public void setCountsPerPivotRevolution(double countsPerPivotRevolution) {
+        if (countsPerPivotRevolution <= 0) {
+            throw new IllegalArgumentException("Counts per pivot revolution must be positive.");
+        }
+        this.countsPerPivotRevolution = countsPerPivotRevolution;
+    }
+
+    /**
+     * Set how often the pivot reference is set during a step response. This
+     * should match the robot's loop.
+     * 
+     * @param loopPeriod The period, in seconds. 0.02 by default.
+     */
+    public void setLoopPeriod(double loopPeriod) {
+        if (loopPeriod <= 0) {
+            throw new IllegalArgumentException("Loop period must be positive.");
+        }
+        this.loopPeriod = loopPeriod;
+    }
+
+    /**
+     * Set how long each step response is simulated for.
+     * 
+     * @param duration The duration, in seconds. 2 by default.
+     */
+    public void setDuration(double duration) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("Duration must be positive.");
+        }
+        this.duration = duration;
+    }
+
+    /**
+     * Set how close to its target the pivot must stay to be settled.
+     * 
+     * @param tolerance The tolerance, in degrees. 1 by default.
+     */
+    public void setTolerance(double tolerance) {
+        if (tolerance <= 0) {
+            throw new IllegalArgumentException("Tolerance must be positive.");
+        }
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Set the steps that each candidate is tested with.
+     * 
+     * @param steps The sizes of the steps, in degrees. 15, 90 and 180 degrees by
+     *              default.
+     */
+    public void setSteps(double... steps) {
+        if (steps == null || steps.length == 0) {
+            throw new IllegalArgumentException("At least one step is required.");
+        }
+        for (double step : steps) {
+            if (step <= 0) {
+                throw new IllegalArgumentException("Steps must be positive.");
+            }
+        }
+        this.steps = steps.clone();
+    }
+
+    /**
+     * Set how much each measure of a step response counts towards its cost.
+     * 
+     * @param overshoot    The weight of the overshoot, as a fraction of the step.
+     *                     2 by default.
+     * @param settlingTime The weight of the settling time, in seconds. 1 by
+     *                     default.
+     * @param effort       The weight of the control effort, in seconds at full
+     *                     output. 0.1 by default.
+     */
+    public void setWeights(double overshoot, double settlingTime, double effort) {
+        if (overshoot < 0 || settlingTime < 0 || effort < 0) {
+            throw new IllegalArgumentException("Weights can't be negative.");
+        }
+        this.overshootWeight = overshoot;
+        this.settlingWeight = settlingTime;
+        this.effortWeight = effort;
+    }
+
+    /**
+     * Set how long the search runs for.
+     * 
+     * @param candidates The number of candidates evaluated in each round. 1024 by
+     *                   default.
+     * @param rounds     The number of rounds. Each round after the first searches
+     *                   half as far from the best candidate as the last. 8 by
+     *                   default.
+     */
+    public void setSearch(int candidates, int rounds) {
+        if (candidates < 1 || rounds < 1) {
+            throw new IllegalArgumentException("There must be at least one candidate and one round.");
+        }
+        this.candidates = candidates;
+        this.rounds = rounds;
+    }
+
+    /**
+     * Set the seed that candidates are generated from.
+     * 
+     * @param seed The seed.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Set the range searched for the proportional gain. The search is done on a
+     * log scale.
+     * 
+     * @param min The smallest gain. Must be positive.
+     * @param max The largest gain.
+     */
+    public void setPRange(double min, double max) {
+        space[P] = new Dimension(min, max, true, false);
+    }
+
+    /**
+     * Set the range searched for the integral gain. The search is done on a log
+     * scale, and 0 is always tried.
+     * 
+     * @param min The smallest non-zero gain. Must be positive.
+     * @param max The largest gain.
+     */
+    public void setIRange(double min, double max) {
+        space[I] = new Dimension(min, max, true, true);
+    }
+
+    /**
+     * Set the range searched for the derivative gain. The search is done on a log
+     * scale, and 0 is always tried.
+     * 
+     * @param min The smallest non-zero gain. Must be positive.
+     * @param max The largest gain.
+     */
+    public void setDRange(double min, double max) {
+        space[D] = new Dimension(min, max, true, true);
+    }
+
+    /**
+     * Set the range searched for the feed-forward gain. The search is done on a
+     * log scale, and 0 is always tried.
+     * 
+     * @param min The smallest non-zero gain. Must be positive.
+     * @param max The largest gain.
+     */
+    public void setFRange(double min, double max) {
+        space[F] = new Dimension(min, max, true, true);
+    }
+
+    /**
+     * Set the range searched for the ramp rate of the pivot motor. No ramping is
+     * always tried.
+     * 
+     * @param min The smallest ramp rate, in seconds from 0 to full output.
+     * @param max The largest ramp rate.
+     */
+    public void setRampRateRange(double min, double max) {
+        space[RAMP] = new Dimension(min, max, false, true);
+    }
+
+    /**
+     * Set the range searched for the setpoint range. No setpoint range is always
+     * tried.
+     * 
+     * @param min The smallest setpoint range, in degrees.
+     * @param max The largest setpoint range.
+     */
+    public void setSetpointRangeRange(double min, double max) {
+        space[RANGE] = new Dimension(min, max, false, true);
+    }
+
+    /**
+     * Convert a point in the unit search space to gains.
+     */
+    private PidGains toGains(double[] point) {
+        return new PidGains(space[P].at(point[P]), space[I].at(point[I]), space[D].at(point[D]),
+                space[F].at(point[F]), space[RAMP].at(point[RAMP]),
+                space[RANGE].at(point[RANGE]) * countsPerPivotRevolution / 360);
+    }
+
+    /**
+     * One dimension of the search space, which maps [0, 1] onto a range of
+     * values.
+     */
+    private static class Dimension {
+        /* The part of the unit range that maps to 0, when 0 is allowed. */
+        private static final double ZERO = 0.1;
+
+        private final double min, max;
+        private final boolean log, zero;
+
+        private Dimension(double min, double max, boolean log, boolean zero) {
+            if (min > max || min < 0 || (log && min <= 0)) {
+                throw new IllegalArgumentException("Invalid search range: [" + min + ", " + max + "].");
+            }
+            this.min = min;
+            this.max = max;
+            this.log = log;
+            this.zero = zero;
+        }
+
+        private double at(double u) {
+            if (zero) {
+                if (u < ZERO) {
+                    return 0;
+                }
+                u = (u - ZERO) / (1 - ZERO);
+            }
+            return log ? min * Math.pow(max / min, u) : min + (max - min) * u;
+        }
+    }
+
+    /**
+     * Evaluates a slice of the candidates, splitting it in half until it is small
+     * enough to do directly.
+     */
+    private class Evaluation extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[][] population;
+        private final double[] costs;
+        private final int from, to;
+
+        private Evaluation(double[][] population, double[] costs, int from, int to) {
+            this.population = population;
+            this.costs = costs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int c = from; c < to; c++) {
+                    costs[c] = evaluate(toGains(population[c])).getCost();
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Evaluation(population, costs, from, mid), new Evaluation(population, costs, mid, to));
+            }
+        }
+    }
+}
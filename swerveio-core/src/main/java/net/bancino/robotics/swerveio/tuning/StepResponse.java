@@ -0,0 +1,58 @@
+package net.bancino.robotics.swerveio.tuning;
+
+/**
+ * How well a set of gains performed in the tuner's simulated step responses.
+ * Each measure is averaged over all the steps that were simulated.
+ * 
+ * @author Jordan Bancino
+ */
+public final class StepResponse {
+    private final double overshoot;
+    private final double settlingTime;
+    private final double effort;
+    private final double cost;
+
+    StepResponse(double overshoot, double settlingTime, double effort, double cost) {
+        this.overshoot = overshoot;
+        this.settlingTime = settlingTime;
+        this.effort = effort;
+        this.cost = cost;
+    }
+
+    /**
+     * @return How far the pivot went past its target, as a fraction of the step.
+     */
+    public double getOvershoot() {
+        return overshoot;
+    }
+
+    /**
+     * @return How long it took for the pivot to stay within the tolerance of its
+     *         target, in seconds. A step that never settled counts as the whole
+     *         simulation, plus a penalty for the remaining error.
+     */
+    public double getSettlingTime() {
+        return settlingTime;
+    }
+
+    /**
+     * @return The integral of the absolute pivot output over time, in seconds at
+     *         full output.
+     */
+    public double getEffort() {
+        return effort;
+    }
+
+    /**
+     * @return The weighted cost that the tuner minimizes. Lower is better.
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    @Override
+    public String toString() {
+        return "cost=" + cost + ", overshoot=" + (overshoot * 100) + "%, settling time=" + settlingTime
+                + " s, effort=" + effort;
+    }
+}
@@ -0,0 +1,99 @@
+package net.bancino.robotics.swerveio;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import net.bancino.robotics.swerveio.kinematics.SwerveGeometry;
+
+/**
+ * Check the wheel speeds and angles calculated for rectangular and
+ * non-rectangular drive bases.
+ * 
+ * @author Jordan Bancino
+ */
+public class SwerveDriveCalculatorTest {
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void testDriveStraight() {
+        SwerveDriveCalculator calc = new SwerveDriveCalculator(20, 22);
+        double[] speeds = new double[4], angles = new double[4];
+        calc.calculate(0.5, 0, 0, 0, speeds, angles);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0.5, speeds[i], EPSILON);
+            assertEquals(0, angles[i], EPSILON);
+        }
+        calc.calculate(0, 0.5, 0, 0, speeds, angles);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0.5, speeds[i], EPSILON);
+            assertEquals(90, angles[i], EPSILON);
+        }
+    }
+
+    @Test
+    public void testCalculateMatchesEachModule() {
+        SwerveDriveCalculator calc = new SwerveDriveCalculator(20, 22);
+        double[] speeds = new double[4], angles = new double[4];
+        double fwd = 0.3, str = -0.2, rcw = 0.25;
+        calc.calculate(fwd, str, rcw, 0, speeds, angles);
+        for (SwerveModule module : SwerveModule.values()) {
+            int i = module.ordinal();
+            assertEquals(calc.getWheelSpeed(module, fwd, str, rcw), speeds[i], EPSILON, module.toString());
+            assertEquals(calc.getWheelAngle(module, fwd, str, rcw), angles[i], EPSILON, module.toString());
+        }
+
+        calc.calculate(fwd, str, rcw, 30, speeds, angles);
+        for (SwerveModule module : SwerveModule.values()) {
+            int i = module.ordinal();
+            assertEquals(calc.getWheelAngle(module, fwd, str, rcw, 30), angles[i], EPSILON, module.toString());
+        }
+    }
+
+    @Test
+    public void testScalesWheelsTogether() {
+        SwerveGeometry geometry = SwerveGeometry.rectangle(20, 22);
+        SwerveDriveCalculator calc = new SwerveDriveCalculator(geometry);
+        double[] speeds = new double[4], angles = new double[4];
+        calc.calculate(1, 0, 1, 0, speeds, angles);
+
+        double[] vectors = new double[8];
+        geometry.toModuleVectors(1, 0, 1, vectors);
+        double max = 0;
+        for (int i = 0; i < 4; i++) {
+            max = Math.max(max, Math.hypot(vectors[2 * i], vectors[2 * i + 1]));
+        }
+        for (int i = 0; i < 4; i++) {
+            /* The fastest wheel is at full speed, and the others keep their ratio to it. */
+            assertEquals(Math.hypot(vectors[2 * i], vectors[2 * i + 1]) / max, speeds[i], EPSILON);
+        }
+    }
+
+    @Test
+    public void testThreeModules() {
+        double[] x = new double[3], y = new double[3];
+        for (int i = 0; i < 3; i++) {
+            x[i] = Math.cos(Math.toRadians(120 * i));
+            y[i] = Math.sin(Math.toRadians(120 * i));
+        }
+        SwerveDriveCalculator calc = new SwerveDriveCalculator(new SwerveGeometry(x, y));
+        assertEquals(3, calc.getModuleCount());
+        double[] speeds = new double[3], angles = new double[3];
+        calc.calculate(0, 0, 1, 0, speeds, angles);
+        for (int i = 0; i < 3; i++) {
+            /* Spinning in place, each wheel is at full speed, at right angles to its radius. */
+            assertEquals(1, speeds[i], EPSILON);
+            double tangent = Math.IEEEremainder(angles[i] - (120 * i) - 90, 360);
+            assertEquals(0, tangent, EPSILON);
+        }
+    }
+
+    @Test
+    public void testModulePositionsNeedFourModules() {
+        SwerveDriveCalculator calc = new SwerveDriveCalculator(
+                new SwerveGeometry(new double[] { 1, -1, 0 }, new double[] { 0, 0, 1 }));
+        assertThrows(IllegalStateException.class, () -> calc.getWheelSpeed(SwerveModule.FRONT_LEFT, 1, 0, 0));
+        assertThrows(IllegalStateException.class, () -> calc.getWheelAngle(SwerveModule.REAR_RIGHT, 1, 0, 0));
+    }
+}
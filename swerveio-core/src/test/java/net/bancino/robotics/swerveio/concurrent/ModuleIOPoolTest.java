@@ -0,0 +1,187 @@
+package net.bancino.robotics.swerveio.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Test;
+
+import net.bancino.robotics.swerveio.SwerveImplementationException;
+import net.bancino.robotics.swerveio.module.virtual.ManualClock;
+import net.bancino.robotics.swerveio.module.virtual.VirtualSwerveModule;
+
+/**
+ * Check that the module I/O pool writes each frame whole and in order, even
+ * while the caller fills in the next one, and that a module's exception is
+ * thrown by the next operation without stopping the pool.
+ * 
+ * @author Jordan Bancino
+ */
+public class ModuleIOPoolTest {
+    private static final int MODULES = 4;
+    private static final int TICKS = 200;
+
+    @Test
+    public void testFramesInOrder() {
+        RecordingModule[] modules = modules();
+        try (ModuleIOPool pool = new ModuleIOPool(modules, 2, false)) {
+            double[] positions = new double[MODULES];
+            for (int tick = 1; tick <= TICKS; tick++) {
+                pool.readPivotEncoders(positions);
+                for (int i = 0; i < MODULES; i++) {
+                    /* Reading waits for the last frame to be written. */
+                    assertEquals((i * 1000) + tick - 1, positions[i], 0, "Module " + i + ", tick " + tick);
+                    assertEquals(tick - 1, modules[i].writes, "Module " + i + ", tick " + tick);
+                }
+                fill(pool.getBackFrame(), tick);
+                pool.commit();
+                /* The workers are writing the committed frame; scribble on the next one. */
+                fill(pool.getBackFrame(), -tick);
+            }
+            pool.flush();
+        }
+        for (RecordingModule module : modules) {
+            assertEquals(TICKS, module.writes);
+            assertEquals(0, module.torn, "A module was sent part of a frame that wasn't committed yet.");
+            assertEquals(0, module.outOfOrder, "A module was sent frames out of order.");
+        }
+    }
+
+    @Test
+    public void testRethrowsOnNextOperation() {
+        RecordingModule[] modules = modules();
+        try (ModuleIOPool pool = new ModuleIOPool(modules)) {
+            double[] positions = new double[MODULES];
+            SwerveImplementationException failure = new SwerveImplementationException("Lost the CAN bus.");
+            modules[2].failure = failure;
+            fill(pool.getBackFrame(), 1);
+            /* Writes aren't waited on, so commit returns normally. */
+            pool.commit();
+            assertSame(failure, assertThrows(SwerveImplementationException.class,
+                    () -> pool.readPivotEncoders(positions)));
+
+            /* The failure is only thrown once, and the workers are still there. */
+            modules[2].failure = null;
+            pool.readPivotEncoders(positions);
+            assertEquals(2000, positions[2], 0);
+
+            IllegalStateException unchecked = new IllegalStateException("Not configured.");
+            modules[1].failure = unchecked;
+            fill(pool.getBackFrame(), 2);
+            pool.commit();
+            SwerveImplementationException wrapped = assertThrows(SwerveImplementationException.class, pool::flush);
+            assertSame(unchecked, wrapped.getCause());
+
+            AssertionError error = new AssertionError("Errors pass through.");
+            modules[1].failure = null;
+            modules[0].failure = error;
+            fill(pool.getBackFrame(), 3);
+            pool.commit();
+            assertSame(error, assertThrows(AssertionError.class, pool::flush));
+
+            modules[0].failure = null;
+            fill(pool.getBackFrame(), 4);
+            pool.commit();
+            pool.flush();
+            for (RecordingModule module : modules) {
+                assertEquals(4, module.lastTick, 0);
+            }
+        }
+    }
+
+    @Test
+    public void testClosedPoolRefusesWork() {
+        ModuleIOPool pool = new ModuleIOPool(modules());
+        pool.close();
+        assertThrows(IllegalStateException.class, pool::commit);
+        assertFalse(pool.isVirtual());
+        assertEquals(MODULES, pool.getWorkerCount());
+    }
+
+    private static RecordingModule[] modules() {
+        RecordingModule[] modules = new RecordingModule[MODULES];
+        for (int i = 0; i < MODULES; i++) {
+            modules[i] = new RecordingModule(i);
+        }
+        return modules;
+    }
+
+    /**
+     * Fill in a frame so that each module can tell which tick it came from.
+     */
+    private static void fill(ModuleIOPool.Frame frame, int tick) {
+        frame.driveVelocity = (tick & 1) == 0;
+        for (int i = 0; i < MODULES; i++) {
+            frame.pivotReferences[i] = tick;
+            frame.pivotPositions[i] = tick;
+            frame.driveSpeeds[i] = tick;
+            frame.driveFeedforwards[i] = tick;
+        }
+    }
+
+    /**
+     * A module that records what it is sent, and takes a while to send it, like
+     * a round trip over the CAN bus. Its fields are only read by the test once
+     * the pool has waited on the workers.
+     */
+    private static class RecordingModule extends VirtualSwerveModule {
+        private final int index;
+        private volatile Throwable failure;
+        private int writes, torn, outOfOrder;
+        private double lastTick, pivotTick;
+
+        private RecordingModule(int index) {
+            super(new ManualClock());
+            this.index = index;
+        }
+
+        @Override
+        public double getPivotMotorEncoder() {
+            fail();
+            return (index * 1000) + writes;
+        }
+
+        @Override
+        public void setPivotReference(double ref, double position) {
+            fail();
+            if (ref != position) {
+                torn++;
+            }
+            pivotTick = ref;
+            LockSupport.parkNanos(20_000);
+        }
+
+        @Override
+        public void setDriveMotorSpeed(double speed) {
+            drive(speed, speed);
+        }
+
+        @Override
+        public void setDriveVelocity(double velocity, double feedforward) {
+            drive(velocity, feedforward);
+        }
+
+        private void drive(double speed, double feedforward) {
+            if (speed != pivotTick || feedforward != pivotTick) {
+                torn++;
+            }
+            if (speed <= lastTick) {
+                outOfOrder++;
+            }
+            lastTick = speed;
+            writes++;
+        }
+
+        private void fail() {
+            Throwable e = failure;
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            } else if (e instanceof Error) {
+                throw (Error) e;
+            }
+        }
+    }
+}
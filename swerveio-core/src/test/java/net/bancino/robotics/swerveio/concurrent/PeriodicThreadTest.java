@@ -0,0 +1,71 @@
+package net.bancino.robotics.swerveio.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Check that a periodic thread keeps running when its task throws, and that
+ * stopping and starting it again never runs the task twice at once.
+ * 
+ * @author Jordan Bancino
+ */
+public class PeriodicThreadTest {
+    private static final long TIMEOUT = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    public void testSurvivesErrors() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        PeriodicThread thread = new PeriodicThread("Test", () -> {
+            if (runs.incrementAndGet() % 2 == 1) {
+                throw new AssertionError("Every other run fails.");
+            }
+        }, 1000);
+        thread.start();
+        waitFor(() -> runs.get() >= 10);
+        assertTrue(thread.isRunning(), "The thread should survive its task throwing.");
+        thread.stop();
+        assertFalse(thread.isRunning());
+        assertEquals((runs.get() + 1) / 2, thread.getErrors());
+        assertTrue(thread.getLastError() instanceof AssertionError);
+    }
+
+    @Test
+    public void testRestartNeverOverlaps() throws InterruptedException {
+        AtomicInteger active = new AtomicInteger(), overlaps = new AtomicInteger(), runs = new AtomicInteger();
+        PeriodicThread thread = new PeriodicThread("Test", () -> {
+            if (active.incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            runs.incrementAndGet();
+            /* Long enough that stop() is likely to land mid-run. */
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1);
+            while (System.nanoTime() < end) {
+                Thread.onSpinWait();
+            }
+            active.decrementAndGet();
+        }, 500);
+        for (int i = 0; i < 20; i++) {
+            thread.start();
+            int started = runs.get();
+            waitFor(() -> runs.get() > started);
+            thread.stop();
+            assertEquals(0, active.get(), "stop() returned while the task was running.");
+        }
+        assertEquals(0, overlaps.get());
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long start = System.nanoTime();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() - start < TIMEOUT, "Timed out.");
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package net.bancino.robotics.swerveio.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Check that readers of a sequence lock never see a write half done, while a
+ * writer publishes as fast as it can.
+ * 
+ * @author Jordan Bancino
+ */
+public class SeqLockTest {
+    private static final int READERS = 3;
+    private static final long DURATION = TimeUnit.MILLISECONDS.toNanos(300);
+
+    private final SeqLock lock = new SeqLock();
+
+    /* Protected by the lock. Every write keeps b == -a and c == 2 * a. */
+    private double a, b;
+    private long c;
+
+    @Test
+    public void testNeverTorn() throws InterruptedException {
+        AtomicLong torn = new AtomicLong(), reads = new AtomicLong();
+        long end = System.nanoTime() + DURATION;
+        Thread writer = new Thread(() -> {
+            for (long i = 1; System.nanoTime() < end; i++) {
+                lock.beginWrite();
+                a = i;
+                b = -i;
+                c = 2 * i;
+                lock.endWrite();
+            }
+        });
+        Thread[] readers = new Thread[READERS];
+        for (int r = 0; r < READERS; r++) {
+            readers[r] = new Thread(() -> {
+                long last = 0;
+                while (System.nanoTime() < end) {
+                    double x, y;
+                    long z, seq;
+                    do {
+                        seq = lock.beginRead();
+                        x = a;
+                        /* Give the writer a chance to get in the middle of the read. */
+                        Thread.yield();
+                        y = b;
+                        z = c;
+                    } while (!lock.endRead(seq));
+                    if (y != -x || z != 2 * (long) x || z < last) {
+                        torn.incrementAndGet();
+                    }
+                    last = z;
+                    reads.incrementAndGet();
+                }
+            });
+        }
+        writer.start();
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertTrue(reads.get() > 0, "The readers never got a read in.");
+        assertEquals(0, torn.get(), "A reader saw a write half done, or went back in time.");
+        assertEquals((long) a, lock.getVersion());
+    }
+}
@@ -0,0 +1,151 @@
+package net.bancino.robotics.swerveio.encoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Check that sampled encoders are read consistently while the sampler
+ * publishes, flag samples that are too old, and predict from a single sample.
+ * 
+ * @author Jordan Bancino
+ */
+public class EncoderSamplerTest {
+    private static final long TIMEOUT = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    public void testReadsInOrderWhileSampling() throws InterruptedException {
+        EncoderSampler sampler = new EncoderSampler(5000);
+        CountingEncoder raw = new CountingEncoder();
+        SampledEncoder sampled = sampler.register(raw);
+        AtomicLong backwards = new AtomicLong();
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+        Thread reader = new Thread(() -> {
+            double lastValue = 0;
+            long lastTime = 0;
+            while (System.nanoTime() < end) {
+                long time = sampled.getTimestamp();
+                double value = sampled.get();
+                if (value < lastValue || time < lastTime) {
+                    backwards.incrementAndGet();
+                }
+                lastValue = value;
+                lastTime = time;
+            }
+        });
+        sampler.start();
+        try {
+            reader.start();
+            reader.join();
+        } finally {
+            sampler.stop();
+        }
+        assertEquals(0, backwards.get(), "A read went back to an older sample.");
+        assertTrue(sampled.get() > 1, "The sampler never sampled.");
+        assertEquals(raw.count, sampled.get(), 0);
+    }
+
+    @Test
+    public void testFlagsStaleSamples() throws InterruptedException {
+        /* Samples go stale after 5 periods, 25 ms. */
+        EncoderSampler sampler = new EncoderSampler(200);
+        SampledEncoder sampled = sampler.register(new CountingEncoder());
+        Thread.sleep(100);
+        assertTrue(sampled.isStale(), "The sampler hasn't been started.");
+        assertTrue(sampler.isAnyStale());
+
+        sampler.start();
+        try {
+            waitFor(() -> !sampler.isAnyStale());
+            assertTrue(sampler.getOldestSampleAge(TimeUnit.MILLISECONDS) < 1000);
+        } finally {
+            sampler.stop();
+        }
+        Thread.sleep(100);
+        assertTrue(sampled.isStale(), "The sampler has been stopped.");
+
+        sampled.setStaleThreshold(TimeUnit.SECONDS.toNanos(60));
+        assertFalse(sampled.isStale());
+    }
+
+    @Test
+    public void testKeepsLastSampleOnFailure() throws InterruptedException {
+        CountingEncoder raw = new CountingEncoder();
+        SampledEncoder sampled = new EncoderSampler(200).register(raw);
+        sampled.sample();
+        assertEquals(2, sampled.get(), 0);
+
+        raw.failing = true;
+        sampled.setStaleThreshold(TimeUnit.MILLISECONDS.toNanos(10));
+        Thread.sleep(20);
+        sampled.sample();
+        assertEquals(2, sampled.get(), 0);
+        assertEquals(1, sampled.getFailures());
+        assertTrue(sampled.isStale(), "A failed read must not refresh the sample.");
+    }
+
+    @Test
+    public void testExtrapolatesFromOneSample() {
+        CountingEncoder raw = new CountingEncoder();
+        raw.velocity = 10;
+        long before = System.nanoTime();
+        SampledEncoder sampled = new EncoderSampler(200).register(raw);
+        double predicted = sampled.extrapolate(0.5);
+        double age = (System.nanoTime() - before) / 1e9;
+        assertTrue(sampled.hasVelocity());
+        assertEquals(10, sampled.getVelocity(), 0);
+        /* 1, moved on by 10 per second for the sensor delay and the sample's age. */
+        assertTrue(predicted >= 6 && predicted <= 6 + (10 * age), "Predicted " + predicted);
+
+        SampledEncoder still = new EncoderSampler(200).register(new CountingEncoder());
+        assertFalse(still.hasVelocity());
+        assertEquals(1, still.extrapolate(0.5), 0);
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long start = System.nanoTime();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() - start < TIMEOUT, "Timed out.");
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * An encoder that reads one more each time it is read, and can be told to
+     * report a velocity or to fail.
+     */
+    private static class CountingEncoder implements Encoder {
+        private volatile double count;
+        private volatile double velocity = Double.NaN;
+        private volatile boolean failing;
+
+        @Override
+        public double get() {
+            if (failing) {
+                throw new IllegalStateException("The sensor is unplugged.");
+            }
+            return ++count;
+        }
+
+        @Override
+        public void set(double val) {
+            count = val;
+        }
+
+        @Override
+        public boolean hasVelocity() {
+            return !Double.isNaN(velocity);
+        }
+
+        @Override
+        public double getVelocity() {
+            return velocity;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package net.bancino.robotics.swerveio.encoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Check that a fused encoder averages the absolute encoder across its wrap,
+ * leaves small disagreements alone, and only corrects while the shaft is
+ * still.
+ * 
+ * @author Jordan Bancino
+ */
+public class FusedEncoderTest {
+
+    @Test
+    public void testAveragesAcrossWrap() {
+        TestEncoder absolute = new TestEncoder(359.5), relative = new TestEncoder(0);
+        FusedEncoder fused = new FusedEncoder(absolute, relative, 1, 360);
+        fused.setCorrectionGain(1);
+        fused.setDeadband(0);
+        /* Noise on either side of the wrap, centered on 0. */
+        for (int i = 0; i <= 20; i++) {
+            absolute.value = (i % 2 == 0) ? 359.8 : 0.2;
+            fused.resync();
+        }
+        /* Averaged the short way around, not to 180, and counted as a whole turn. */
+        assertEquals(360, fused.get(), 1e-9);
+        assertTrue(Math.abs(fused.getDisagreement()) < 0.1);
+    }
+
+    @Test
+    public void testDeadband() {
+        TestEncoder absolute = new TestEncoder(100), relative = new TestEncoder(0);
+        FusedEncoder fused = new FusedEncoder(absolute, relative, 1, 360);
+        fused.setDeadband(0.1);
+        absolute.value = 100.05;
+        for (int i = 0; i < 5; i++) {
+            assertFalse(fused.resync());
+        }
+        assertEquals(100, fused.get(), 0);
+        assertEquals(0.05, fused.getDisagreement(), 1e-9);
+        assertEquals(0, fused.getResyncCount());
+
+        /* Outside the deadband, the offset moves a quarter of the way. */
+        fused.setDeadband(0.04);
+        assertTrue(fused.resync());
+        assertEquals(100.0125, fused.get(), 1e-9);
+        assertEquals(1, fused.getResyncCount());
+    }
+
+    @Test
+    public void testSkipsWhileMoving() {
+        TestEncoder absolute = new TestEncoder(100), relative = new TestEncoder(0);
+        FusedEncoder fused = new FusedEncoder(absolute, relative, 2, 360);
+        fused.setCorrectionGain(1);
+        /* The relative encoder moves; the absolute one disagrees with it. */
+        for (int i = 1; i <= 5; i++) {
+            relative.value = i;
+            absolute.value = 100 + (2 * i) + 3;
+            assertFalse(fused.resync());
+        }
+        assertEquals(110, fused.get(), 0);
+        assertEquals(0, fused.getResyncCount());
+
+        /* The absolute encoder moving alone is moving too. */
+        absolute.value = 120;
+        assertFalse(fused.resync());
+        assertEquals(110, fused.get(), 0);
+        assertEquals(6, fused.getSkippedCount());
+
+        /* Once it is still, the disagreement is corrected. */
+        assertTrue(fused.resync());
+        assertEquals(120, fused.get(), 1e-9);
+    }
+
+    /**
+     * An encoder that reads whatever it is given.
+     */
+    private static class TestEncoder implements Encoder {
+        private double value;
+
+        private TestEncoder(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double get() {
+            return value;
+        }
+
+        @Override
+        public void set(double val) {
+            value = val;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package net.bancino.robotics.swerveio.encoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Check that an unwrapping encoder counts turns across the wrap in both
+ * directions, and rejects glitches without rejecting real changes.
+ * 
+ * @author Jordan Bancino
+ */
+public class UnwrappingEncoderTest {
+
+    @Test
+    public void testCountsTurnsUp() {
+        TestEncoder raw = new TestEncoder(350);
+        UnwrappingEncoder encoder = new UnwrappingEncoder(raw, 360);
+        for (double angle = 350; angle <= 1100; angle += 10) {
+            raw.next(angle % 360);
+            assertEquals(angle, encoder.get(), 1e-9);
+        }
+        assertEquals(3, encoder.getTurns());
+        assertEquals(20, encoder.getWrapped(), 1e-9);
+    }
+
+    @Test
+    public void testCountsTurnsDown() {
+        TestEncoder raw = new TestEncoder(10);
+        UnwrappingEncoder encoder = new UnwrappingEncoder(raw, 360);
+        for (double angle = 10; angle >= -730; angle -= 15) {
+            raw.next(((angle % 360) + 360) % 360);
+            assertEquals(angle, encoder.get(), 1e-9);
+        }
+        assertEquals(-3, encoder.getTurns());
+    }
+
+    @Test
+    public void testRejectsGlitch() {
+        TestEncoder raw = new TestEncoder(100);
+        UnwrappingEncoder encoder = new UnwrappingEncoder(raw, 360, 20);
+        raw.next(105);
+        assertEquals(105, encoder.get(), 1e-9);
+
+        /* A single wild reading is ignored, and the last good one is kept. */
+        raw.next(280);
+        assertEquals(105, encoder.get(), 1e-9);
+        raw.next(110);
+        assertEquals(110, encoder.get(), 1e-9);
+        assertEquals(1, encoder.getGlitchCount());
+    }
+
+    @Test
+    public void testAcceptsPersistentChange() {
+        TestEncoder raw = new TestEncoder(100);
+        UnwrappingEncoder encoder = new UnwrappingEncoder(raw, 360, 20);
+        encoder.setGlitchSamples(3);
+        raw.next(200);
+        assertEquals(100, encoder.get(), 1e-9);
+        raw.next(200);
+        assertEquals(100, encoder.get(), 1e-9);
+        raw.next(200);
+        assertEquals(200, encoder.get(), 1e-9);
+        assertEquals(2, encoder.getGlitchCount());
+    }
+
+    @Test
+    public void testRejectsUnrelatedGlitches() {
+        TestEncoder raw = new TestEncoder(100);
+        UnwrappingEncoder encoder = new UnwrappingEncoder(raw, 360, 20);
+        encoder.setGlitchSamples(3);
+        /* Three wild readings in a row, but they don't agree with each other. */
+        raw.next(280);
+        assertEquals(100, encoder.get(), 1e-9);
+        raw.next(20);
+        assertEquals(100, encoder.get(), 1e-9);
+        raw.next(190);
+        assertEquals(100, encoder.get(), 1e-9);
+        assertEquals(3, encoder.getGlitchCount());
+
+        /* Readings that agree, even across the wrap, are accepted. */
+        raw.next(355);
+        assertEquals(100, encoder.get(), 1e-9);
+        raw.next(5);
+        assertEquals(100, encoder.get(), 1e-9);
+        raw.next(0);
+        assertEquals(0, encoder.getWrapped(), 1e-9);
+        assertEquals(5, encoder.getGlitchCount());
+    }
+
+    @Test
+    public void testCountsEachSampleOnce() {
+        TestEncoder raw = new TestEncoder(100);
+        UnwrappingEncoder encoder = new UnwrappingEncoder(raw, 360, 20);
+        encoder.setGlitchSamples(3);
+        raw.next(200);
+        /* Reading the same sample again must not count towards accepting it. */
+        for (int i = 0; i < 5; i++) {
+            assertEquals(100, encoder.get(), 1e-9);
+        }
+        assertEquals(1, encoder.getGlitchCount());
+    }
+
+    @Test
+    public void testSet() {
+        TestEncoder raw = new TestEncoder(0);
+        UnwrappingEncoder encoder = new UnwrappingEncoder(raw, 360);
+        encoder.set(-370);
+        assertEquals(350, raw.get(), 1e-9);
+        assertEquals(-2, encoder.getTurns());
+        assertEquals(-370, encoder.get(), 1e-9);
+        raw.next(5);
+        assertEquals(-355, encoder.get(), 1e-9);
+    }
+
+    /**
+     * An encoder that reads what it was last given, with a new timestamp for
+     * each new reading.
+     */
+    private static class TestEncoder implements Encoder {
+        private double value;
+        private long timestamp;
+
+        private TestEncoder(double value) {
+            this.value = value;
+        }
+
+        private void next(double value) {
+            this.value = value;
+            timestamp++;
+        }
+
+        @Override
+        public double get() {
+            return value;
+        }
+
+        @Override
+        public void set(double val) {
+            next(val);
+        }
+
+        @Override
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+}
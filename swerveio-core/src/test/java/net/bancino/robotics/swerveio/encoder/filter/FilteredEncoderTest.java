@@ -0,0 +1,211 @@
+package net.bancino.robotics.swerveio.encoder.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import net.bancino.robotics.swerveio.encoder.Encoder;
+
+/**
+ * Check each filter against a straightforward calculation over the same
+ * readings, and check that filters only take each sample once.
+ * 
+ * @author Jordan Bancino
+ */
+public class FilteredEncoderTest {
+    private static final int READINGS = 2000;
+
+    @Test
+    public void testMedian() {
+        for (int samples = 1; samples <= 6; samples++) {
+            Random random = new Random(samples);
+            TestEncoder raw = new TestEncoder();
+            MedianEncoder median = new MedianEncoder(raw, samples);
+            double[] readings = new double[READINGS];
+            for (int i = 0; i < READINGS; i++) {
+                /* Whole numbers, so that there are plenty of duplicates. */
+                readings[i] = random.nextInt(50);
+                raw.next(readings[i]);
+                double[] window = Arrays.copyOfRange(readings, Math.max(0, i + 1 - samples), i + 1);
+                Arrays.sort(window);
+                int middle = window.length / 2;
+                double expected = ((window.length & 1) == 1) ? window[middle]
+                        : (window[middle - 1] + window[middle]) / 2;
+                assertEquals(expected, median.get(), 0, "Window " + samples + ", reading " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testMovingAverage() {
+        for (int samples = 1; samples <= 6; samples++) {
+            Random random = new Random(samples);
+            TestEncoder raw = new TestEncoder();
+            MovingAverageEncoder average = new MovingAverageEncoder(raw, samples);
+            double[] readings = new double[READINGS];
+            for (int i = 0; i < READINGS; i++) {
+                readings[i] = random.nextGaussian() * 1000;
+                raw.next(readings[i]);
+                double expected = 0;
+                int start = Math.max(0, i + 1 - samples);
+                for (int j = start; j <= i; j++) {
+                    expected += readings[j];
+                }
+                expected /= (i + 1 - start);
+                assertEquals(expected, average.get(), 1e-9, "Window " + samples + ", reading " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testExponential() {
+        TestEncoder raw = new TestEncoder();
+        ExponentialEncoder exponential = new ExponentialEncoder(raw, 0.25);
+        raw.next(100);
+        assertEquals(100, exponential.get(), 0);
+        raw.next(200);
+        assertEquals(125, exponential.get(), 1e-9);
+        raw.next(200);
+        assertEquals(143.75, exponential.get(), 1e-9);
+    }
+
+    @Test
+    public void testKalmanReducesNoise() {
+        Random random = new Random(7);
+        TestEncoder raw = new TestEncoder();
+        KalmanEncoder kalman = new KalmanEncoder(raw, 1e-4, 4);
+        double rawError = 0, filteredError = 0;
+        for (int i = 0; i < READINGS; i++) {
+            raw.next(90 + (random.nextGaussian() * 2));
+            double filtered = kalman.get();
+            if (i >= 100) {
+                rawError += Math.pow(raw.get() - 90, 2);
+                filteredError += Math.pow(filtered - 90, 2);
+            }
+        }
+        assertTrue(filteredError < rawError / 10, "The filter should remove most of the noise.");
+        assertTrue(kalman.getVariance() < 4, "The estimate should be more certain than a reading.");
+    }
+
+    @Test
+    public void testOversampling() {
+        CountingEncoder raw = new CountingEncoder();
+        OversamplingEncoder oversampling = new OversamplingEncoder(raw, 4);
+        /* Reads 1, 2, 3 and 4. */
+        assertEquals(2.5, oversampling.get(), 1e-9);
+    }
+
+    @Test
+    public void testTakesEachSampleOnce() {
+        TestEncoder raw = new TestEncoder();
+        MovingAverageEncoder average = new MovingAverageEncoder(raw, 2);
+        raw.next(10);
+        assertEquals(10, average.get(), 0);
+        raw.next(20);
+        /* The drive loop can read an encoder more than once per sample. */
+        for (int i = 0; i < 3; i++) {
+            assertEquals(15, average.get(), 0);
+        }
+        raw.next(40);
+        assertEquals(30, average.get(), 0);
+    }
+
+    @Test
+    public void testSetClearsHistory() {
+        TestEncoder raw = new TestEncoder();
+        MovingAverageEncoder average = new MovingAverageEncoder(raw, 4);
+        for (int i = 0; i < 4; i++) {
+            raw.next(100);
+            average.get();
+        }
+        average.set(0);
+        assertEquals(0, average.get(), 0);
+        raw.next(8);
+        assertEquals(4, average.get(), 0);
+    }
+
+    @Test
+    public void testChained() {
+        TestEncoder raw = new TestEncoder();
+        Encoder chained = new MovingAverageEncoder(new MedianEncoder(raw, 3), 2);
+        /* The median takes out the spike before it reaches the average. */
+        double[] readings = { 10, 12, 1000, 14, 16 };
+        double[] expected = { 10, 10.5, 11.5, 13, 15 };
+        for (int i = 0; i < readings.length; i++) {
+            raw.next(readings[i]);
+            assertEquals(expected[i], chained.get(), 1e-9, "Reading " + i);
+        }
+    }
+
+    @Test
+    public void testPassesVelocityThrough() {
+        TestEncoder raw = new TestEncoder();
+        MedianEncoder median = new MedianEncoder(raw, 3);
+        assertFalse(median.hasVelocity());
+        raw.velocity = 12.5;
+        assertTrue(median.hasVelocity());
+        assertEquals(12.5, median.getVelocity(), 0);
+    }
+
+    /**
+     * An encoder that reads what it was last given, with a new timestamp for
+     * each new reading.
+     */
+    private static class TestEncoder implements Encoder {
+        private double value;
+        private long timestamp;
+        private double velocity = Double.NaN;
+
+        private void next(double value) {
+            this.value = value;
+            timestamp++;
+        }
+
+        @Override
+        public double get() {
+            return value;
+        }
+
+        @Override
+        public void set(double val) {
+            next(val);
+        }
+
+        @Override
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public boolean hasVelocity() {
+            return !Double.isNaN(velocity);
+        }
+
+        @Override
+        public double getVelocity() {
+            return velocity;
+        }
+    }
+
+    /**
+     * An encoder that reads one more each time it is read.
+     */
+    private static class CountingEncoder implements Encoder {
+        private double count;
+
+        @Override
+        public double get() {
+            return ++count;
+        }
+
+        @Override
+        public void set(double val) {
+            count = val;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package net.bancino.robotics.swerveio.kinematics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Check that forward kinematics recovers the chassis motion that produced a
+ * set of module vectors, for any module layout.
+ * 
+ * @author Jordan Bancino
+ */
+public class ForwardKinematicsTest {
+    private static final double EPSILON = 1e-9;
+
+    /* An off-center six module test bed. */
+    private static final SwerveGeometry SIX_MODULES = new SwerveGeometry(new double[] { 0.5, 0.5, 0, 0, -0.3, -0.3 },
+            new double[] { 0.4, -0.2, 0.45, -0.25, 0.4, -0.2 });
+
+    @Test
+    public void testRecoversChassisMotion() {
+        double[][] motions = { { 1, 0, 0 }, { 0, -2, 0 }, { 0, 0, 1.5 }, { 0.7, -0.3, -2.2 } };
+        for (double[] motion : motions) {
+            double[] chassis = new double[3];
+            new ForwardKinematics(SIX_MODULES).toChassis(moduleVectors(SIX_MODULES, motion), chassis);
+            for (int i = 0; i < 3; i++) {
+                assertEquals(motion[i], chassis[i], EPSILON);
+            }
+        }
+    }
+
+    @Test
+    public void testSpeedsAndAnglesMatchVectors() {
+        double[] motion = { 0.4, 0.9, -1.1 };
+        double[] vectors = moduleVectors(SIX_MODULES, motion);
+        int count = SIX_MODULES.getModuleCount();
+        double[] speeds = new double[count], angles = new double[count];
+        for (int i = 0; i < count; i++) {
+            speeds[i] = Math.hypot(vectors[2 * i], vectors[2 * i + 1]);
+            angles[i] = Math.toDegrees(Math.atan2(vectors[2 * i + 1], vectors[2 * i]));
+        }
+        ForwardKinematics kinematics = new ForwardKinematics(SIX_MODULES);
+        double[] fromVectors = new double[3], fromSpeeds = new double[3];
+        kinematics.toChassis(vectors, fromVectors);
+        kinematics.toChassis(speeds, angles, fromSpeeds);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(fromVectors[i], fromSpeeds[i], EPSILON);
+        }
+    }
+
+    @Test
+    public void testInvertsInverseKinematics() {
+        /* The inverse kinematics scale rotation by the radius of the furthest module. */
+        SwerveGeometry geometry = SwerveGeometry.rectangle(0.6, 0.8);
+        double[] vectors = new double[geometry.getModuleCount() * 2];
+        geometry.toModuleVectors(0.3, -0.2, 0.5, vectors);
+        double[] chassis = new double[3];
+        new ForwardKinematics(geometry).toChassis(vectors, chassis);
+        assertEquals(0.3, chassis[0], EPSILON);
+        assertEquals(-0.2, chassis[1], EPSILON);
+        assertEquals(0.5 / geometry.getMaxRadius(), chassis[2], EPSILON);
+    }
+
+    @Test
+    public void testRejectsSingleModule() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ForwardKinematics(new SwerveGeometry(new double[] { 1 }, new double[] { 1 })));
+    }
+
+    /**
+     * Calculate what each module does when the chassis moves with the given X,
+     * Y and rotation, in real units.
+     */
+    private static double[] moduleVectors(SwerveGeometry geometry, double[] motion) {
+        double[] vectors = new double[geometry.getModuleCount() * 2];
+        for (int i = 0; i < geometry.getModuleCount(); i++) {
+            vectors[2 * i] = motion[0] - (motion[2] * geometry.getY(i));
+            vectors[2 * i + 1] = motion[1] + (motion[2] * geometry.getX(i));
+        }
+        return vectors;
+    }
+}
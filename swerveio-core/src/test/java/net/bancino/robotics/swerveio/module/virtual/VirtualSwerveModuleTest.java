@@ -0,0 +1,64 @@
+package net.bancino.robotics.swerveio.module.virtual;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Check that the simulation only depends on simulated time, not on how often
+ * the module is called.
+ * 
+ * @author Jordan Bancino
+ */
+public class VirtualSwerveModuleTest {
+
+    @Test
+    public void testDrivePidIndependentOfCallRate() {
+        double expected = drivePosition(20_000_000);
+        for (long period : new long[] { 5_000_000, 1_250_000, 400_000, 250_000 }) {
+            assertEquals(expected, drivePosition(period), 1e-9, "Called every " + period + " ns");
+        }
+    }
+
+    @Test
+    public void testDriveVelocityPidIndependentOfCallRate() {
+        double expected = driveVelocity(20_000_000);
+        for (long period : new long[] { 5_000_000, 1_250_000, 400_000, 250_000 }) {
+            assertEquals(expected, driveVelocity(period), 1e-9, "Called every " + period + " ns");
+        }
+    }
+
+    /**
+     * Drive to a position for a second, calling the module at the given period.
+     */
+    private static double drivePosition(long period) {
+        ManualClock clock = new ManualClock();
+        VirtualSwerveModule module = new VirtualSwerveModule(clock);
+        module.setDrivePidP(0.02);
+        module.setDrivePidI(0.0005);
+        module.setDrivePidD(0.05);
+        module.setDriveReference(50);
+        run(clock, module, period);
+        return module.getDriveMotorEncoder();
+    }
+
+    /**
+     * Drive at a velocity for a second, calling the module at the given period.
+     */
+    private static double driveVelocity(long period) {
+        ManualClock clock = new ManualClock();
+        VirtualSwerveModule module = new VirtualSwerveModule(clock);
+        module.setDriveVelocityPidP(0.001);
+        module.setDriveVelocityPidI(0.0001);
+        module.setDriveVelocity(40, 5);
+        run(clock, module, period);
+        return module.getDriveVelocity();
+    }
+
+    private static void run(ManualClock clock, VirtualSwerveModule module, long period) {
+        for (long time = 0; time < 1_000_000_000; time += period) {
+            clock.advance(period);
+            module.update();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package net.bancino.robotics.swerveio.pid;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Check the time-aware mode of MiniPID: the I and D terms scale with the time
+ * between calls, duplicate calls and long gaps are handled, and nothing
+ * changes when the mode is off.
+ * 
+ * @author Jordan Bancino
+ */
+public class MiniPIDTest {
+    private static final double PERIOD = 0.02;
+
+    @Test
+    public void testOffIsUnchanged() {
+        MiniPID pid = new MiniPID(2, 0.5, 1);
+        /* Worked by hand: each call is one cycle, no matter when it is made. */
+        assertEquals(20, pid.getOutput(0, 10), 1e-9);
+        assertEquals(13, pid.getOutput(4, 10), 1e-9);
+        assertEquals(11, pid.getOutput(7, 10), 1e-9);
+        assertThrows(IllegalStateException.class, () -> pid.getOutput(7, 10, PERIOD));
+    }
+
+    @Test
+    public void testNominalPeriodMatchesOff() {
+        MiniPID pid = new MiniPID(2, 0.5, 1);
+        pid.setPeriod(PERIOD);
+        assertEquals(20, pid.getOutput(0, 10, PERIOD), 1e-9);
+        assertEquals(13, pid.getOutput(4, 10, PERIOD), 1e-9);
+        assertEquals(11, pid.getOutput(7, 10, PERIOD), 1e-9);
+    }
+
+    @Test
+    public void testIntegralScalesWithDt() {
+        MiniPID pid = new MiniPID(0, 1, 0);
+        pid.setPeriod(PERIOD);
+        pid.getOutput(0, 10, PERIOD);
+        /* The I term lags a cycle: this is the error from the first call. */
+        assertEquals(10, pid.getOutput(0, 10, 2 * PERIOD), 1e-9);
+        /* The second call integrated two periods of error. */
+        assertEquals(30, pid.getOutput(0, 10, PERIOD / 2), 1e-9);
+        /* And the third, half a period. */
+        assertEquals(35, pid.getOutput(0, 10, PERIOD), 1e-9);
+    }
+
+    @Test
+    public void testDerivativeScalesWithDt() {
+        MiniPID pid = new MiniPID(0, 0, 1);
+        pid.setPeriod(PERIOD);
+        pid.getOutput(0, 0, PERIOD);
+        /* Moving 4 over two periods is a rate of 2 per period. */
+        assertEquals(-2, pid.getOutput(4, 0, 2 * PERIOD), 1e-9);
+        /* Moving 4 over half a period is a rate of 8 per period. */
+        assertEquals(-8, pid.getOutput(8, 0, PERIOD / 2), 1e-9);
+    }
+
+    @Test
+    public void testIgnoresDuplicatePeriods() {
+        MiniPID pid = new MiniPID(1, 1, 1);
+        MiniPID reference = new MiniPID(1, 1, 1);
+        pid.setPeriod(PERIOD);
+        reference.setPeriod(PERIOD);
+        pid.getOutput(0, 10, PERIOD);
+        reference.getOutput(0, 10, PERIOD);
+        double last = pid.getOutput(3, 10, PERIOD);
+        reference.getOutput(3, 10, PERIOD);
+
+        /* Less than 1% of a period later, the last output is returned as is. */
+        assertEquals(last, pid.getOutput(50, 10, PERIOD * 0.005), 0);
+        assertEquals(reference.getOutput(5, 10, PERIOD), pid.getOutput(5, 10, PERIOD), 0);
+    }
+
+    @Test
+    public void testLimitsSkippedPeriods() {
+        MiniPID pid = new MiniPID(0, 1, 1);
+        pid.setPeriod(PERIOD);
+        pid.getOutput(0, 10, PERIOD);
+        /* After a second away, the D term starts over instead of seeing a jump. */
+        assertEquals(10, pid.getOutput(8, 10, 1), 1e-9);
+        /* And the I term only integrated 5 periods of error, not 50. */
+        assertEquals(20, pid.getOutput(8, 10, PERIOD), 1e-9);
+    }
+}
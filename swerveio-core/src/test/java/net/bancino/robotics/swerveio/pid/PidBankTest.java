@@ -0,0 +1,143 @@
+package net.bancino.robotics.swerveio.pid;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Check that every slot of a PID bank calculates exactly what a MiniPID with
+ * the same settings would, since modules can move their pivot MiniPID into a
+ * bank.
+ * 
+ * @author Jordan Bancino
+ */
+public class PidBankTest {
+    private static final int SLOTS = 4;
+    private static final int STEPS = 500;
+
+    @Test
+    public void testSlotMatchesMiniPid() {
+        MiniPID pid = new MiniPID(0.02, 0.001, 0.3, 0.005);
+        PidBank bank = new PidBank(SLOTS);
+        bank.setPID(2, 0.02, 0.001, 0.3);
+        bank.setF(2, 0.005);
+
+        pid.setOutputLimits(-0.8, 0.9);
+        bank.setOutputLimits(2, -0.8, 0.9);
+        pid.setOutputRampRate(0.05);
+        bank.setOutputRampRate(2, 0.05);
+        pid.setOutputFilter(0.2);
+        bank.setOutputFilter(2, 0.2);
+        pid.setMaxIOutput(0.25);
+        bank.setMaxIOutput(2, 0.25);
+        pid.setSetpointRange(40);
+        bank.setSetpointRange(2, 40);
+
+        Random random = new Random(3);
+        double actual = 0;
+        for (int i = 0; i < STEPS; i++) {
+            double setpoint = (i < STEPS / 2) ? 200 : -150;
+            actual += random.nextGaussian() * 5;
+            double expected = pid.getOutput(actual, setpoint);
+            assertEquals(expected, bank.getOutput(2, actual, setpoint), 0, "Step " + i);
+            actual += expected * 20;
+        }
+    }
+
+    @Test
+    public void testUpdateMatchesMiniPid() {
+        Random random = new Random(1);
+        MiniPID[] pids = new MiniPID[SLOTS];
+        PidBank bank = new PidBank(SLOTS);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            double p = random.nextDouble(), i = random.nextDouble() * 0.01, d = random.nextDouble();
+            double f = random.nextDouble() * 0.01;
+            pids[slot] = new MiniPID(p, i, d, f);
+            bank.setPID(slot, p, i, d);
+            bank.setF(slot, f);
+            boolean reversed = (slot % 2) == 1;
+            pids[slot].setDirection(reversed);
+            bank.setDirection(slot, reversed);
+            pids[slot].setOutputLimits(-1, 1);
+            bank.setOutputLimits(slot, -1, 1);
+            pids[slot].setOutputRampRate(0.1 * (slot + 1));
+            bank.setOutputRampRate(slot, 0.1 * (slot + 1));
+            pids[slot].setOutputFilter(0.1 * slot);
+            bank.setOutputFilter(slot, 0.1 * slot);
+            pids[slot].setMaxIOutput(0.3);
+            bank.setMaxIOutput(slot, 0.3);
+            pids[slot].setSetpointRange(25 * (slot + 1));
+            bank.setSetpointRange(slot, 25 * (slot + 1));
+        }
+
+        double[] actual = new double[SLOTS], setpoint = new double[SLOTS], output = new double[SLOTS];
+        for (int step = 0; step < STEPS; step++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                actual[slot] = random.nextGaussian() * 100;
+                setpoint[slot] = random.nextGaussian() * 100;
+            }
+            if (step == STEPS / 2) {
+                pids[1].reset();
+                bank.reset(1);
+            }
+            bank.update(actual, setpoint, output);
+            for (int slot = 0; slot < SLOTS; slot++) {
+                assertEquals(pids[slot].getOutput(actual[slot], setpoint[slot]), output[slot], 0,
+                        "Slot " + slot + ", step " + step);
+            }
+        }
+    }
+
+    @Test
+    public void testCopy() {
+        PidBank from = new PidBank(SLOTS);
+        from.setPID(3, 0.1, 0.01, 0.5);
+        from.setOutputLimits(3, -0.5, 0.5);
+        from.setOutputRampRate(3, 0.05);
+        PidBank to = new PidBank(2);
+        to.copy(from, 3, 1);
+        for (int step = 0; step < STEPS; step++) {
+            double actual = step * 0.5;
+            assertEquals(from.getOutput(3, actual, 100), to.getOutput(1, actual, 100), 0, "Step " + step);
+        }
+    }
+
+    @Test
+    public void testCopyFromMiniPid() {
+        MiniPID pid = new MiniPID(0.05, 0.002, 0.4, 0.01);
+        pid.setOutputLimits(-1, 1);
+        pid.setOutputRampRate(0.1);
+        pid.setSetpointRange(60);
+        Random random = new Random(5);
+        double actual = 0;
+        /* Build up some state before moving the controller. */
+        for (int step = 0; step < STEPS / 2; step++) {
+            actual += pid.getOutput(actual, 90) * 10 + random.nextGaussian();
+        }
+        PidBank bank = new PidBank(SLOTS);
+        bank.copy(pid, 1);
+        for (int step = 0; step < STEPS / 2; step++) {
+            double expected = pid.getOutput(actual, -45);
+            assertEquals(expected, bank.getOutput(1, actual, -45), 0, "Step " + step);
+            actual += expected * 10 + random.nextGaussian();
+        }
+    }
+
+    @Test
+    public void testRefusesTimeAwareMiniPid() {
+        MiniPID pid = new MiniPID(1, 0, 0);
+        assertTrue(PidBank.supports(pid));
+        pid.setPeriod(0.02);
+        assertFalse(PidBank.supports(pid));
+        assertThrows(IllegalArgumentException.class, () -> new PidBank(1).copy(pid, 0));
+
+        MiniPID filtered = new MiniPID(1, 0, 0);
+        filtered.setDerivativeFilter(0.5);
+        assertFalse(PidBank.supports(filtered));
+    }
+}
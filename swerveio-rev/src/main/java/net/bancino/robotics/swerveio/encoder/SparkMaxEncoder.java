@@ -36,6 +36,28 @@ public class SparkMaxEncoder implements Encoder {
         }
     }
 
+    @Override
+    public boolean hasVelocity() {
+        return true;
+    }
+
+    /**
+     * Get the velocity the Spark Max measures natively. This is in the same units
+     * as the position as long as the velocity conversion factor matches the
+     * position conversion factor.
+     * 
+     * @return The velocity, in position units per second.
+     */
+    @Override
+    public double getVelocity() {
+        if (encoder != null) {
+            /* The Spark Max measures velocity per minute. */
+            return encoder.getVelocity() / 60;
+        } else {
+            throw new UnsupportedOperationException("This encoder is not monitoring a motor controller.");
+        }
+    }
+
     @Override
     public void set(double val) throws SwerveImplementationException {
         if (encoder != null) {
@@ -0,0 +1,709 @@
+package net.bancino.robotics.swerveio.module;
+
+import com.revrobotics.CANEncoder;
+import com.revrobotics.CANPIDController;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.ControlType;
+import com.revrobotics.CANSparkMax.IdleMode;
+import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
+
+import net.bancino.robotics.swerveio.SwerveImplementationException;
+import net.bancino.robotics.swerveio.encoder.Encoder;
+import net.bancino.robotics.swerveio.encoder.EncoderSampler;
+import net.bancino.robotics.swerveio.encoder.FusedEncoder;
+import net.bancino.robotics.swerveio.encoder.MK2Encoder;
+import net.bancino.robotics.swerveio.encoder.SparkMaxEncoder;
+import net.bancino.robotics.swerveio.pid.PidBank;
+
+/**
+ * A swerve module implementation that uses RevRobotics Neo motors and Spark Max
+ * motor controllers. This was designed for Swerve Drive Specialties' MK2
+ * Module.
+ * <p>
+ * The drive position loop uses PID slot 0 of the drive Spark Max, and the
+ * drive velocity loop uses slot 1, so that each can be tuned separately. The
+ * velocity loop runs onboard, with the feed-forward sent as an arbitrary
+ * feed-forward voltage.
+ * </p>
+ * <p>
+ * By default, the pivot loop runs on the roboRIO, like any other
+ * {@link GenericSwerveModule}. {@link #enableOnboardPivotControl()} moves it to
+ * the pivot Spark Max, which closes the loop at 1 kHz on its internal encoder.
+ * </p>
+ * <p>
+ * With {@link EncoderSetting#FUSED}, the roboRIO pivot loop reads the internal
+ * encoder, which is kept lined up with the analog encoder in the background
+ * whenever the module is still. See {@link #getFusedEncoder()}.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public class MK2SwerveModule extends GenericSwerveModule implements MultiEncoderModule {
+    /** The drive PID slot used for position control. */
+    public static final int DRIVE_POSITION_SLOT = 0;
+
+    /** The drive PID slot used for velocity control. */
+    public static final int DRIVE_VELOCITY_SLOT = 1;
+
+    /** The number of pivot motor rotations per module rotation on an MK2. */
+    public static final double PIVOT_GEAR_RATIO = 18.0;
+
+    /**
+     * How often the Spark Maxes send each of their periodic status frames. Status
+     * 0 carries the applied output and faults, status 1 the velocity, bus
+     * voltage, temperature and current, and status 2 the position. Frames that
+     * come faster give fresher readings, and frames that come slower leave more
+     * of the bus for other devices.
+     * <p>
+     * A profile only covers status frames 0 to 2. Newer Spark Max firmware sends
+     * more status frames, which are left at whatever period they already had.
+     * </p>
+     */
+    public static enum StatusFrameProfile {
+        /** The Spark Max's own defaults. */
+        DEFAULT(new int[] { 10, 20, 20 }, new int[] { 10, 20, 20 }),
+
+        /**
+         * Fresh drive readings for control and odometry, and no more than that. The
+         * pivot position is kept fresh for onboard pivot control, but the pivot
+         * velocity isn't used.
+         */
+        COMPETITION(new int[] { 10, 20, 20 }, new int[] { 10, 100, 20 }),
+
+        /**
+         * The drive position and velocity at the rate the Spark Max measures them,
+         * for odometry that runs faster than the robot loop.
+         */
+        ODOMETRY_HEAVY(new int[] { 10, 10, 10 }, new int[] { 10, 100, 10 }),
+
+        /**
+         * As little traffic as the swerve drive can be controlled with, for a
+         * crowded bus. The drive position is still fresh enough for odometry at
+         * the robot loop rate, but nothing else is.
+         */
+        LOW_BUS(new int[] { 20, 100, 20 }, new int[] { 20, 200, 100 });
+
+        private final int[] drivePeriods, pivotPeriods;
+
+        private StatusFrameProfile(int[] drivePeriods, int[] pivotPeriods) {
+            this.drivePeriods = drivePeriods;
+            this.pivotPeriods = pivotPeriods;
+        }
+
+        /**
+         * @param frame The status frame, from 0 to 2.
+         * @return The period of the frame on the drive Spark Max, in milliseconds.
+         */
+        public int getDrivePeriod(PeriodicFrame frame) {
+            return drivePeriods[indexOf(frame)];
+        }
+
+        /**
+         * @param frame The status frame, from 0 to 2.
+         * @return The period of the frame on the pivot Spark Max, in milliseconds.
+         */
+        public int getPivotPeriod(PeriodicFrame frame) {
+            return pivotPeriods[indexOf(frame)];
+        }
+
+        /**
+         * @return How many of status frames 0 to 2 per second both Spark Maxes
+         *         send with this profile. Any other status frames that the
+         *         firmware sends aren't counted.
+         */
+        public double getFramesPerSecond() {
+            double frames = 0;
+            for (int i = 0; i < drivePeriods.length; i++) {
+                frames += (1000.0 / drivePeriods[i]) + (1000.0 / pivotPeriods[i]);
+            }
+            return frames;
+        }
+
+        /**
+         * Look up a frame by name rather than by ordinal, because newer versions of
+         * REVLib add frames to the enum.
+         */
+        private static int indexOf(PeriodicFrame frame) {
+            switch (frame) {
+            case kStatus0:
+                return 0;
+            case kStatus1:
+                return 1;
+            case kStatus2:
+                return 2;
+            default:
+                throw new IllegalArgumentException("Status frame profiles don't cover " + frame + ".");
+            }
+        }
+    }
+
+    /* The frames that a status frame profile covers. */
+    private static final PeriodicFrame[] PROFILE_FRAMES = { PeriodicFrame.kStatus0, PeriodicFrame.kStatus1,
+            PeriodicFrame.kStatus2 };
+
+    private CANSparkMax driveMotor, pivotMotor;
+
+    private CANPIDController drivePid, pivotPid;
+    private CANEncoder driveVelocityEncoder, pivotInternalEncoder;
+
+    /* Whether the pivot loop runs on the Spark Max, or in a PID bank. */
+    private boolean onboardPivotControl = false;
+    private boolean pivotBanked = false;
+
+    /*
+     * The pivot PID settings, which are only sent to the Spark Max while the
+     * pivot loop runs onboard, and all at once when it is moved there.
+     */
+    private double pivotP, pivotI, pivotD, pivotFF, pivotOutputMin = -1, pivotOutputMax = 1;
+
+    private EncoderSetting useEncoder = EncoderSetting.ANALOG;
+
+    private StatusFrameProfile statusFrameProfile = StatusFrameProfile.DEFAULT;
+
+    private Encoder driveEncoder, pivotEncoder;
+
+    /*
+     * Combines the analog encoder with the internal one, which reads motor
+     * rotations. Volatile because sampleEncoders() replaces it while the I/O pool
+     * may be reading it.
+     */
+    private volatile FusedEncoder fusedEncoder;
+
+    /**
+     * The swerve module is constructed to allow the pivot motor to coast, this
+     * allows for adjustments, but as soon as the module is driven, it switches to
+     * brake mode to prevent outside modifications.
+     */
+    private boolean setPivotIdleMode = false;
+
+    /**
+     * Create a new swerve module composed of Neo brushless motors, this uses spark
+     * max motor controllers.
+     * 
+     * @param driveCanId The CAN ID of the drive motor for this module.
+     * @param pivotCanId The CAN ID of the pivot motor for this module.
+     * @param encoder    The encoder to use as the pivot encoder. This is usually an
+     *                   {@link MK2Encoder}, and may be filtered, but it must read
+     *                   degrees.
+     */
+    public MK2SwerveModule(int driveCanId, int pivotCanId, Encoder encoder) {
+        super(new CANSparkMax(driveCanId, MotorType.kBrushless), new CANSparkMax(pivotCanId, MotorType.kBrushless),
+                new SparkMaxEncoder(), encoder);
+        driveMotor = (CANSparkMax) getDriveMotor();
+        driveEncoder = getDriveEncoder();
+        ((SparkMaxEncoder) driveEncoder).setController(driveMotor);
+        drivePid = driveMotor.getPIDController();
+        driveVelocityEncoder = driveMotor.getEncoder();
+        pivotMotor = (CANSparkMax) getPivotMotor();
+        pivotEncoder = new SparkMaxEncoder(pivotMotor);
+        pivotPid = pivotMotor.getPIDController();
+        pivotInternalEncoder = pivotMotor.getEncoder();
+        pivotMotor.setIdleMode(IdleMode.kCoast);
+        fusedEncoder = createFusedEncoder();
+
+        setPivotPidOutputLimits(-1, 1);
+    }
+
+    /**
+     * Create a new swerve module composed of Neo brushless motors, this uses spark
+     * max motor controllers.
+     * 
+     * @param driveCanId        The CAN ID of the drive motor for this module.
+     * @param pivotCanId        The CAN ID of the pivot motor for this module.
+     * @param analogEncoderPort The port on the roboRIO that the encoder to use as
+     *                          the pivot encoder is on.
+     */
+    public MK2SwerveModule(int driveCanId, int pivotCanId, int analogEncoderPort) {
+        this(driveCanId, pivotCanId, new MK2Encoder(analogEncoderPort));
+    }
+
+    /**
+     * Close the pivot loop on the pivot Spark Max instead of the roboRIO, using
+     * the gear ratio of an MK2. See {@link #enableOnboardPivotControl(double)}.
+     * 
+     * @throws SwerveImplementationException If the pivot PID has been moved into
+     *                                       a PID bank.
+     */
+    public void enableOnboardPivotControl() throws SwerveImplementationException {
+        enableOnboardPivotControl(PIVOT_GEAR_RATIO);
+    }
+
+    /**
+     * Close the pivot loop on the pivot Spark Max instead of the roboRIO. The
+     * internal NEO encoder is scaled to read in the same units as the analog
+     * encoder (degrees of module rotation), and seeded with the analog encoder's
+     * current reading, so this should be done while the module is still. From
+     * then on, pivot references are sent to the Spark Max as position
+     * references, and the pivot encoder reading comes from the internal encoder,
+     * which doesn't wrap around. The pivot PID settings are only sent to the
+     * Spark Max now, and from then on whenever they are set, so gains that were
+     * tuned on the roboRIO carry over, but the Spark Max runs its loop much more
+     * often, so the I and D gains usually need to be retuned.
+     * 
+     * @param gearRatio The number of pivot motor rotations per module rotation.
+     * @throws SwerveImplementationException If the pivot PID has been moved into
+     *                                       a PID bank.
+     */
+    public void enableOnboardPivotControl(double gearRatio) throws SwerveImplementationException {
+        if (gearRatio <= 0) {
+            throw new IllegalArgumentException("The gear ratio must be positive.");
+        } else if (pivotBanked) {
+            throw new SwerveImplementationException(
+                    "MK2 Swerve Module: The pivot PID is in a PID bank, so it can't be run onboard.");
+        }
+        /* The fused encoder doesn't expect the internal encoder's units to change. */
+        fusedEncoder.stop();
+        pivotPid.setP(pivotP);
+        pivotPid.setI(pivotI);
+        pivotPid.setD(pivotD);
+        pivotPid.setFF(pivotFF);
+        pivotPid.setOutputRange(pivotOutputMin, pivotOutputMax);
+        pivotInternalEncoder.setPositionConversionFactor(360 / gearRatio);
+        pivotInternalEncoder.setVelocityConversionFactor(360 / gearRatio);
+        seedPivotInternalEncoder();
+        onboardPivotControl = true;
+    }
+
+    /**
+     * Go back to closing the pivot loop on the roboRIO. This is the default. The
+     * internal encoder goes back to reading in motor rotations.
+     */
+    public void disableOnboardPivotControl() {
+        onboardPivotControl = false;
+        /* The Spark Max is still holding the last reference, so let go of it. */
+        stopPivotMotor();
+        pivotInternalEncoder.setPositionConversionFactor(1);
+        pivotInternalEncoder.setVelocityConversionFactor(1);
+        if (useEncoder == EncoderSetting.FUSED) {
+            fusedEncoder.reset();
+            fusedEncoder.start();
+        }
+    }
+
+    /**
+     * Check whether or not the pivot loop runs on the Spark Max.
+     * 
+     * @return Whether or not onboard pivot control is enabled.
+     */
+    public boolean isOnboardPivotControl() {
+        return onboardPivotControl;
+    }
+
+    /**
+     * Set the internal pivot encoder to the analog encoder's reading.
+     */
+    private void seedPivotInternalEncoder() {
+        pivotInternalEncoder.setPosition(getPivotEncoder().get());
+    }
+
+    /**
+     * Create an encoder that fuses the analog encoder with the internal encoder,
+     * whose readings are in motor rotations.
+     */
+    private FusedEncoder createFusedEncoder() {
+        return new FusedEncoder(getPivotEncoder(), pivotEncoder, 360 / PIVOT_GEAR_RATIO, 360);
+    }
+
+    private void setPivotBrakeMode() {
+        if (!setPivotIdleMode) {
+            pivotMotor.setIdleMode(IdleMode.kBrake);
+            setPivotIdleMode = true;
+        }
+    }
+
+    @Override
+    public void setPivotMotorSpeed(double speed) {
+        setPivotBrakeMode();
+        super.setPivotMotorSpeed(speed);
+    }
+
+    @Override
+    public void setPivotReference(double ref) {
+        /* The Spark Max reads its own encoder, so don't read it here. */
+        if (onboardPivotControl) {
+            setOnboardPivotReference(ref);
+        } else {
+            super.setPivotReference(ref);
+        }
+    }
+
+    @Override
+    public void setPivotReference(double ref, double position) {
+        if (onboardPivotControl) {
+            setOnboardPivotReference(ref);
+        } else {
+            setPivotBrakeMode();
+            super.setPivotReference(ref, position);
+        }
+    }
+
+    private void setOnboardPivotReference(double ref) {
+        setPivotBrakeMode();
+        /* The controller's output no longer matches the cache. */
+        getPivotOutputCache().invalidate();
+        pivotPid.setReference(ref, ControlType.kPosition);
+    }
+
+    @Override
+    public boolean usePivotPidBank(PidBank bank, int slot) {
+        /* The bank calculates on the roboRIO, which defeats the onboard loop. */
+        if (onboardPivotControl) {
+            return false;
+        }
+        pivotBanked = super.usePivotPidBank(bank, slot);
+        return pivotBanked;
+    }
+
+    @Override
+    public void zeroPivotEncoder() {
+        super.zeroPivotEncoder();
+        if (onboardPivotControl) {
+            seedPivotInternalEncoder();
+        }
+        fusedEncoder.reset();
+    }
+
+    @Override
+    public void setPivotPidP(double gain) {
+        super.setPivotPidP(gain);
+        pivotP = gain;
+        if (onboardPivotControl) {
+            pivotPid.setP(gain);
+        }
+    }
+
+    @Override
+    public void setPivotPidI(double gain) {
+        super.setPivotPidI(gain);
+        pivotI = gain;
+        if (onboardPivotControl) {
+            pivotPid.setI(gain);
+        }
+    }
+
+    @Override
+    public void setPivotPidD(double gain) {
+        super.setPivotPidD(gain);
+        pivotD = gain;
+        if (onboardPivotControl) {
+            pivotPid.setD(gain);
+        }
+    }
+
+    @Override
+    public void setPivotPidFF(double gain) {
+        super.setPivotPidFF(gain);
+        pivotFF = gain;
+        if (onboardPivotControl) {
+            pivotPid.setFF(gain);
+        }
+    }
+
+    @Override
+    public void setPivotPidOutputLimits(double min, double max) {
+        super.setPivotPidOutputLimits(min, max);
+        pivotOutputMin = min;
+        pivotOutputMax = max;
+        if (onboardPivotControl) {
+            pivotPid.setOutputRange(min, max);
+        }
+    }
+
+    /**
+     * The setpoint range is only supported by the roboRIO pivot loop.
+     * 
+     * @param range The range, in pivot encoder counts, or 0 to disable.
+     * @throws SwerveImplementationException If onboard pivot control is enabled.
+     */
+    @Override
+    public void setPivotPidSetpointRange(double range) throws SwerveImplementationException {
+        if (onboardPivotControl) {
+            throw new SwerveImplementationException(
+                    "MK2 Swerve Module: The onboard pivot loop does not support a setpoint range.");
+        }
+        super.setPivotPidSetpointRange(range);
+    }
+
+    @Override
+    public void sampleEncoders(EncoderSampler sampler) {
+        super.sampleEncoders(sampler);
+        /* The internal pivot encoder is kept separately from the analog one. */
+        pivotEncoder = sampler.register(pivotEncoder);
+        /* Fuse the sampled encoders instead, so that fused readings never block. */
+        boolean fusing = fusedEncoder.isRunning();
+        fusedEncoder.stop();
+        fusedEncoder = createFusedEncoder();
+        if (fusing) {
+            fusedEncoder.start();
+        }
+    }
+
+    /**
+     * Read the pivot encoder that is selected with
+     * {@link #setEncoder(EncoderSetting)}. With onboard pivot control, this is
+     * always the internal encoder, because that is what the Spark Max closes the
+     * loop on.
+     */
+    @Override
+    public double getPivotMotorEncoder() {
+        if (onboardPivotControl) {
+            return pivotEncoder.get();
+        }
+        switch (useEncoder) {
+        case ANALOG: /* The encoder we passed to the superclass is the analog */
+            return super.getPivotMotorEncoder();
+        case INTERNAL:
+            return pivotEncoder.get();
+        case FUSED:
+            return fusedEncoder.get();
+        default:
+            return 0;
+        }
+    }
+
+    @Override
+    public void setDriveReference(double ref) {
+        /* The controller's output no longer matches the cache. */
+        getDriveOutputCache().invalidate();
+        drivePid.setReference(ref, ControlType.kPosition);
+    }
+
+    /**
+     * Drive the wheel with the Spark Max's onboard velocity loop.
+     * 
+     * @param velocity    The velocity, in drive motor rotations per second.
+     * @param feedforward The feed-forward voltage, in volts.
+     */
+    @Override
+    public void setDriveVelocity(double velocity, double feedforward) {
+        getDriveOutputCache().invalidate();
+        /* The Spark Max measures velocity in RPM. */
+        drivePid.setReference(velocity * 60, ControlType.kVelocity, DRIVE_VELOCITY_SLOT, feedforward);
+    }
+
+    /**
+     * @return The velocity measured by the Spark Max, in drive motor rotations per
+     *         second.
+     */
+    @Override
+    public double getDriveVelocity() {
+        return driveVelocityEncoder.getVelocity() / 60;
+    }
+
+    @Override
+    public void setDriveVelocityPidP(double gain) {
+        drivePid.setP(gain, DRIVE_VELOCITY_SLOT);
+    }
+
+    @Override
+    public void setDriveVelocityPidI(double gain) {
+        drivePid.setI(gain, DRIVE_VELOCITY_SLOT);
+    }
+
+    @Override
+    public void setDriveVelocityPidD(double gain) {
+        drivePid.setD(gain, DRIVE_VELOCITY_SLOT);
+    }
+
+    @Override
+    public void setPivotClosedLoopRampRate(double rate) {
+        pivotMotor.setClosedLoopRampRate(rate);
+    }
+
+    @Override
+    public void setPivotOpenLoopRampRate(double rate) {
+        pivotMotor.setOpenLoopRampRate(rate);
+    }
+
+    @Override
+    public void setDriveClosedLoopRampRate(double rate) {
+        driveMotor.setClosedLoopRampRate(rate);
+    }
+
+    @Override
+    public void setDriveOpenLoopRampRate(double rate) {
+        driveMotor.setOpenLoopRampRate(rate);
+    }
+
+    @Override
+    public void setDrivePidP(double gain) {
+        drivePid.setP(gain);
+    }
+
+    @Override
+    public void setDrivePidI(double gain) {
+        drivePid.setI(gain);
+    }
+
+    @Override
+    public void setDrivePidD(double gain) {
+        drivePid.setD(gain);
+    }
+
+    /**
+     * IZone is only supported by the onboard pivot loop.
+     * 
+     * @param iZone IZone value. Must be positive, or set to 0 to disable.
+     * @throws SwerveImplementationException If onboard pivot control is not
+     *                                       enabled.
+     */
+    @Override
+    public void setPivotPidIZone(double iZone) {
+        if (!onboardPivotControl) {
+            throw new SwerveImplementationException(
+                    "MK2 Swerve Module: Pivot motor PID does not implement IZone parameters.");
+        }
+        pivotPid.setIZone(iZone);
+    }
+
+    @Override
+    public void setDrivePidIZone(double iZone) {
+        drivePid.setIZone(iZone);
+    }
+
+    @Override
+    public void setDrivePidFF(double gain) {
+        drivePid.setFF(gain);
+    }
+
+    /**
+     * Choose the pivot encoder. Choosing {@link EncoderSetting#FUSED} lines the
+     * internal encoder up with the analog encoder, so the module should be still,
+     * and then keeps it lined up in the background.
+     */
+    @Override
+    public void setEncoder(EncoderSetting encoder) {
+        if (encoder == EncoderSetting.FUSED && !onboardPivotControl) {
+            fusedEncoder.reset();
+            fusedEncoder.start();
+        } else if (encoder != EncoderSetting.FUSED) {
+            fusedEncoder.stop();
+        }
+        useEncoder = encoder;
+    }
+
+    @Override
+    public EncoderSetting getEncoderSetting() {
+        return useEncoder;
+    }
+
+    /**
+     * Get the encoder used by {@link EncoderSetting#FUSED}, to check how much the
+     * internal encoder drifts from the analog encoder.
+     * 
+     * @return The fused pivot encoder. Its readings are in degrees.
+     */
+    public FusedEncoder getFusedEncoder() {
+        return fusedEncoder;
+    }
+
+    /**
+     * Set how often both Spark Maxes send status frames 0 to 2. Until this is
+     * called, they use their own defaults, or whatever was burned into their
+     * flash.
+     * 
+     * @param profile The status frame profile to use.
+     */
+    public void setStatusFrameProfile(StatusFrameProfile profile) {
+        if (profile == null) {
+            throw new IllegalArgumentException("Status frame profile must not be null.");
+        }
+        for (PeriodicFrame frame : PROFILE_FRAMES) {
+            driveMotor.setPeriodicFramePeriod(frame, profile.getDrivePeriod(frame));
+            pivotMotor.setPeriodicFramePeriod(frame, profile.getPivotPeriod(frame));
+        }
+        statusFrameProfile = profile;
+    }
+
+    /**
+     * @return The status frame profile that the Spark Maxes were last set to.
+     */
+    public StatusFrameProfile getStatusFrameProfile() {
+        return statusFrameProfile;
+    }
+
+    /**
+     * Read a setting back from the Spark Maxes. The pivot PID settings can only
+     * be read back with onboard pivot control, because otherwise the pivot PID
+     * runs on the roboRIO and starts out empty on every boot.
+     */
+    @Override
+    public double readParameter(ModuleParameter parameter) {
+        switch (parameter) {
+        case PIVOT_CLOSED_LOOP_RAMP_RATE:
+            return pivotMotor.getClosedLoopRampRate();
+        case PIVOT_OPEN_LOOP_RAMP_RATE:
+            return pivotMotor.getOpenLoopRampRate();
+        case DRIVE_P:
+            return drivePid.getP();
+        case DRIVE_I:
+            return drivePid.getI();
+        case DRIVE_D:
+            return drivePid.getD();
+        case DRIVE_FF:
+            return drivePid.getFF();
+        case DRIVE_IZONE:
+            return drivePid.getIZone();
+        case DRIVE_OUTPUT_MIN:
+            return drivePid.getOutputMin();
+        case DRIVE_OUTPUT_MAX:
+            return drivePid.getOutputMax();
+        case DRIVE_CLOSED_LOOP_RAMP_RATE:
+            return driveMotor.getClosedLoopRampRate();
+        case DRIVE_OPEN_LOOP_RAMP_RATE:
+            return driveMotor.getOpenLoopRampRate();
+        case DRIVE_VELOCITY_P:
+            return drivePid.getP(DRIVE_VELOCITY_SLOT);
+        case DRIVE_VELOCITY_I:
+            return drivePid.getI(DRIVE_VELOCITY_SLOT);
+        case DRIVE_VELOCITY_D:
+            return drivePid.getD(DRIVE_VELOCITY_SLOT);
+        default:
+            break;
+        }
+        if (!onboardPivotControl) {
+            return Double.NaN;
+        }
+        switch (parameter) {
+        case PIVOT_P:
+            return pivotPid.getP();
+        case PIVOT_I:
+            return pivotPid.getI();
+        case PIVOT_D:
+            return pivotPid.getD();
+        case PIVOT_FF:
+            return pivotPid.getFF();
+        case PIVOT_IZONE:
+            return pivotPid.getIZone();
+        case PIVOT_OUTPUT_MIN:
+            return pivotPid.getOutputMin();
+        case PIVOT_OUTPUT_MAX:
+            return pivotPid.getOutputMax();
+        default:
+            return Double.NaN;
+        }
+    }
+
+    @Override
+    public boolean burnFlash() {
+        driveMotor.burnFlash();
+        pivotMotor.burnFlash();
+        return true;
+    }
+
+    /**
+     * Status frames 0 to 2 of both Spark Maxes, plus one drive and one pivot
+     * command per loop. Any other status frames that the firmware sends aren't
+     * counted.
+     */
+    @Override
+    public double getCanFramesPerSecond(double commandHz) {
+        return statusFrameProfile.getFramesPerSecond() + (2 * commandHz);
+    }
+
+    @Override
+    public void setDrivePidOutputLimits(double min, double max) {
+        drivePid.setOutputRange(min, max);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,407 @@
+package net.bancino.robotics.swerveio;
+
+import java.util.HashMap;
+
+import edu.wpi.first.wpilibj.command.Subsystem;
+import net.bancino.robotics.swerveio.module.AbstractSwerveModule;
+import net.bancino.robotics.swerveio.module.GenericSwerveModule;
+import net.bancino.robotics.swerveio.concurrent.ModuleIOPool;
+import net.bancino.robotics.swerveio.encoder.EncoderSampler;
+import net.bancino.robotics.swerveio.function.ModuleModifier;
+import net.bancino.robotics.swerveio.kinematics.SwerveGeometry;
+import net.bancino.robotics.swerveio.kinematics.SwerveOdometry;
+import net.bancino.robotics.swerveio.pid.Feedforward;
+import net.bancino.robotics.swerveio.pid.PidBank;
+import net.bancino.robotics.swerveio.telemetry.DriveProfiler;
+import net.bancino.robotics.swerveio.telemetry.StartupReport;
+
+/**
+ * A class designed to be extended extended and used as a WPILib subsystem. This
+ * takes care of consolidating swerve modules so they can be driven as a system
+ * easily.
+ * 
+ * @author Jordan Bancino
+ */
+public abstract class SwerveDrive extends Subsystem {
+    /**
+     * A module map that contains all the swerve modules in this swerve drive. For
+     * internal use only, this can be used to pull specific modules, and also
+     * iterate over all the modules.
+     */
+    protected final HashMap<SwerveModule, AbstractSwerveModule> moduleMap = new HashMap<SwerveModule, AbstractSwerveModule>();
+
+    /**
+     * A calculator is provided by default so that calculations can be easily
+     * retrieved. If invalid base dimensions are provide, the default of a 1:1 base
+     * is used.
+     */
+    protected final SwerveDriveCalculator calc;
+
+    protected final double countsPerPivotRevolution;
+
+    /**
+     * All the swerve modules in this swerve drive, in the same order as the
+     * modules in the calculator's geometry. Unlike the module map, this holds any
+     * number of modules.
+     */
+    protected final AbstractSwerveModule[] modules;
+
+    /* Does the actual driving, so that it can also be done without WPILib. */
+    private final SwerveDriveController controller;
+
+    /* How long the modules took to start, if they were started by a builder. */
+    private final StartupReport startupReport;
+
+    /**
+     * Create the swerve drive with the base dimensions and the modules.
+     * 
+     * @param baseWidth                The width of the swerve drive base. Used for
+     *                                 trig.
+     * @param baseLength               The length of the swerve drive base. Used for
+     *                                 trig.
+     * @param countsPerPivotRevolution The number of counts it takes to rotate the
+     *                                 module a full 360 degrees.
+     * @param frontLeftModule          The front left swerve module.
+     * @param frontRightModule         The front right swerve module.
+     * @param rearLeftModule           The rear left swerve module.
+     * @param rearRightModule          the rear right swerve module.
+     * @param modifier                  The modifier that will apply settings to each
+     *                                 passed module.
+     */
+    public SwerveDrive(double baseWidth, double baseLength, double countsPerPivotRevolution,
+            AbstractSwerveModule frontLeftModule, AbstractSwerveModule frontRightModule,
+            AbstractSwerveModule rearLeftModule, AbstractSwerveModule rearRightModule, ModuleModifier modifier) {
+        this((baseWidth <= 0 || baseLength <= 0) ? SwerveGeometry.rectangle(1.0, 1.0)
+                : SwerveGeometry.rectangle(baseWidth, baseLength), countsPerPivotRevolution,
+                requireModules(frontLeftModule, frontRightModule, rearLeftModule, rearRightModule), modifier);
+    }
+
+    /**
+     * Create the swerve drive with any number of modules in any placement. If
+     * exactly four modules are given, they are also put in the module map in the
+     * order of the {@link SwerveModule} enumeration.
+     * 
+     * @param geometry                 The positions of the modules.
+     * @param countsPerPivotRevolution The number of counts it takes to rotate the
+     *                                 module a full 360 degrees.
+     * @param modules                  The swerve modules, in the same order as
+     *                                 their positions in the geometry.
+     * @param modifier                 The modifier that will apply settings to each
+     *                                 passed module.
+     */
+    public SwerveDrive(SwerveGeometry geometry, double countsPerPivotRevolution, AbstractSwerveModule[] modules,
+            ModuleModifier modifier) {
+        this(new SwerveDriveController(geometry, countsPerPivotRevolution, modules, modifier), null);
+    }
+
+    /**
+     * Create the swerve drive by bringing up all its modules at the same time.
+     * The builder constructs and configures the modules, and the time each one
+     * took is available from {@link #getStartupReport()}.
+     * 
+     * @param builder The builder that describes the modules.
+     * @throws SwerveImplementationException If any module could not be
+     *                                       started.
+     */
+    public SwerveDrive(SwerveDriveBuilder builder) throws SwerveImplementationException {
+        this(builder.build(), builder.getStartupReport());
+    }
+
+    private SwerveDrive(SwerveDriveController controller, StartupReport startupReport) {
+        this.controller = controller;
+        this.startupReport = startupReport;
+        this.modules = controller.getModules();
+        SwerveModule[] positions = SwerveModule.values();
+        if (this.modules.length == positions.length) {
+            for (SwerveModule position : positions) {
+                moduleMap.put(position, this.modules[position.ordinal()]);
+            }
+        }
+        this.calc = controller.getCalculator();
+        this.countsPerPivotRevolution = controller.getCountsPerPivotRevolution();
+    }
+
+    /**
+     * A compatibility constructor that allows a raw module map to be passed to the
+     * Swerve Drive
+     * 
+     * @param baseWidth                The width of the base
+     * @param baseLength               The length of the base
+     * @param countsPerPivotRevolution The number of counts it takes to rotate the
+     *                                 module a full 360 degrees.
+     * @param moduleMap                A raw module map
+     * @param modifier                 The modifier that will apply settings to each
+     *                                 passed module.
+     */
+    public SwerveDrive(double baseWidth, double baseLength, double countsPerPivotRevolution,
+            HashMap<SwerveModule, AbstractSwerveModule> moduleMap, ModuleModifier modifier) {
+        this(baseWidth, baseLength, countsPerPivotRevolution, moduleMap.get(SwerveModule.FRONT_LEFT),
+                moduleMap.get(SwerveModule.FRONT_RIGHT), moduleMap.get(SwerveModule.REAR_LEFT),
+                moduleMap.get(SwerveModule.REAR_RIGHT), modifier);
+    }
+
+    /**
+     * A drive function that should be implemented to drive the robot with the
+     * joystick.
+     * 
+     * @param fwd       The Y value
+     * @param str       The X value
+     * @param rcw       The Z value
+     * @param gyroAngle The angle of the gyro, used for field centric navigation.
+     * @throws SwerveImplementationException If there is an error with the
+     *                                       implementation of any swerve module.
+     */
+    public void drive(double fwd, double str, double rcw, double gyroAngle) throws SwerveImplementationException {
+        controller.drive(fwd, str, rcw, gyroAngle);
+    }
+
+    /**
+     * Perform module I/O in parallel. Instead of reading and commanding each
+     * module in turn, drive() reads all the pivot encoders at once, calculates
+     * all the commands, and then sends them to all the modules at once, without
+     * waiting for the sends to finish. This makes a tick take about as long as a
+     * single module's I/O. Only enable this if the modules are safe to use from
+     * multiple threads, which is true of all the modules provided by SwerveIO.
+     * 
+     * @param workers The number of worker threads to use. One per module gives
+     *                the lowest latency.
+     * @param virtual Whether or not to use virtual threads on JDKs that support
+     *                them. See {@link ModuleIOPool}.
+     */
+    public void enableParallelIO(int workers, boolean virtual) {
+        controller.enableParallelIO(workers, virtual);
+    }
+
+    /**
+     * Perform module I/O in parallel, using one platform thread per module. See
+     * {@link #enableParallelIO(int, boolean)}.
+     */
+    public void enableParallelIO() {
+        enableParallelIO(modules.length, false);
+    }
+
+    /**
+     * Go back to performing module I/O one module at a time on the thread that
+     * calls drive(). Any commands that are still being sent finish first.
+     */
+    public void disableParallelIO() {
+        controller.disableParallelIO();
+    }
+
+    /**
+     * Check whether or not module I/O is being performed in parallel.
+     * 
+     * @return Whether or not parallel I/O is enabled.
+     */
+    public boolean isParallelIO() {
+        return controller.isParallelIO();
+    }
+
+    /**
+     * Drive in robot-centric navigation mode.
+     * 
+     * @param fwd The Y value
+     * @param str The X value
+     * @param rcw The Z value
+     */
+    public void drive(double fwd, double str, double rcw) {
+        /*
+         * Sending a gyro angle of 0 all the time forces the bot to always think it is
+         * going forward, thus putting it into an effective bot-centric drive mode.
+         */
+        drive(fwd, str, rcw, 0);
+    }
+
+    /**
+     * Get the profiler that times each phase of drive(): the kinematics, and the
+     * sensor read, pivot write and drive write of each module. Profiling is
+     * disabled by default; enable it with {@link DriveProfiler#setEnabled(boolean)}.
+     * It is cheap enough to leave on in competition.
+     * 
+     * @return The drive profiler.
+     */
+    public DriveProfiler getProfiler() {
+        return controller.getProfiler();
+    }
+
+    /**
+     * Get how long each module took to start, if this drive was created with a
+     * {@link SwerveDriveBuilder}.
+     * 
+     * @return The startup report, or null if the modules were passed in already
+     *         constructed.
+     */
+    public StartupReport getStartupReport() {
+        return startupReport;
+    }
+
+    /**
+     * Read the encoders of all the modules in the background at a high rate.
+     * From then on, drive() and odometry use the latest sample instead of waiting
+     * on the hardware. Only modules that support it, such as those that extend
+     * {@link GenericSwerveModule}, are sampled; others keep reading their
+     * encoders directly. This should be
+     * called before the swerve drive is driven, and can only be called once.
+     * 
+     * @param hz How many times per second to sample each encoder.
+     * @return The sampler, which can be used to check for stale samples.
+     */
+    public EncoderSampler enableEncoderSampling(double hz) {
+        return controller.enableEncoderSampling(hz);
+    }
+
+    /**
+     * Get the sampler that reads the module encoders in the background.
+     * 
+     * @return The encoder sampler, or null if sampling hasn't been enabled.
+     */
+    public EncoderSampler getEncoderSampler() {
+        return controller.getEncoderSampler();
+    }
+
+    /**
+     * Drive the wheels with closed velocity loops instead of open loop, so that
+     * the wheel speeds hold steady as the battery voltage and the load change.
+     * Each wheel speed is scaled by the maximum velocity, and a feed-forward
+     * voltage is calculated for it. On MK2 modules, the loop runs on the Spark
+     * Max; on other modules that extend {@link GenericSwerveModule}, it runs on
+     * the roboRIO.
+     * 
+     * @param maxVelocity The velocity of a wheel at full speed, in drive encoder
+     *                    counts per second.
+     * @param feedforward The feed-forward model of the drive motors.
+     * @param period      The time between calls to drive(), in seconds. This is
+     *                    0.02 for the default robot loop.
+     * @throws SwerveImplementationException If any of the modules don't support
+     *                                       velocity control.
+     */
+    public void enableVelocityDrive(double maxVelocity, Feedforward feedforward, double period)
+            throws SwerveImplementationException {
+        controller.enableVelocityDrive(maxVelocity, feedforward, period);
+    }
+
+    /**
+     * Go back to driving the wheels open loop. This is the default.
+     */
+    public void disableVelocityDrive() {
+        controller.disableVelocityDrive();
+    }
+
+    /**
+     * Check whether or not the wheels are driven with velocity loops.
+     * 
+     * @return Whether or not velocity drive is enabled.
+     */
+    public boolean isVelocityDrive() {
+        return controller.isVelocityDrive();
+    }
+
+    /**
+     * Calculate the pivot PIDs of all the modules in one loop, instead of one
+     * module at a time. Only modules that keep their pivot PID on the roboRIO,
+     * such as those that extend {@link GenericSwerveModule}, support this. Their
+     * current pivot PID settings are kept. This can only be called once.
+     * 
+     * @return The bank that holds the pivot PIDs, with one slot per module.
+     * @throws SwerveImplementationException If any of the modules don't support
+     *                                       it.
+     */
+    public PidBank enablePivotPidBank() throws SwerveImplementationException {
+        return controller.enablePivotPidBank();
+    }
+
+    /**
+     * Estimate how much of the CAN bus the swerve modules use, from the status
+     * frame rates of their motor controllers and the frames sent to command them
+     * each loop. Modules that don't report their CAN usage count as nothing.
+     * 
+     * @param loopHz How many times per second drive() is called, 50 for the
+     *               default robot loop.
+     * @return The estimated fraction of the bus used by the swerve drive, from 0
+     *         to 1.
+     */
+    public double estimateCanBusUtilization(double loopHz) {
+        return controller.estimateCanBusUtilization(loopHz);
+    }
+
+    /**
+     * Create an odometry tracker for this swerve drive. For the pose to be
+     * meaningful, this swerve drive must have been created with real base
+     * dimensions or module positions, because the pose is in those same units.
+     * 
+     * @param distancePerDriveCount How far the robot travels for each count on the
+     *                              drive encoder, in the units of the base
+     *                              dimensions.
+     * @return A new odometry tracker. It is not started.
+     */
+    public SwerveOdometry createOdometry(double distancePerDriveCount) {
+        return controller.createOdometry(distancePerDriveCount);
+    }
+
+    /**
+     * Get the WPILib-independent controller that this swerve drive uses to drive
+     * its modules.
+     * 
+     * @return The swerve drive controller.
+     */
+    public SwerveDriveController getController() {
+        return controller;
+    }
+
+    /**
+     * Stop all the modules, stopping this swerve drive.
+     */
+    public void stop() {
+        controller.stop();
+    }
+
+    /**
+     * Zero all the pivot and drive encoders in this swerve drive.
+     */
+    public void zero() {
+        controller.zero();
+    }
+
+    /**
+     * Calls the reset function on all the modules, stopping each module and
+     * resetting all the encoders
+     */
+    public void reset() {
+        controller.reset();
+    }
+
+    /**
+     * Make sure all four modules of a rectangular base are present.
+     * 
+     * @return The modules in the order of the {@link SwerveModule} enumeration.
+     * @throws SwerveImplementationException If any of the modules are null.
+     */
+    private static AbstractSwerveModule[] requireModules(AbstractSwerveModule frontLeftModule,
+            AbstractSwerveModule frontRightModule, AbstractSwerveModule rearLeftModule,
+            AbstractSwerveModule rearRightModule) throws SwerveImplementationException {
+        StringBuilder nullModule = new StringBuilder("The following modules are null: [");
+        boolean haveNullModule = false;
+        if (frontRightModule == null) {
+            nullModule.append(" FrontRight");
+            haveNullModule = true;
+        }
+        if (frontLeftModule == null) {
+            nullModule.append(" FrontLeft");
+            haveNullModule = true;
+        }
+        if (rearLeftModule == null) {
+            nullModule.append(" RearLeft");
+            haveNullModule = true;
+        }
+        if (rearRightModule == null) {
+            nullModule.append(" RearRight");
+            haveNullModule = true;
+        }
+        if (haveNullModule) {
+            nullModule.append("] Please provide an implemented swerve module for these parameters.");
+            throw new SwerveImplementationException(nullModule.toString());
+        }
+        return new AbstractSwerveModule[] { frontLeftModule, frontRightModule, rearLeftModule, rearRightModule };
+    }
+
+}
\ No newline at end of file
@@ -28,13 +28,25 @@ public class MK2Encoder implements Encoder {
     /**
      * These encoders are read by voltage. The voltage scales from 0 to 5 volts,
      * then resets upon the next revolution. This reading is scaled to degrees in
-     * terms of 0 to 360.
+     * terms of 0 to 360. The offset is applied after scaling, and the result is
+     * wrapped back into 0 to 360, so it never goes negative or past a full
+     * revolution. To count whole turns, wrap this in an
+     * {@link UnwrappingEncoder}.
      * 
      * @return An angle measure, in degrees, that the encoder shaft is rotated at.
      */
     @Override
     public double get() {
-        return ((360 / 5) * (encoder.getVoltage())) - encoderOffset;
+        return wrap(getRaw() - encoderOffset);
+    }
+
+    /**
+     * Get the angle of the encoder shaft without the offset applied.
+     * 
+     * @return The raw angle measure, in degrees.
+     */
+    public double getRaw() {
+        return (360.0 / 5) * encoder.getVoltage();
     }
 
     /**
@@ -48,13 +60,15 @@ public class MK2Encoder implements Encoder {
      */
     @Override
     public void set(double val) throws SwerveImplementationException {
-        encoderOffset = get() - val;
+        /* Measured from the raw angle, so that setting twice doesn't stack offsets. */
+        encoderOffset = wrap(getRaw() - val);
     }
 
     /**
      * Get the offset from the real value that this encoder is reading. You find the
-     * encoder's real value by performing a get(), then adding this offset. This
-     * defaults to zero, and only changes if the set() function is called.
+     * encoder's real value by performing a get(), then adding this offset and
+     * wrapping the sum back into 0 to 360, or with getRaw(). This defaults to
+     * zero, and only changes if the set() function is called.
      * 
      * @return The offset that this encoder is applying to it's actual raw value.
      */
@@ -62,4 +76,10 @@ public class MK2Encoder implements Encoder {
         return encoderOffset;
     }
 
+    private static double wrap(double angle) {
+        double wrapped = angle - (360 * Math.floor(angle / 360));
+        /* Rounding can land a tiny negative angle on 360 itself. */
+        return (wrapped >= 360) ? 0 : wrapped;
+    }
+
 }
\ No newline at end of file
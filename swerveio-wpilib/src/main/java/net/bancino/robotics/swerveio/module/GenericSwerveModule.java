@@ -0,0 +1,401 @@
+package net.bancino.robotics.swerveio.module;
+
+import edu.wpi.first.wpilibj.SpeedController;
+import net.bancino.robotics.swerveio.SwerveImplementationException;
+import net.bancino.robotics.swerveio.encoder.Encoder;
+import net.bancino.robotics.swerveio.encoder.EncoderSampler;
+import net.bancino.robotics.swerveio.pid.Feedforward;
+import net.bancino.robotics.swerveio.pid.MiniPID;
+import net.bancino.robotics.swerveio.pid.PidBank;
+
+/**
+ * A generic swerve module class that provides every single function that can
+ * possibly be implemented using only two speed controllers and a pivot encoder.
+ * If you wish to implement your own module, it is often easier to extend this
+ * class instead of implementing AbstractSwerveModule directly.
+ * <p>
+ * Velocity control is done on the roboRIO with a {@link MiniPID}. If the drive
+ * encoder doesn't report its velocity, it is estimated from the change in the
+ * drive encoder between velocity commands, timed by the encoder's timestamps.
+ * The feed-forward voltage is scaled against
+ * {@link Feedforward#NOMINAL_VOLTAGE}. Modules with a smart motor controller
+ * should override the velocity methods to close the loop onboard instead.
+ * </p>
+ * 
+ * @author Jordan Bancino
+ */
+public abstract class GenericSwerveModule implements AbstractSwerveModule {
+
+    private SpeedController driveMotor, pivotMotor;
+    private Encoder pivotEncoder, driveEncoder;
+    private final MiniPID pivotPid = new MiniPID(0, 0, 0);
+    /* Set once the pivot PID has been moved into a shared bank. */
+    private PidBank pivotBank;
+    private int pivotSlot;
+    private final MiniPID driveVelocityPid = new MiniPID(0, 0, 0);
+    private boolean driveVelocityControl = false;
+    /* Only touched by setDriveVelocity(). */
+    private double lastDrivePosition;
+    private long lastDriveTime;
+    private volatile double driveVelocity;
+    private final MotorOutputCache driveOutput = new MotorOutputCache();
+    private final MotorOutputCache pivotOutput = new MotorOutputCache();
+
+    /**
+     * Construct a generic swerve module.
+     * 
+     * @param driveMotor   The drive motor controller.
+     * @param pivotMotor   The pivot motor controller.
+     * @param driveEncoder The drive encoder.
+     * @param pivotEncoder The pivot encoder.
+     */
+    public GenericSwerveModule(SpeedController driveMotor, SpeedController pivotMotor, Encoder driveEncoder,
+            Encoder pivotEncoder) {
+        if (driveMotor == null) {
+            throw new IllegalArgumentException("Drive motor must not be null.");
+        } else if (driveEncoder == null) {
+            throw new IllegalArgumentException("Drive encoder must not be null.");
+        } else if (pivotMotor == null) {
+            throw new IllegalArgumentException("Pivot motor must not be null.");
+        } else if (pivotEncoder == null) {
+            throw new IllegalArgumentException("Pivot encoder must not be null.");
+        } else {
+            this.driveMotor = driveMotor;
+            this.pivotMotor = pivotMotor;
+            this.pivotEncoder = pivotEncoder;
+            this.driveEncoder = driveEncoder;
+            driveVelocityPid.setOutputLimits(-1, 1);
+        }
+    }
+
+    /**
+     * @return The drive motor controller that this class was instantiated with.
+     */
+    protected SpeedController getDriveMotor() {
+        return driveMotor;
+    }
+
+    /**
+     * @return The pivot motor controller that this class was instantiated with.
+     */
+    protected SpeedController getPivotMotor() {
+        return pivotMotor;
+    }
+
+    /**
+     * @return The pivot encoder that this class was instantiated with.
+     */
+    protected Encoder getPivotEncoder() {
+        return pivotEncoder;
+    }
+
+    /**
+     * @return the drive encoder that this class was instantiated with.
+     */
+    protected Encoder getDriveEncoder() {
+        return driveEncoder;
+    }
+
+    /**
+     * @return The cache of the values sent to the drive motor.
+     */
+    protected MotorOutputCache getDriveOutputCache() {
+        return driveOutput;
+    }
+
+    /**
+     * @return The cache of the values sent to the pivot motor.
+     */
+    protected MotorOutputCache getPivotOutputCache() {
+        return pivotOutput;
+    }
+
+    /**
+     * Skip sending motor outputs that haven't meaningfully changed, to cut down
+     * on bus traffic. The motor speed getters are then answered from the last
+     * value sent instead of asking the controller. See {@link MotorOutputCache}.
+     * 
+     * @param deadband         Outputs within this much of the last sent output
+     *                         are not sent.
+     * @param keepaliveSeconds The longest time to go without sending an output,
+     *                         even if it hasn't changed.
+     */
+    public void setOutputCaching(double deadband, double keepaliveSeconds) {
+        driveOutput.enable(deadband, keepaliveSeconds);
+        pivotOutput.enable(deadband, keepaliveSeconds);
+    }
+
+    /**
+     * Send every motor output, even if it hasn't changed. This is the default.
+     */
+    public void disableOutputCaching() {
+        driveOutput.disable();
+        pivotOutput.disable();
+    }
+
+    /**
+     * Get the number of motor outputs that were not sent because they hadn't
+     * changed.
+     * 
+     * @return The number of suppressed frames for both motors.
+     */
+    public long getSuppressedFrames() {
+        return driveOutput.getSuppressedFrames() + pivotOutput.getSuppressedFrames();
+    }
+
+    /**
+     * Get the number of motor outputs that were sent.
+     * 
+     * @return The number of sent frames for both motors.
+     */
+    public long getWrittenFrames() {
+        return driveOutput.getWrittenFrames() + pivotOutput.getWrittenFrames();
+    }
+
+    @Override
+    public void sampleEncoders(EncoderSampler sampler) {
+        pivotEncoder = sampler.register(pivotEncoder);
+        driveEncoder = sampler.register(driveEncoder);
+    }
+
+    @Override
+    public void setPivotMotorSpeed(double speed) {
+        if (pivotOutput.shouldWrite(speed)) {
+            pivotMotor.set(speed);
+        }
+    }
+
+    @Override
+    public void setDriveMotorSpeed(double speed) {
+        driveVelocityControl = false;
+        writeDriveMotor(speed);
+    }
+
+    private void writeDriveMotor(double speed) {
+        if (driveOutput.shouldWrite(speed)) {
+            driveMotor.set(speed);
+        }
+    }
+
+    @Override
+    public void setDriveVelocity(double velocity, double feedforward) {
+        if (!driveVelocityControl) {
+            driveVelocityPid.reset();
+            /* The last position is from before open-loop driving, so start over. */
+            lastDriveTime = 0;
+            driveVelocity = 0;
+            driveVelocityControl = true;
+        }
+        double actual = driveEncoder.hasVelocity() ? driveEncoder.getVelocity() : estimateDriveVelocity();
+        double output = (feedforward / Feedforward.NOMINAL_VOLTAGE) + driveVelocityPid.getOutput(actual, velocity);
+        writeDriveMotor(Math.max(-1, Math.min(1, output)));
+    }
+
+    /**
+     * Estimate the drive velocity from how far the drive encoder moved since the
+     * last velocity command, over the time between the two readings. If the
+     * reading hasn't changed since then, the last estimate is kept.
+     */
+    private double estimateDriveVelocity() {
+        double position = driveEncoder.get();
+        long time = driveEncoder.getTimestamp();
+        if (lastDriveTime != 0 && time - lastDriveTime > 0) {
+            driveVelocity = (position - lastDrivePosition) / ((time - lastDriveTime) / 1e9);
+        }
+        if (time != lastDriveTime) {
+            lastDrivePosition = position;
+            lastDriveTime = time;
+        }
+        return driveVelocity;
+    }
+
+    /**
+     * Get the drive velocity from the drive encoder, if it reports one.
+     * Otherwise, get the estimate made by the last velocity command. This
+     * doesn't change the estimate, so it can be called from any thread.
+     */
+    @Override
+    public double getDriveVelocity() {
+        return driveEncoder.hasVelocity() ? driveEncoder.getVelocity() : driveVelocity;
+    }
+
+    @Override
+    public void setDriveVelocityPidP(double gain) {
+        driveVelocityPid.setP(gain);
+    }
+
+    @Override
+    public void setDriveVelocityPidI(double gain) {
+        driveVelocityPid.setI(gain);
+    }
+
+    @Override
+    public void setDriveVelocityPidD(double gain) {
+        driveVelocityPid.setD(gain);
+    }
+
+    @Override
+    public double getPivotMotorSpeed() {
+        return pivotOutput.isValid() ? pivotOutput.get() : pivotMotor.get();
+    }
+
+    @Override
+    public double getDriveMotorSpeed() {
+        return driveOutput.isValid() ? driveOutput.get() : driveMotor.get();
+    }
+
+    @Override
+    public double getDriveMotorEncoder() {
+        return driveEncoder.get();
+    }
+
+    @Override
+    public void zeroDriveEncoder() {
+        driveEncoder.zero();
+    }
+
+    @Override
+    public double getPivotMotorEncoder() {
+        return pivotEncoder.get();
+    }
+
+    @Override
+    public void zeroPivotEncoder() {
+        pivotEncoder.zero();
+    }
+
+    @Override
+    public void stopPivotMotor() {
+        pivotMotor.stopMotor();
+        pivotOutput.written(0);
+    }
+
+    @Override
+    public void stopDriveMotor() {
+        driveVelocityControl = false;
+        driveMotor.stopMotor();
+        driveOutput.written(0);
+    }
+
+    @Override
+    public void setPivotReference(double ref) {
+        /* Subclasses may choose which encoder the pivot is controlled with. */
+        setPivotReference(ref, getPivotMotorEncoder());
+    }
+
+    @Override
+    public void setPivotReference(double ref, double position) {
+        double output = (pivotBank != null) ? pivotBank.getOutput(pivotSlot, position, ref)
+                : pivotPid.getOutput(position, ref);
+        if (pivotOutput.shouldWrite(output)) {
+            pivotMotor.set(output);
+        }
+    }
+
+    /**
+     * Move the pivot PID into a slot of a shared bank. This is refused if the
+     * pivot PID uses the time-aware mode or a derivative filter, which a bank
+     * doesn't have.
+     */
+    @Override
+    public boolean usePivotPidBank(PidBank bank, int slot) {
+        if (!PidBank.supports(pivotPid)) {
+            return false;
+        }
+        bank.copy(pivotPid, slot);
+        pivotBank = bank;
+        pivotSlot = slot;
+        return true;
+    }
+
+    /**
+     * Run the pivot PID in the time-aware mode of {@link MiniPID}, so that loop
+     * jitter doesn't change the I and D terms. See
+     * {@link MiniPID#setPeriod(double)}.
+     * 
+     * @param seconds The nominal period of the loop that sets pivot references,
+     *                or 0 to disable the time-aware mode.
+     * @throws IllegalStateException If the pivot PID has been moved into a bank.
+     */
+    public void setPivotPidPeriod(double seconds) {
+        checkPivotUnbanked();
+        pivotPid.setPeriod(seconds);
+    }
+
+    /**
+     * Set a low-pass filter on the D term of the pivot PID. See
+     * {@link MiniPID#setDerivativeFilter(double)}.
+     * 
+     * @param strength The strength, in [0, 1). 0 disables filtering.
+     * @throws IllegalStateException If the pivot PID has been moved into a bank.
+     */
+    public void setPivotPidDerivativeFilter(double strength) {
+        checkPivotUnbanked();
+        pivotPid.setDerivativeFilter(strength);
+    }
+
+    private void checkPivotUnbanked() {
+        if (pivotBank != null) {
+            throw new IllegalStateException("The pivot PID is in a PID bank, which has no time-aware mode.");
+        }
+    }
+
+    @Override
+    public void setPivotPidP(double gain) {
+        if (pivotBank != null) {
+            pivotBank.setP(pivotSlot, gain);
+        } else {
+            pivotPid.setP(gain);
+        }
+    }
+
+    @Override
+    public void setPivotPidI(double gain) {
+        if (pivotBank != null) {
+            pivotBank.setI(pivotSlot, gain);
+        } else {
+            pivotPid.setI(gain);
+        }
+    }
+
+    @Override
+    public void setPivotPidD(double gain) {
+        if (pivotBank != null) {
+            pivotBank.setD(pivotSlot, gain);
+        } else {
+            pivotPid.setD(gain);
+        }
+    }
+
+    @Override
+    public void setPivotPidIZone(double iZone) {
+        throw new SwerveImplementationException(pivotPid.getClass().getName() + " does not support setting IZone.");
+    }
+
+    @Override
+    public void setPivotPidFF(double gain) {
+        if (pivotBank != null) {
+            pivotBank.setF(pivotSlot, gain);
+        } else {
+            pivotPid.setF(gain);
+        }
+    }
+
+    @Override
+    public void setPivotPidOutputLimits(double min, double max) {
+        if (pivotBank != null) {
+            pivotBank.setOutputLimits(pivotSlot, min, max);
+        } else {
+            pivotPid.setOutputLimits(min, max);
+        }
+    }
+
+    @Override
+    public void setPivotPidSetpointRange(double range) {
+        if (pivotBank != null) {
+            pivotBank.setSetpointRange(pivotSlot, range);
+        } else {
+            pivotPid.setSetpointRange(range);
+        }
+    }
+}
\ No newline at end of file